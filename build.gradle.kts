@@ -59,6 +59,12 @@ tasks.register<Exec>("buildApiImage") {
     commandLine("docker", "build", "-f", "src/api/Dockerfile", "-t", "taxi-api:v1.01", ".")
 }
 
+tasks.register<Exec>("buildApiReactiveImage") {
+    group = "docker"
+    description = "Builds the Docker image from the reactive API service"
+    commandLine("docker", "build", "-f", "src/api-reactive/Dockerfile", "-t", "taxi-api-reactive:v1.01", ".")
+}
+
 tasks.register<Exec>("buildProcessorImage") {
     group = "docker"
     description = "Builds the Docker image from Processor service"
@@ -78,6 +84,9 @@ tasks.register("buildAllImages") {
         project.exec {
             commandLine("docker", "build", "-f", "src/api/Dockerfile", "-t", "taxi-api:v1.01", ".")
         }
+        project.exec {
+            commandLine("docker", "build", "-f", "src/api-reactive/Dockerfile", "-t", "taxi-api-reactive:v1.01", ".")
+        }
         project.exec {
             commandLine("docker", "build", "-f", "src/processor/Dockerfile", "-t", "taxi-processor:v1.01", ".")
         }
@@ -92,11 +101,14 @@ tasks.register("buildAllImages") {
 tasks.register("loadImagesIntoKind") {
     group = "docker"
     description = "Loads all images into cluster Kind"
-    dependsOn("buildApiImage", "buildProcessorImage")
+    dependsOn("buildApiImage", "buildApiReactiveImage", "buildProcessorImage")
     doLast {
         exec {
             commandLine("kind", "load", "docker-image", "taxi-api:v1.01")
         }
+        exec {
+            commandLine("kind", "load", "docker-image", "taxi-api-reactive:v1.01")
+        }
         exec {
             commandLine("kind", "load", "docker-image", "taxi-processor:v1.01")
         }
@@ -133,6 +145,8 @@ tasks.register("deployApps") {
         exec { commandLine("kubectl", "apply", "-f", "k8s/deployments/processor.yaml") }
         exec { commandLine("kubectl", "apply", "-f", "k8s/deployments/api.yaml") }
         exec { commandLine("kubectl", "apply", "-f", "k8s/services/api-svc.yaml") }
+        exec { commandLine("kubectl", "apply", "-f", "k8s/deployments/api-reactive.yaml") }
+        exec { commandLine("kubectl", "apply", "-f", "k8s/services/api-reactive-svc.yaml") }
     }
 }
 
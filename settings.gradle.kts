@@ -1,2 +1,2 @@
 rootProject.name = "taxi-data-system"
-include("src:api", "src:processor")
+include("src:common", "src:api", "src:api-reactive", "src:processor", "src:benchmarks")
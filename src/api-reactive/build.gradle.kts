@@ -0,0 +1,34 @@
+plugins {
+    id("org.springframework.boot")
+    id("io.spring.dependency-management")
+    java
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+val springdocVersion = "2.2.0"
+
+dependencies {
+    implementation(project(":src:common"))
+
+    implementation("org.springframework.boot:spring-boot-starter-webflux")
+    implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
+    implementation("org.springframework.boot:spring-boot-starter-data-redis-reactive")
+    implementation("org.springframework.boot:spring-boot-starter-validation")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+
+    runtimeOnly("org.postgresql:r2dbc-postgresql")
+    implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310:2.15.4")
+
+    implementation("org.springdoc:springdoc-openapi-starter-webflux-ui:$springdocVersion")
+    implementation("io.micrometer:micrometer-registry-prometheus")
+
+    compileOnly("org.projectlombok:lombok")
+    annotationProcessor("org.projectlombok:lombok")
+
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("io.projectreactor:reactor-test")
+}
@@ -0,0 +1,119 @@
+package com.taxidata.api.cache;
+
+import com.taxidata.common.events.CommittedRides;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Reactive counterpart of the servlet API's {@code PriceRangeInvalidator}, on the same Redis index
+ * ({@code api.cache.price-range-index}) and channel: cached range keys are recorded in a sorted set
+ * scored by their expiry, and the ones containing a committed price are deleted. When both variants
+ * run, each deletes the same keys, which is harmless. Matching loads still running are marked first,
+ * and evicted keys stay in the sorted set until they expire, for pages stored after the eviction.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactivePriceRangeInvalidator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactivePriceRangeInvalidator.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final ReactiveRideCache rideCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${api.cache.price-range-index:taxi:cache:price-ranges}")
+    private String indexKey;
+
+    @Value("${api.cache.rides-committed-channel:taxi:rides:committed}")
+    private String ridesCommittedChannel;
+
+    @Value("${api.cache.ttl:30m}")
+    private Duration ttl;
+
+    private Counter evicted;
+    private Counter kept;
+    private Disposable subscription;
+
+    @PostConstruct
+    public void init() {
+        this.evicted = invalidations("evicted");
+        this.kept = invalidations("kept");
+        this.subscription = listenerContainer.receive(ChannelTopic.of(ridesCommittedChannel))
+                .concatMap(message -> onMessage(message.getMessage())
+                        .onErrorResume(e -> {
+                            logger.warn("⚠ Price-range invalidation failed: {}", e.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscription.dispose();
+    }
+
+    /**
+     * Records a range key that is about to be cached. Registering again only extends its expiry.
+     */
+    public Mono<Void> register(String key) {
+        return redisTemplate.opsForZSet().add(indexKey, key, System.currentTimeMillis() + ttl.toMillis())
+                .then()
+                .onErrorResume(e -> {
+                    // Unindexed entries are still bounded by the TTL
+                    logger.warn("⚠ Could not index cache key {}: {}", key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    Mono<Void> onMessage(String message) {
+        double[] prices = CommittedRides.parse(message).prices();
+        if (prices.length == 0) {
+            return Mono.empty();
+        }
+        Arrays.sort(prices);
+        rideCache.invalidateLoading(key -> PriceRangeKeys.containsAny(key, prices));
+
+        Range.Bound<Double> now = Range.Bound.inclusive((double) System.currentTimeMillis());
+        return redisTemplate.opsForZSet().removeRangeByScore(indexKey, Range.leftUnbounded(now))
+                .thenMany(redisTemplate.opsForZSet().rangeByScore(indexKey, Range.rightUnbounded(now)))
+                .collectList()
+                .flatMap(keys -> Flux.fromIterable(keys)
+                        .filter(key -> PriceRangeKeys.containsAny(key, prices))
+                        .concatMap(key -> rideCache.evict(key).thenReturn(key))
+                        .count()
+                        .doOnNext(removed -> {
+                            evicted.increment(removed);
+                            kept.increment(keys.size() - removed);
+                            if (removed > 0) {
+                                logger.debug("Evicted {} of {} cached price ranges for {} committed rides",
+                                        removed, keys.size(), prices.length);
+                            }
+                        }))
+                .then();
+    }
+
+    private Counter invalidations(String result) {
+        return Counter.builder("taxi.cache.price_range.invalidations")
+                .description("Cached price ranges checked against committed prices")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
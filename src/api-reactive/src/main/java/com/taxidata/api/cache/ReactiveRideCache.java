@@ -0,0 +1,199 @@
+package com.taxidata.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking access to the {@code rides} cache in Redis, with the key layout of the servlet API's
+ * {@code RedisCache} ({@code rides::<key>}), so both variants share entries.
+ * <p>
+ * There is no local tier: a hit costs one Redis round trip, which does not hold a thread. Concurrent
+ * misses for the same key within this instance wait for one load. A Redis error is treated as a
+ * miss; the request is then served from the database. Like the servlet API's {@code TwoTierCache},
+ * a load whose key is invalidated while it runs is evicted right after it is stored.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReactiveRideCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRideCache.class);
+
+    public static final String CACHE_NAME = "rides";
+    private static final String KEY_PREFIX = CACHE_NAME + "::";
+
+    private final ReactiveRedisTemplate<String, Object> rideCacheTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${api.cache.ttl:30m}")
+    private Duration ttl;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> invalidatedLoads = ConcurrentHashMap.newKeySet();
+
+    private Timer hits;
+    private Timer misses;
+    private Timer errors;
+    private Counter coalesced;
+    private Counter loads;
+    private Counter discardedLoads;
+
+    @PostConstruct
+    public void init() {
+        this.hits = lookups("hit");
+        this.misses = lookups("miss");
+        this.errors = lookups("error");
+        this.coalesced = Counter.builder("taxi.cache.coalesced")
+                .description("Cache misses that waited for a load already running in this instance")
+                .register(meterRegistry);
+        this.loads = Counter.builder("taxi.cache.loads")
+                .description("Cache values loaded from the database")
+                .tag("trigger", "miss")
+                .register(meterRegistry);
+        this.discardedLoads = Counter.builder("taxi.cache.loads.discarded")
+                .description("Loaded values evicted right after they were stored, because their key was invalidated during the load")
+                .register(meterRegistry);
+    }
+
+    public <T> Mono<T> get(String key, Class<T> type, Supplier<Mono<T>> loader) {
+        return get(key, type, loader, value -> true);
+    }
+
+    /**
+     * @param cacheable whether a loaded value is written to Redis; empty results are never written
+     */
+    public <T> Mono<T> get(String key, Class<T> type, Supplier<Mono<T>> loader, Predicate<T> cacheable) {
+        return read(key, type).switchIfEmpty(Mono.defer(() -> load(key, type, loader, cacheable)));
+    }
+
+    /**
+     * Values of the keys, in order, with {@code null} for misses and unreadable entries. Fails as a
+     * whole when Redis is unavailable.
+     */
+    public Mono<List<Object>> getAll(List<String> keys) {
+        return rideCacheTemplate.opsForValue().multiGet(keys.stream().map(KEY_PREFIX::concat).toList());
+    }
+
+    /**
+     * Writes the values without waiting for each reply; Lettuce pipelines the commands on its connection.
+     */
+    public Mono<Void> putAll(List<String> keys, List<?> values) {
+        return Flux.range(0, keys.size())
+                .flatMap(i -> rideCacheTemplate.opsForValue().set(KEY_PREFIX + keys.get(i), values.get(i), ttl))
+                .then()
+                .onErrorResume(e -> {
+                    logger.warn("⚠ Could not backfill {} entries into Redis: {}", keys.size(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<Boolean> evict(String key) {
+        return rideCacheTemplate.delete(KEY_PREFIX + key).map(deleted -> deleted > 0);
+    }
+
+    /**
+     * Marks the loads of matching keys running in this instance, so their values are evicted once
+     * stored. Call it before evicting the stored entries, so that every load is caught by one or the other.
+     */
+    void invalidateLoading(Predicate<String> matches) {
+        for (String key : inFlight.keySet()) {
+            if (matches.test(key)) {
+                invalidatedLoads.add(key);
+            }
+        }
+    }
+
+    private <T> Mono<T> read(String key, Class<T> type) {
+        long start = System.nanoTime();
+        return rideCacheTemplate.opsForValue().get(KEY_PREFIX + key)
+                .filter(type::isInstance)
+                .map(type::cast)
+                .doOnNext(value -> hits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .switchIfEmpty(Mono.fromRunnable(() -> misses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS)))
+                .onErrorResume(e -> {
+                    errors.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    logger.warn("⚠ Redis GET {} failed, loading from database: {}", key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private <T> Mono<T> load(String key, Class<T> type, Supplier<Mono<T>> loader, Predicate<T> cacheable) {
+        CompletableFuture<Object> leader = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, leader);
+        if (running != null) {
+            coalesced.increment();
+            // The leader's request was cancelled: load again instead of failing this one
+            return Mono.fromFuture(running, true)
+                    .map(type::cast)
+                    .onErrorResume(CancellationException.class, e -> get(key, type, loader, cacheable));
+        }
+
+        loads.increment();
+        return Mono.defer(() -> {
+                    // A change invalidated before the loader runs is already visible to it
+                    invalidatedLoads.remove(key);
+                    return loader.get();
+                })
+                .flatMap(value -> cacheable.test(value)
+                        ? put(key, value).then(evictIfInvalidated(key)).thenReturn(value)
+                        : Mono.just(value))
+                .doOnSuccess(leader::complete)
+                .doOnError(leader::completeExceptionally)
+                .doFinally(signal -> {
+                    inFlight.remove(key, leader);
+                    // Invalidations from here on find the stored value and evict it themselves
+                    invalidatedLoads.remove(key);
+                    leader.cancel(false);
+                });
+    }
+
+    private Mono<Void> evictIfInvalidated(String key) {
+        return Mono.defer(() -> {
+            if (!invalidatedLoads.remove(key)) {
+                return Mono.empty();
+            }
+            discardedLoads.increment();
+            return evict(key)
+                    .onErrorResume(e -> {
+                        logger.warn("⚠ Could not evict {}, invalidated while it was loaded: {}", key, e.getMessage());
+                        return Mono.just(false);
+                    })
+                    .then();
+        });
+    }
+
+    private Mono<Boolean> put(String key, Object value) {
+        return rideCacheTemplate.opsForValue().set(KEY_PREFIX + key, value, ttl)
+                .onErrorResume(e -> {
+                    logger.warn("⚠ Could not cache {} in Redis: {}", key, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    private Timer lookups(String result) {
+        return Timer.builder("taxi.cache.gets")
+                .description("Cache lookups by tier and result")
+                .tag("tier", "l2")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,51 @@
+package com.taxidata.api.config;
+
+import com.taxidata.api.cache.RideCacheSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Reactive counterpart of the servlet API's {@code RedisConfig}: values are written with the same
+ * serializer, so both variants read each other's entries.
+ */
+@Configuration
+public class ReactiveRedisConfig {
+
+    @Value("${api.cache.serializer:binary}")
+    private String cacheSerializer;
+
+    @Value("${api.cache.compression-threshold:1KB}")
+    private DataSize compressionThreshold;
+
+    @Bean
+    public ReactiveRedisTemplate<String, Object> rideCacheTemplate(ReactiveRedisConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+                .<String, Object>newSerializationContext(RedisSerializer.string())
+                .value(cacheValueSerializer())
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, context);
+    }
+
+    @Bean
+    public ReactiveRedisMessageListenerContainer cacheInvalidationListenerContainer(
+            ReactiveRedisConnectionFactory connectionFactory) {
+        return new ReactiveRedisMessageListenerContainer(connectionFactory);
+    }
+
+    private RedisSerializer<Object> cacheValueSerializer() {
+        RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer();
+        if ("json".equalsIgnoreCase(cacheSerializer)) {
+            return json;
+        }
+        // Reads JSON entries too, so switching formats does not need a cache flush
+        return new RideCacheSerializer(json, (int) compressionThreshold.toBytes());
+    }
+}
@@ -0,0 +1,223 @@
+package com.taxidata.api.controller;
+
+import com.taxidata.api.dto.ContinuationToken;
+import com.taxidata.api.dto.CursorPageDTO;
+import com.taxidata.api.dto.PageDTO;
+import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.api.service.ReactiveRideService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same paths, parameters and responses as the servlet API's {@code TaxiRideController}, without the
+ * geo search and export endpoints.
+ */
+@RestController
+@RequestMapping("/api/v1/rides")
+@RequiredArgsConstructor
+@Tag(name = "Taxi Rides", description = "API for querying taxi ride data")
+@Validated
+public class ReactiveRideController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRideController.class);
+    private final ReactiveRideService rideService;
+
+    @GetMapping
+    @Operation(summary = "Get taxi rides filtered by price range and start date")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved rides"),
+            @ApiResponse(responseCode = "400", description = "Invalid price range or date range parameters"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Timed(value = "taxi.rides.search", description = "Time taken to search taxi rides")
+    public Mono<ResponseEntity<PageDTO<TaxiRideDTO>>> getRides(
+            @Parameter(description = "Minimum price")
+            @RequestParam(required = false)
+            @Min(value = 0, message = "Minimum price cannot be negative")
+            Double minPrice,
+
+            @Parameter(description = "Maximum price")
+            @RequestParam(required = false)
+            @Min(value = 0, message = "Maximum price cannot be negative")
+            Double maxPrice,
+
+            @Parameter(description = "Start date from (inclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+
+            @Parameter(description = "Start date to (exclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to,
+
+            Pageable pageable) {
+
+        logger.debug("Searching rides with price range: {} - {}, start date: {} - {}, page: {}",
+                minPrice, maxPrice, from, to, pageable.getPageNumber());
+
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return rideService.findByPriceRange(
+                        minPrice != null ? minPrice : 0.0,
+                        maxPrice != null ? maxPrice : Double.MAX_VALUE,
+                        from,
+                        to,
+                        pageable)
+                .map(rides -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES))
+                        .body(rides))
+                .onErrorResume(e -> {
+                    logger.error("Error retrieving rides", e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @GetMapping("/cursor")
+    @Operation(summary = "Get taxi rides filtered by price range, ordered by price, using a continuation token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved rides"),
+            @ApiResponse(responseCode = "400", description = "Invalid price range or continuation token"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Timed(value = "taxi.rides.search.cursor", description = "Time taken to search taxi rides by keyset")
+    public Mono<ResponseEntity<CursorPageDTO<TaxiRideDTO>>> getRidesByCursor(
+            @Parameter(description = "Minimum price")
+            @RequestParam(required = false)
+            @Min(value = 0, message = "Minimum price cannot be negative")
+            Double minPrice,
+
+            @Parameter(description = "Maximum price")
+            @RequestParam(required = false)
+            @Min(value = 0, message = "Maximum price cannot be negative")
+            Double maxPrice,
+
+            @Parameter(description = "Continuation token returned as nextToken by the previous page")
+            @RequestParam(required = false)
+            String after,
+
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be positive")
+            @Max(value = 100, message = "Size cannot exceed 100")
+            int size) {
+
+        logger.debug("Searching rides with price range: {} - {}, after: {}", minPrice, maxPrice, after);
+
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        ContinuationToken token;
+        try {
+            token = after != null ? ContinuationToken.decode(after) : null;
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected continuation token: {}", after);
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return rideService.findByPriceRangeAfter(
+                        minPrice != null ? minPrice : 0.0,
+                        maxPrice != null ? maxPrice : Double.MAX_VALUE,
+                        token,
+                        size)
+                .map(rides -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES))
+                        .body(rides))
+                .onErrorResume(e -> {
+                    logger.error("Error retrieving rides", e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "Get several taxi rides by ID in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rides found, in request order; unknown IDs are omitted"),
+            @ApiResponse(responseCode = "400", description = "No IDs, too many IDs or a non-positive ID"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Timed(value = "taxi.rides.get.batch", description = "Time taken to get taxi rides by ID in bulk")
+    public Mono<ResponseEntity<List<TaxiRideDTO>>> getRidesByIds(
+            @Parameter(description = "Ride IDs, comma separated or repeated")
+            @RequestParam
+            @NotEmpty(message = "At least one ID is required")
+            @Size(max = 100, message = "At most 100 IDs per request")
+            List<@Min(value = 1, message = "ID must be positive") Long> ids) {
+
+        logger.debug("Fetching {} rides by ID", ids.size());
+
+        return rideService.findByIds(ids)
+                .map(rides -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES))
+                        .body(rides))
+                .onErrorResume(e -> {
+                    logger.error("Error retrieving rides by ID", e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get taxi ride by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the ride"),
+            @ApiResponse(responseCode = "404", description = "Ride not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Timed(value = "taxi.rides.get", description = "Time taken to get a taxi ride by ID")
+    public Mono<ResponseEntity<TaxiRideDTO>> getRideById(
+            @Parameter(description = "Ride ID")
+            @PathVariable
+            @Min(value = 1, message = "ID must be positive")
+            Long id) {
+
+        logger.debug("Fetching ride with ID: {}", id);
+
+        return rideService.findById(id)
+                .map(ride -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES))
+                        .body(ride))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(e -> {
+                    logger.error("Error retrieving ride with ID: {}", id, e);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+
+    @GetMapping("/cache/status")
+    @Operation(summary = "Check Redis cache status")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cache status retrieved successfully"),
+            @ApiResponse(responseCode = "500", description = "Error checking cache status")
+    })
+    public Mono<ResponseEntity<String>> getCacheStatus() {
+        return rideService.isRedisAvailable()
+                .map(isCacheAvailable -> ResponseEntity.ok(isCacheAvailable ? "Cache is available" : "Cache is unavailable"));
+    }
+}
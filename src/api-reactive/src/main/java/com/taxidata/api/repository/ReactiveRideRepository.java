@@ -0,0 +1,173 @@
+package com.taxidata.api.repository;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.api.model.Location;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * R2DBC version of the read queries of the servlet API's {@code TaxiRideRepository}: the same
+ * predicates and ordering, written as SQL against {@code taxi_rides}, mapped straight to
+ * {@link TaxiRideDTO}s.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveRideRepository {
+
+    private static final String RIDE_ROW = "SELECT id, latitude, longitude, place, end_latitude, end_longitude, end_place, " +
+            "important_places::text AS important_places, start_date, end_date, price, distance_km, version FROM taxi_rides ";
+
+    private static final String PRICE_RANGE = "WHERE price >= :minPrice AND price <= :maxPrice";
+
+    private static final String PRICE_RANGE_AND_START_DATE = PRICE_RANGE + " AND start_date >= :from AND start_date < :to";
+
+    // Sortable TaxiRide properties; anything else is rejected like an unknown JPA property
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "price", "price",
+            "startDate", "start_date",
+            "endDate", "end_date",
+            "distanceKm", "distance_km");
+
+    // The jsonb column is written by the processor's own mapper, without type information
+    private static final ObjectReader PLACES_READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .readerForListOf(Location.class);
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Page<TaxiRideDTO>> findRowsByPriceRange(double minPrice, double maxPrice, Pageable pageable) {
+        return page(PRICE_RANGE, Map.of("minPrice", minPrice, "maxPrice", maxPrice), pageable);
+    }
+
+    /**
+     * Price range within a start-date window, as a plain {@code >= / <} pair so PostgreSQL can prune
+     * the monthly partitions of taxi_rides.
+     */
+    public Mono<Page<TaxiRideDTO>> findRowsByPriceRangeAndStartDate(double minPrice, double maxPrice,
+                                                                    LocalDateTime from, LocalDateTime to,
+                                                                    Pageable pageable) {
+        return page(PRICE_RANGE_AND_START_DATE,
+                Map.of("minPrice", minPrice, "maxPrice", maxPrice, "from", from, "to", to), pageable);
+    }
+
+    public Mono<List<TaxiRideDTO>> findRowsByIds(Collection<Long> ids) {
+        return databaseClient.sql(RIDE_ROW + "WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(ReactiveRideRepository::toRide)
+                .all()
+                .collectList();
+    }
+
+    /**
+     * First page of a keyset search, ordered by (price, id).
+     */
+    public Mono<List<TaxiRideDTO>> findFirstByPriceRange(double minPrice, double maxPrice, int limit) {
+        return databaseClient.sql(RIDE_ROW + PRICE_RANGE + " ORDER BY price, id LIMIT :limit")
+                .bind("minPrice", minPrice)
+                .bind("maxPrice", maxPrice)
+                .bind("limit", limit)
+                .map(ReactiveRideRepository::toRide)
+                .all()
+                .collectList();
+    }
+
+    /**
+     * Rides strictly after (afterPrice, afterId) in (price, id) order, served by idx_taxi_rides_price_id.
+     */
+    public Mono<List<TaxiRideDTO>> findByPriceRangeAfter(double afterPrice, long afterId, double maxPrice, int limit) {
+        return databaseClient.sql(RIDE_ROW + "WHERE price >= :afterPrice AND price <= :maxPrice AND " +
+                        "(price > :afterPrice OR id > :afterId) ORDER BY price, id LIMIT :limit")
+                .bind("afterPrice", afterPrice)
+                .bind("afterId", afterId)
+                .bind("maxPrice", maxPrice)
+                .bind("limit", limit)
+                .map(ReactiveRideRepository::toRide)
+                .all()
+                .collectList();
+    }
+
+    /**
+     * Offset page with the same count rules as Spring Data JPA: the count query is skipped when the
+     * page itself shows where the results end.
+     */
+    private Mono<Page<TaxiRideDTO>> page(String where, Map<String, Object> parameters, Pageable pageable) {
+        String sql = RIDE_ROW + where + orderBy(pageable.getSort()) +
+                (pageable.isPaged() ? " LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset() : "");
+        DatabaseClient.GenericExecuteSpec query = databaseClient.sql(sql).bindValues(parameters);
+        return query.map(ReactiveRideRepository::toRide).all().collectList().flatMap(content -> {
+            if (pageable.isUnpaged() || (!content.isEmpty() && content.size() < pageable.getPageSize())
+                    || (content.isEmpty() && pageable.getOffset() == 0)) {
+                long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+                return Mono.just(new PageImpl<>(content, pageable, offset + content.size()));
+            }
+            return databaseClient.sql("SELECT count(*) FROM taxi_rides " + where)
+                    .bindValues(parameters)
+                    .map(row -> row.get(0, Long.class))
+                    .one()
+                    .map(total -> new PageImpl<>(content, pageable, total));
+        });
+    }
+
+    private static String orderBy(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "";
+        }
+        return sort.stream()
+                .map(order -> {
+                    String column = SORT_COLUMNS.get(order.getProperty());
+                    if (column == null) {
+                        throw new IllegalArgumentException("No sortable property " + order.getProperty());
+                    }
+                    return column + (order.isAscending() ? " ASC" : " DESC");
+                })
+                .collect(Collectors.joining(", ", " ORDER BY ", ""));
+    }
+
+    static TaxiRideDTO toRide(Readable row) {
+        return new TaxiRideDTO(
+                row.get("id", Long.class),
+                location(row.get("latitude", Double.class), row.get("longitude", Double.class), row.get("place", String.class)),
+                location(row.get("end_latitude", Double.class), row.get("end_longitude", Double.class), row.get("end_place", String.class)),
+                places(row.get("important_places", String.class)),
+                row.get("start_date", LocalDateTime.class),
+                row.get("end_date", LocalDateTime.class),
+                row.get("price", Double.class),
+                row.get("distance_km", Double.class),
+                row.get("version", Long.class));
+    }
+
+    // Hibernate maps an embeddable whose columns are all null to null
+    private static Location location(Double latitude, Double longitude, String place) {
+        return latitude == null && longitude == null && place == null ? null : new Location(latitude, longitude, place);
+    }
+
+    private static List<Location> places(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return PLACES_READER.readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable important_places: " + json, e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.taxidata.api.service;
+
+import com.taxidata.api.cache.PriceRangeKeys;
+import com.taxidata.api.cache.ReactivePriceRangeInvalidator;
+import com.taxidata.api.cache.ReactiveRideCache;
+import com.taxidata.api.dto.ContinuationToken;
+import com.taxidata.api.dto.CursorPageDTO;
+import com.taxidata.api.dto.PageDTO;
+import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.api.repository.ReactiveRideRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Non-blocking version of the servlet API's {@code TaxiRideService} for the ride queries. Cache keys,
+ * what is cached and the response DTOs are the same; geo search and export are only served by the
+ * servlet API.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveRideService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRideService.class);
+
+    // Stand-ins for an open end of a start-date window; the query only takes closed windows
+    private static final LocalDateTime EARLIEST_START = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_START = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    private final ReactiveRideRepository repository;
+    private final ReactiveRideCache rideCache;
+    private final ReactivePriceRangeInvalidator priceRangeInvalidator;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private DistributionSummary batchFromRedis;
+    private DistributionSummary batchFromDatabase;
+    private DistributionSummary batchMissing;
+
+    @PostConstruct
+    public void init() {
+        this.batchFromRedis = batchLookups("redis");
+        this.batchFromDatabase = batchLookups("database");
+        this.batchMissing = batchLookups("missing");
+    }
+
+    /**
+     * Empty pages are cached as well; the price-range index evicts them once a ride lands in the range.
+     */
+    @SuppressWarnings("unchecked")
+    public Mono<PageDTO<TaxiRideDTO>> findByPriceRange(Double minPrice, Double maxPrice, LocalDateTime from,
+                                                       LocalDateTime to, Pageable pageable) {
+        String key = PriceRangeKeys.key(minPrice, maxPrice, from, to, pageable);
+        return rideCache.get(key, PageDTO.class, () -> priceRangeInvalidator.register(key).then(Mono.defer(() -> {
+            logger.debug("Fetching rides from database for price range: {} - {}, start date: {} - {}, page: {}",
+                    minPrice, maxPrice, from, to, pageable.getPageNumber());
+            return (from == null && to == null
+                    ? repository.findRowsByPriceRange(minPrice, maxPrice, pageable)
+                    : repository.findRowsByPriceRangeAndStartDate(minPrice, maxPrice,
+                            from != null ? from : EARLIEST_START, to != null ? to : LATEST_START, pageable))
+                    .map(page -> PageDTO.fromPage(page, Function.identity()));
+        }))).map(page -> (PageDTO<TaxiRideDTO>) page);
+    }
+
+    /**
+     * Keyset variant of {@link #findByPriceRange}. Only non-empty first pages are cached.
+     */
+    @SuppressWarnings("unchecked")
+    public Mono<CursorPageDTO<TaxiRideDTO>> findByPriceRangeAfter(Double minPrice, Double maxPrice,
+                                                                 ContinuationToken after, int size) {
+        if (after != null) {
+            return loadAfter(minPrice, maxPrice, after, size);
+        }
+        String key = PriceRangeKeys.cursorKey(minPrice, maxPrice, size);
+        return rideCache.get(key, CursorPageDTO.class,
+                        () -> priceRangeInvalidator.register(key).then(Mono.defer(() -> loadAfter(minPrice, maxPrice, null, size))),
+                        page -> !page.getContent().isEmpty())
+                .map(page -> (CursorPageDTO<TaxiRideDTO>) page);
+    }
+
+    private Mono<CursorPageDTO> loadAfter(Double minPrice, Double maxPrice, ContinuationToken after, int size) {
+        logger.debug("Fetching rides from database for price range: {} - {}, after: {}", minPrice, maxPrice, after);
+        // One extra row tells whether there is a next page
+        Mono<List<TaxiRideDTO>> rows = after == null || after.getPrice() < minPrice
+                ? repository.findFirstByPriceRange(minPrice, maxPrice, size + 1)
+                : repository.findByPriceRangeAfter(after.getPrice(), after.getId(), maxPrice, size + 1);
+        return rows.map(page -> CursorPageDTO.fromRows(page, size, Function.identity(),
+                ride -> new ContinuationToken(ride.getPrice(), ride.getId()).encode()));
+    }
+
+    public Mono<TaxiRideDTO> findById(Long id) {
+        return rideCache.get(rideKey(id), TaxiRideDTO.class, () -> {
+            logger.debug("Fetching ride from database with ID: {}", id);
+            return repository.findRowsByIds(List.of(id)).flatMap(rows -> Mono.justOrEmpty(rows.stream().findFirst()));
+        });
+    }
+
+    /**
+     * Resolves many rides at once: one MGET, then one {@code IN} query for the misses, whose results
+     * are written back to Redis. Rides are returned in request order; unknown ids are skipped.
+     */
+    public Mono<List<TaxiRideDTO>> findByIds(List<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<Long, TaxiRideDTO> found = new HashMap<>(distinct.size() * 2);
+
+        return rideCache.getAll(distinct.stream().map(ReactiveRideService::rideKey).toList())
+                .onErrorResume(e -> {
+                    logger.warn("⚠ Redis MGET failed, loading {} rides from database: {}", distinct.size(), e.getMessage());
+                    return Mono.just(List.of());
+                })
+                .flatMap(values -> {
+                    List<Long> misses = new ArrayList<>();
+                    for (int i = 0; i < distinct.size(); i++) {
+                        Object value = i < values.size() ? values.get(i) : null;
+                        if (value instanceof TaxiRideDTO ride) {
+                            found.put(distinct.get(i), ride);
+                        } else {
+                            misses.add(distinct.get(i));
+                        }
+                    }
+                    int fromRedis = found.size();
+                    if (misses.isEmpty()) {
+                        return Mono.just(fromRedis);
+                    }
+                    logger.debug("Fetching {} rides from database by ID", misses.size());
+                    return repository.findRowsByIds(misses)
+                            .flatMap(loaded -> {
+                                loaded.forEach(ride -> found.put(ride.getId(), ride));
+                                return rideCache.putAll(loaded.stream().map(ride -> rideKey(ride.getId())).toList(), loaded);
+                            })
+                            .thenReturn(fromRedis);
+                })
+                .map(fromRedis -> {
+                    batchFromRedis.record(fromRedis);
+                    batchFromDatabase.record(found.size() - fromRedis);
+                    batchMissing.record(distinct.size() - found.size());
+
+                    List<TaxiRideDTO> rides = new ArrayList<>(found.size());
+                    for (Long id : distinct) {
+                        TaxiRideDTO ride = found.get(id);
+                        if (ride != null) {
+                            rides.add(ride);
+                        }
+                    }
+                    return rides;
+                });
+    }
+
+    // Same keys as the servlet API's @Cacheable findById
+    private static String rideKey(Long id) {
+        return "ride:" + id;
+    }
+
+    private DistributionSummary batchLookups(String source) {
+        return DistributionSummary.builder("taxi.rides.batch.lookups")
+                .description("Rides per batch lookup, by where they were found")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    public Mono<Boolean> isRedisAvailable() {
+        String key = "health:check";
+        return redisTemplate.opsForValue().set(key, "ok", Duration.ofSeconds(1))
+                .then(redisTemplate.opsForValue().get(key))
+                .map("ok"::equals)
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> {
+                    logger.error("Redis health check failed: {}", e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+}
@@ -0,0 +1,140 @@
+package com.taxidata.api.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveRideCacheTest {
+
+    @Mock
+    private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, Object> valueOperations;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ReactiveRideCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        cache = new ReactiveRideCache(redisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(30));
+        cache.init();
+    }
+
+    @Test
+    void testHitDoesNotRunTheLoader() {
+        when(valueOperations.get("rides::ride:1")).thenReturn(Mono.just("cached"));
+
+        StepVerifier.create(cache.get("ride:1", String.class, () -> Mono.error(new AssertionError("loaded"))))
+                .expectNext("cached")
+                .verifyComplete();
+        assertEquals(1, lookups("hit"));
+    }
+
+    @Test
+    void testMissIsLoadedAndWrittenWithTheKeyPrefix() {
+        when(valueOperations.get("rides::ride:1")).thenReturn(Mono.empty());
+        when(valueOperations.set(eq("rides::ride:1"), eq("loaded"), any(Duration.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(cache.get("ride:1", String.class, () -> Mono.just("loaded")))
+                .expectNext("loaded")
+                .verifyComplete();
+        assertEquals(1, lookups("miss"));
+    }
+
+    @Test
+    void testConcurrentMissesRunOneLoader() {
+        when(valueOperations.get("rides::ride:1")).thenReturn(Mono.empty());
+        when(valueOperations.set(anyString(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<String> result = Sinks.one();
+
+        Mono<String> first = cache.get("ride:1", String.class, () -> {
+            loads.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<String> second = cache.get("ride:1", String.class, () -> {
+            loads.incrementAndGet();
+            return Mono.just("second");
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> result.tryEmitValue("loaded"))
+                .assertNext(both -> {
+                    assertEquals("loaded", both.getT1());
+                    assertEquals("loaded", both.getT2());
+                })
+                .verifyComplete();
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("taxi.cache.coalesced").counter().count());
+    }
+
+    @Test
+    void testLoadInvalidatedWhileRunningIsEvictedAfterItIsStored() {
+        String key = "price_range:10.0_20.0:p0:s20:unsorted";
+        when(valueOperations.get("rides::" + key)).thenReturn(Mono.empty());
+        when(valueOperations.set(eq("rides::" + key), eq("old page"), any(Duration.class))).thenReturn(Mono.just(true));
+        when(redisTemplate.delete("rides::" + key)).thenReturn(Mono.just(1L));
+        Sinks.One<String> result = Sinks.one();
+
+        StepVerifier.create(cache.get(key, String.class, result::asMono))
+                // The commit lands after the page was read and before it is stored
+                .then(() -> cache.invalidateLoading(range -> range.startsWith("price_range:10.0_20.0")))
+                .then(() -> result.tryEmitValue("old page"))
+                .expectNext("old page")
+                .verifyComplete();
+
+        verify(redisTemplate).delete("rides::" + key);
+        assertEquals(1, meterRegistry.get("taxi.cache.loads.discarded").counter().count());
+    }
+
+    @Test
+    void testRedisErrorFallsBackToTheLoader() {
+        when(valueOperations.get("rides::ride:1")).thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+        when(valueOperations.set(anyString(), any(), any(Duration.class)))
+                .thenReturn(Mono.error(new RedisConnectionFailureException("down")));
+
+        StepVerifier.create(cache.get("ride:1", String.class, () -> Mono.just("loaded")))
+                .expectNext("loaded")
+                .verifyComplete();
+        assertEquals(1, lookups("error"));
+    }
+
+    @Test
+    void testRejectedValuesAreReturnedButNotStored() {
+        when(valueOperations.get("rides::ride:1")).thenReturn(Mono.empty());
+
+        StepVerifier.create(cache.get("ride:1", String.class, () -> Mono.just(""), value -> !value.isEmpty()))
+                .expectNext("")
+                .verifyComplete();
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+    }
+
+    private long lookups(String result) {
+        return meterRegistry.get("taxi.cache.gets").tag("tier", "l2").tag("result", result).timer().count();
+    }
+}
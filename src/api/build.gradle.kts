@@ -12,11 +12,14 @@ java {
 val springdocVersion = "2.2.0"
 
 dependencies {
+    implementation(project(":src:common"))
+
     implementation("org.springframework.boot:spring-boot-starter")
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-cache")
     implementation("org.springframework.boot:spring-boot-starter-data-redis")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
 
     runtimeOnly("org.postgresql:postgresql")
@@ -29,9 +32,14 @@ dependencies {
     annotationProcessor("org.projectlombok:lombok")
 
     testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("org.springframework.boot:spring-boot-testcontainers")
+    testImplementation("org.testcontainers:junit-jupiter")
     testImplementation("org.testcontainers:postgresql")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    // ./gradlew :src:api:test -Dbenchmark=true runs the geo search benchmark
+    systemProperty("benchmark", System.getProperty("benchmark") ?: "false")
+    System.getProperty("benchmark.rides")?.let { systemProperty("benchmark.rides", it) }
 }
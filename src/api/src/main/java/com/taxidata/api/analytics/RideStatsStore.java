@@ -0,0 +1,236 @@
+package com.taxidata.api.analytics;
+
+import com.taxidata.api.dto.RideStatsDTO;
+import com.taxidata.common.analytics.QuantileSketch;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory copy of the recent rows of {@code ride_hourly_stats}, which the processor keeps merging
+ * committed rides into. Analytics requests are answered by merging the hourly sketches in memory and
+ * never touch the database.
+ * <p>
+ * The first refresh loads the whole {@code api.analytics.window}; later ones only read rows updated
+ * since the previous refresh. {@code updated_at} is the time the processor's flush transaction started,
+ * so a flush that commits after a refresh can carry an older timestamp; re-reading the last
+ * {@code refresh-overlap} catches those. Results therefore lag ingest by up to the processor's flush
+ * interval plus the refresh interval.
+ */
+@Component
+@RequiredArgsConstructor
+public class RideStatsStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideStatsStore.class);
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${api.analytics.window:30d}")
+    private Duration window;
+
+    @Value("${api.analytics.refresh-overlap:5m}")
+    private Duration refreshOverlap;
+
+    private final Map<String, NavigableMap<LocalDateTime, HourlyStats>> places = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastUpdate;
+
+    private Timer refreshTimer;
+
+    /**
+     * One stored row. Replaced, never modified, so readers need no locking.
+     */
+    private record HourlyStats(long rides, long durationMinutesSum, long durationCount,
+                               QuantileSketch prices, QuantileSketch distances) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.refreshTimer = Timer.builder("taxi.analytics.refresh")
+                .description("Time taken to load updated hourly ride statistics")
+                .register(meterRegistry);
+        meterRegistry.gauge("taxi.analytics.hours", places,
+                map -> map.values().stream().mapToInt(Map::size).sum());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${api.analytics.refresh-interval-ms:30000}",
+            initialDelayString = "${api.analytics.refresh-interval-ms:30000}")
+    public synchronized void refresh() {
+        LocalDateTime oldest = LocalDateTime.now().minus(window).truncatedTo(ChronoUnit.HOURS);
+        Timestamp since = lastUpdate != null ? Timestamp.valueOf(lastUpdate.minus(refreshOverlap)) : new Timestamp(0);
+        try {
+            int rows = refreshTimer.recordCallable(() -> load(oldest, since));
+            evictBefore(oldest);
+            logger.debug("↻ Loaded {} hourly ride statistics", rows);
+        } catch (DataAccessException e) {
+            // The processor creates the table; until then there is nothing to serve
+            logger.warn("⚠ Could not load hourly ride statistics: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("✘ Failed to load hourly ride statistics", e);
+        }
+    }
+
+    public Collection<String> places() {
+        return new TreeSet<>(places.keySet());
+    }
+
+    /**
+     * Statistics of {@code place} (or all places when null) over {@code [from, to)}; hours older than the
+     * window are not kept. Empty when the place has no rides in memory.
+     */
+    public Optional<RideStatsDTO> summary(String place, LocalDateTime from, LocalDateTime to) {
+        Aggregate aggregate = new Aggregate();
+        for (NavigableMap<LocalDateTime, HourlyStats> hours : hoursOf(place)) {
+            range(hours, from, to).values().forEach(aggregate::add);
+        }
+        if (aggregate.rides == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(aggregate.toDto(place, from, to));
+    }
+
+    /**
+     * Hour-by-hour statistics of {@code place} (or all places when null) over {@code [from, to)}, in hour order.
+     */
+    public List<RideStatsDTO> hourly(String place, LocalDateTime from, LocalDateTime to) {
+        NavigableMap<LocalDateTime, Aggregate> byHour = new TreeMap<>();
+        for (NavigableMap<LocalDateTime, HourlyStats> hours : hoursOf(place)) {
+            range(hours, from, to).forEach((hour, stats) ->
+                    byHour.computeIfAbsent(hour, h -> new Aggregate()).add(stats));
+        }
+        List<RideStatsDTO> result = new ArrayList<>(byHour.size());
+        byHour.forEach((hour, aggregate) -> result.add(aggregate.toDto(place, hour, hour.plusHours(1))));
+        return result;
+    }
+
+    private int load(LocalDateTime oldest, Timestamp since) {
+        int[] rows = {0};
+        LocalDateTime[] newest = {lastUpdate};
+        jdbcTemplate.query("SELECT place, hour, rides, duration_minutes_sum, duration_count, price_sketch, " +
+                        "distance_sketch, updated_at FROM ride_hourly_stats WHERE hour >= ? AND updated_at > ?",
+                rs -> {
+                    HourlyStats stats = new HourlyStats(rs.getLong("rides"), rs.getLong("duration_minutes_sum"),
+                            rs.getLong("duration_count"), sketch(rs.getBytes("price_sketch")),
+                            sketch(rs.getBytes("distance_sketch")));
+                    places.computeIfAbsent(rs.getString("place"), p -> new ConcurrentSkipListMap<>())
+                            .put(rs.getTimestamp("hour").toLocalDateTime(), stats);
+                    LocalDateTime updatedAt = rs.getTimestamp("updated_at").toLocalDateTime();
+                    if (newest[0] == null || updatedAt.isAfter(newest[0])) {
+                        newest[0] = updatedAt;
+                    }
+                    rows[0]++;
+                }, Timestamp.valueOf(oldest), since);
+        lastUpdate = newest[0];
+        return rows[0];
+    }
+
+    private void evictBefore(LocalDateTime oldest) {
+        places.values().forEach(hours -> hours.headMap(oldest).clear());
+        places.values().removeIf(Map::isEmpty);
+    }
+
+    private Collection<NavigableMap<LocalDateTime, HourlyStats>> hoursOf(String place) {
+        if (place == null) {
+            return places.values();
+        }
+        NavigableMap<LocalDateTime, HourlyStats> hours = places.get(place);
+        return hours != null ? List.of(hours) : List.of();
+    }
+
+    private static NavigableMap<LocalDateTime, HourlyStats> range(NavigableMap<LocalDateTime, HourlyStats> hours,
+                                                                   LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null) {
+            return hours.subMap(from, true, to, false);
+        }
+        if (from != null) {
+            return hours.tailMap(from, true);
+        }
+        return to != null ? hours.headMap(to, false) : hours;
+    }
+
+    private static QuantileSketch sketch(byte[] bytes) {
+        return bytes != null ? QuantileSketch.fromBytes(bytes) : null;
+    }
+
+    private static RideStatsDTO.Distribution distribution(QuantileSketch sketch) {
+        if (sketch == null || sketch.count() == 0) {
+            return null;
+        }
+        return new RideStatsDTO.Distribution(sketch.count(), sketch.min(), sketch.quantile(QUANTILES[0]),
+                sketch.quantile(QUANTILES[1]), sketch.quantile(QUANTILES[2]), sketch.max());
+    }
+
+    /**
+     * Merge of several stored hours; the stored sketches are copied, not modified.
+     */
+    private static class Aggregate {
+        long rides;
+        long durationMinutesSum;
+        long durationCount;
+        QuantileSketch prices;
+        QuantileSketch distances;
+
+        void add(HourlyStats stats) {
+            rides += stats.rides();
+            durationMinutesSum += stats.durationMinutesSum();
+            durationCount += stats.durationCount();
+            prices = merge(prices, stats.prices());
+            distances = merge(distances, stats.distances());
+        }
+
+        private static QuantileSketch merge(QuantileSketch into, QuantileSketch from) {
+            if (from == null) {
+                return into;
+            }
+            if (into == null) {
+                into = new QuantileSketch(from.relativeAccuracy());
+            }
+            into.merge(from);
+            return into;
+        }
+
+        RideStatsDTO toDto(String place, LocalDateTime from, LocalDateTime to) {
+            return RideStatsDTO.builder()
+                    .place(place)
+                    .from(from)
+                    .to(to)
+                    .rides(rides)
+                    .averageDurationMinutes(durationCount > 0 ? (double) durationMinutesSum / durationCount : null)
+                    .price(distribution(prices))
+                    .distanceKm(distribution(distances))
+                    .build();
+        }
+    }
+}
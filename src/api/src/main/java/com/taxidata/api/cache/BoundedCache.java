@@ -0,0 +1,149 @@
+package com.taxidata.api.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the calls in flight to the wrapped Redis cache. With virtual threads the number of request
+ * threads no longer bounds them, and every call queues on the one shared Lettuce connection.
+ * <p>
+ * A read or write that gets no permit within {@code maxWait} is dropped: the read counts as a miss
+ * (the database pool is the next limit), the write is skipped. Evictions always wait for a permit,
+ * since skipping one would leave a stale entry behind.
+ */
+public class BoundedCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(BoundedCache.class);
+
+    private final Cache delegate;
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final Counter rejectedReads;
+    private final Counter rejectedWrites;
+
+    public BoundedCache(Cache delegate, int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rejectedReads = rejected("get", meterRegistry);
+        this.rejectedWrites = rejected("put", meterRegistry);
+        Gauge.builder("taxi.cache.l2.inflight", permits, semaphore -> maxConcurrent - semaphore.availablePermits())
+                .description("Calls in flight to the Redis cache tier")
+                .tag("cache", delegate.getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return tryCall(() -> delegate.get(key), rejectedReads, key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return tryCall(() -> delegate.get(key, type), rejectedReads, key);
+    }
+
+    /**
+     * Not bounded: the loader may run for as long as the database takes.
+     */
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return delegate.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        tryCall(() -> {
+            delegate.put(key, value);
+            return null;
+        }, rejectedWrites, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return tryCall(() -> delegate.putIfAbsent(key, value), rejectedWrites, key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        call(() -> {
+            delegate.evict(key);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return call(() -> delegate.evictIfPresent(key));
+    }
+
+    @Override
+    public void clear() {
+        call(() -> {
+            delegate.clear();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean invalidate() {
+        return call(delegate::invalidate);
+    }
+
+    private <T> T tryCall(Supplier<T> operation, Counter rejected, Object key) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            logger.debug("↷ Redis cache {} saturated, skipping call for {}", delegate.getName(), key);
+            return null;
+        }
+        try {
+            return operation.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private <T> T call(Supplier<T> operation) {
+        permits.acquireUninterruptibly();
+        try {
+            return operation.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private Counter rejected(String operation, MeterRegistry meterRegistry) {
+        return Counter.builder("taxi.cache.l2.rejected")
+                .description("Redis cache calls dropped because no permit was free within the wait limit")
+                .tag("cache", delegate.getName())
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,137 @@
+package com.taxidata.api.cache;
+
+import com.taxidata.api.index.RidePriceIndex;
+import com.taxidata.api.service.TaxiRideService;
+import com.taxidata.common.events.CommittedRides;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Evicts cached price-range results when the processor commits rides inside their bounds.
+ * <p>
+ * Every cached range key is recorded in a Redis sorted set, scored by its expiry, so that all
+ * replicas see the same index. The processor publishes {@code id:price} pairs of each committed
+ * batch; each replica drops the matching keys from Redis and from its own L1. Ranges that contain
+ * none of the prices stay cached.
+ * <p>
+ * A page can be read before a commit and stored after its eviction. Matching loads still running in
+ * this replica are therefore marked first (see {@link TwoTierCache#invalidateLoading}), and evicted keys
+ * stay in the sorted set until they expire, so that a page another replica stores late is found by its
+ * own invalidator even when a faster replica already handled the message. The rides are added to the {@link RidePriceIndex} before the
+ * eviction, so that recomputed pages include them, and recorded in {@link RideETags} after it.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceRangeInvalidator implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceRangeInvalidator.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final RideETags rideETags;
+    private final RidePriceIndex ridePriceIndex;
+
+    @Value("${api.cache.price-range-index:taxi:cache:price-ranges}")
+    private String indexKey;
+
+    @Value("${api.cache.ttl:30m}")
+    private Duration ttl;
+
+    private Counter evicted;
+    private Counter kept;
+
+    @PostConstruct
+    public void init() {
+        this.evicted = invalidations("evicted");
+        this.kept = invalidations("kept");
+    }
+
+    /**
+     * Records a range key that is about to be cached. Registering again only extends its expiry.
+     */
+    public void register(String key) {
+        try {
+            redisTemplate.opsForZSet().add(indexKey, key, System.currentTimeMillis() + ttl.toMillis());
+        } catch (Exception e) {
+            // Unindexed entries are still bounded by the TTL
+            logger.warn("⚠ Could not index cache key {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CommittedRides committed = CommittedRides.parse(new String(message.getBody(), StandardCharsets.UTF_8));
+        // Also for a message without rides, which still carries a sequence number
+        ridePriceIndex.add(committed);
+        if (committed.ids().length == 0) {
+            return;
+        }
+
+        double[] prices = committed.prices().clone();
+        Arrays.sort(prices);
+        try {
+            evictRangesContaining(prices);
+        } finally {
+            // After the eviction, so that a tag taken from the new counters never labels an evicted page
+            rideETags.recordCommitted(committed.ids(), committed.prices());
+        }
+    }
+
+    private void evictRangesContaining(double[] prices) {
+        Cache cache = cacheManager.getCache(TaxiRideService.CACHE_NAME);
+        // Before the scan: a load that ends after it is caught by the mark, one that ends before by the eviction
+        if (cache instanceof TwoTierCache twoTier) {
+            twoTier.invalidateLoading(key -> key instanceof String range && PriceRangeKeys.containsAny(range, prices));
+        }
+
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().removeRangeByScore(indexKey, Double.NEGATIVE_INFINITY, now);
+        Set<String> keys = redisTemplate.opsForZSet().rangeByScore(indexKey, now, Double.POSITIVE_INFINITY);
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+
+        int removed = 0;
+        for (String key : keys) {
+            if (!PriceRangeKeys.containsAny(key, prices)) {
+                continue;
+            }
+            // Every replica receives the price message, so no further L1 broadcast is needed
+            if (cache instanceof TwoTierCache twoTier) {
+                twoTier.evictWithoutPublishing(key);
+            } else if (cache != null) {
+                cache.evict(key);
+            }
+            removed++;
+        }
+        evicted.increment(removed);
+        kept.increment(keys.size() - removed);
+        if (removed > 0) {
+            logger.debug("Evicted {} of {} cached price ranges for {} committed rides", removed, keys.size(), prices.length);
+        }
+    }
+
+    private Counter invalidations(String result) {
+        return Counter.builder("taxi.cache.price_range.invalidations")
+                .description("Cached price ranges checked against committed prices")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
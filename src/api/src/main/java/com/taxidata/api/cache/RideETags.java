@@ -0,0 +1,298 @@
+package com.taxidata.api.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+
+/**
+ * Strong validators for ride responses that can be checked without touching the database.
+ * <p>
+ * A single ride is tagged with its entity version, and a tag is only honoured against the version
+ * this replica has cached for the ID. A price-range page is tagged with the number of rides and the
+ * highest ride ID of the price buckets it spans, together with a digest of the request (bounds, paging,
+ * sort, date window, count mode or cursor). The count is what changes with every commit: IDs are not
+ * committed in order, since pooled sequence blocks and several writers let ride 60 commit before ride 5.
+ * The highest ID keeps a recount that lost as many retained rides as were committed from repeating an
+ * old tag. Both are loaded from {@code taxi_rides} and then updated for every ride
+ * {@link PriceRangeInvalidator} reports, after it has evicted the affected cache entries, so every
+ * replica arrives at the same values. Until the first load succeeds, pages carry no tag.
+ * <p>
+ * Rides announced while a load runs are counted unless the load's snapshot already holds them, so they
+ * are neither missed nor counted twice. A lost commit message leaves this replica short until the next
+ * periodic reload, which also picks up retention drops; the TTL window below bounds both.
+ * <p>
+ * Both kinds of tag also carry the current cache TTL window, so a tag is trusted for no longer than a
+ * cached page would be.
+ */
+@Component
+public class RideETags {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideETags.class);
+
+    private final int buckets;
+    private final double bucketWidth;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshot;
+
+    private final Lock loads = new ReentrantLock();
+    private final Lock writes = new ReentrantLock();
+    /** Null until the first load succeeds */
+    private volatile Buckets counts;
+    /** Commits announced while a load runs; guarded by {@link #writes} */
+    private List<Announced> announced;
+
+    @Autowired
+    public RideETags(@Value("${api.etag.bucket-width:1.0}") double bucketWidth,
+                     @Value("${api.etag.buckets:1024}") int buckets,
+                     @Value("${api.cache.ttl:30m}") Duration ttl,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager) {
+        this(bucketWidth, buckets, ttl, System::currentTimeMillis, jdbcTemplate, transactionManager);
+    }
+
+    RideETags(double bucketWidth, int buckets, Duration ttl, LongSupplier clock, JdbcTemplate jdbcTemplate,
+              PlatformTransactionManager transactionManager) {
+        if (bucketWidth <= 0 || buckets < 1) {
+            throw new IllegalArgumentException("Bucket width and count must be positive");
+        }
+        this.buckets = buckets;
+        this.bucketWidth = bucketWidth;
+        this.windowMillis = Math.max(1, ttl.toMillis());
+        this.clock = clock;
+        this.jdbcTemplate = jdbcTemplate;
+        // Every query of a load reads the same snapshot
+        this.snapshot = new TransactionTemplate(transactionManager);
+        this.snapshot.setReadOnly(true);
+        this.snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Counts the stored rides of every bucket and replaces the current counts with them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        // A load still running when the next one is due is left to finish
+        if (!loads.tryLock()) {
+            return;
+        }
+        try {
+            writes.lock();
+            try {
+                announced = new ArrayList<>();
+            } finally {
+                writes.unlock();
+            }
+            snapshot.executeWithoutResult(status -> count());
+            logger.info("✔ Loaded the ride counts of {} price buckets for page ETags", buckets);
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("⚠ Could not load ride counts for page ETags, keeping the current ones: {}", e.getMessage());
+        } finally {
+            writes.lock();
+            try {
+                announced = null;
+            } finally {
+                writes.unlock();
+            }
+            loads.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${api.etag.load-retry-ms:60000}", initialDelayString = "${api.etag.load-retry-ms:60000}")
+    public void retryLoad() {
+        if (counts == null) {
+            load();
+        }
+    }
+
+    /**
+     * Recounts periodically, picking up lost commit messages and retention drops.
+     */
+    @Scheduled(fixedDelayString = "${api.etag.reload-interval-ms:3600000}",
+            initialDelayString = "${api.etag.reload-interval-ms:3600000}")
+    public void reload() {
+        if (counts != null) {
+            load();
+        }
+    }
+
+    /**
+     * Records committed rides; prices above the last bucket share it.
+     */
+    public void recordCommitted(long[] ids, double[] prices) {
+        writes.lock();
+        try {
+            if (announced != null) {
+                announced.add(new Announced(ids, prices));
+            }
+            Buckets current = counts;
+            if (current != null) {
+                for (int i = 0; i < ids.length; i++) {
+                    current.add(bucket(prices[i]), ids[i]);
+                }
+            }
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    /**
+     * Tag of a price-range page; must be taken before the page is read, so that a commit racing
+     * with the read changes the next tag rather than being hidden by this one. Empty until the
+     * stored rides have been loaded.
+     *
+     * @param request every other parameter the page depends on, such as its cache key
+     */
+    public Optional<String> pageTag(double minPrice, double maxPrice, String request) {
+        Buckets current = counts;
+        if (current == null) {
+            return Optional.empty();
+        }
+        long rides = 0;
+        long highestId = 0;
+        for (int i = bucket(minPrice), last = bucket(maxPrice); i <= last; i++) {
+            rides += current.rides().get(i);
+            highestId = Math.max(highestId, current.highestIds().get(i));
+        }
+        return Optional.of("\"p-" + window() + "-" + rides + "-" + highestId + "-" + digest(request) + "\"");
+    }
+
+    public String rideTag(long id, Long version) {
+        return "\"r-" + window() + "-" + id + "-" + (version != null ? version : 0) + "\"";
+    }
+
+    /**
+     * Whether {@code If-None-Match} lists the tag; uses the weak comparison RFC 9110 asks for.
+     * {@code *} is not honoured, since answering it needs to know the resource exists.
+     */
+    public boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            if (opaque(candidate).equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Runs inside the snapshot transaction; installs the counts once no announced commit is left to check
+    private void count() {
+        Buckets stored = new Buckets(new AtomicLongArray(buckets), new AtomicLongArray(buckets));
+        jdbcTemplate.query("""
+                        SELECT CASE WHEN price > 0 THEN LEAST(floor(price / ?), ?)::int ELSE 0 END AS bucket, count(*), max(id)
+                        FROM taxi_rides
+                        GROUP BY 1""",
+                row -> stored.seed(row.getInt(1), row.getLong(2), row.getLong(3)),
+                bucketWidth, buckets - 1);
+
+        while (true) {
+            List<Announced> unchecked;
+            writes.lock();
+            try {
+                if (announced.isEmpty()) {
+                    counts = stored;
+                    return;
+                }
+                unchecked = announced;
+                announced = new ArrayList<>();
+            } finally {
+                writes.unlock();
+            }
+
+            // Rides committed before the snapshot are already counted, however late their message came
+            Set<Long> visible = visible(unchecked);
+            for (Announced batch : unchecked) {
+                for (int i = 0; i < batch.ids().length; i++) {
+                    if (!visible.contains(batch.ids()[i])) {
+                        stored.add(bucket(batch.prices()[i]), batch.ids()[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private Set<Long> visible(List<Announced> batches) {
+        Long[] ids = batches.stream()
+                .flatMapToLong(batch -> LongStream.of(batch.ids()))
+                .boxed()
+                .toArray(Long[]::new);
+        Set<Long> visible = new HashSet<>();
+        jdbcTemplate.query("SELECT id FROM taxi_rides WHERE id = ANY(?)",
+                statement -> statement.setArray(1, statement.getConnection().createArrayOf("bigint", ids)),
+                (RowCallbackHandler) row -> visible.add(row.getLong(1)));
+        return visible;
+    }
+
+    private long window() {
+        return clock.getAsLong() / windowMillis;
+    }
+
+    private int bucket(double price) {
+        if (!(price > 0)) {
+            return 0;
+        }
+        return (int) Math.min(price / bucketWidth, buckets - 1);
+    }
+
+    // 96 bits of SHA-256: same on every replica, and short enough for a header
+    private static String digest(String request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String opaque(String tag) {
+        String trimmed = tag.trim();
+        return trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed;
+    }
+
+    private record Announced(long[] ids, double[] prices) {
+    }
+
+    private record Buckets(AtomicLongArray rides, AtomicLongArray highestIds) {
+
+        void seed(int bucket, long count, long highestId) {
+            rides.addAndGet(bucket, count);
+            highestIds.accumulateAndGet(bucket, highestId, Math::max);
+        }
+
+        void add(int bucket, long id) {
+            seed(bucket, 1, id);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.taxidata.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Near cache: a bounded Caffeine map (L1) in front of a Redis cache (L2). Reads fall through to L2
+ * and populate L1; writes go to both tiers and are announced so that other replicas drop their L1
+ * copy. A lost announcement is bounded by the L1 TTL.
+ * <p>
+ * {@link #get(Object, Callable)}, used by {@code @Cacheable(sync = true)}, runs at most one loader per
+ * key at a time in this instance; concurrent misses wait for its result instead of querying the
+ * database themselves. Entries this instance loaded are also refreshed early with probabilistic early
+ * expiration (XFetch): a hit recomputes the value with a probability that rises as the L2 TTL runs
+ * out, faster for values that took longer to load, so a hot key is reloaded by one request shortly
+ * before it expires instead of by every request right after.
+ * <p>
+ * A load can read the database just before a change that should evict its key, and store the old
+ * value after the eviction already ran. {@link #invalidateLoading} marks such loads; their value is
+ * still returned to the waiting requests but evicted right after it is stored.
+ */
+public class TwoTierCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCache.class);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final BiConsumer<String, Object> invalidationPublisher;
+
+    private final Timer l1Hits;
+    private final Timer l1Misses;
+    private final Timer l2Hits;
+    private final Timer l2Misses;
+
+    private final Duration remoteTtl;
+    private final double earlyRefreshBeta;
+    private final LongSupplier clock;
+    private final DoubleSupplier random;
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Set<Object> invalidatedLoads = ConcurrentHashMap.newKeySet();
+    private final com.github.benmanes.caffeine.cache.Cache<Object, LoadStamp> stamps;
+
+    private final Counter missLoads;
+    private final Counter earlyRefreshLoads;
+    private final Counter coalesced;
+    private final Counter discardedLoads;
+
+    /**
+     * When and how fast this instance last loaded an entry, for the early refresh decision.
+     */
+    private record LoadStamp(long loadedAt, long loadNanos) {
+    }
+
+    /**
+     * @param invalidationPublisher called with the cache name and the changed key, or {@code null} after a clear
+     */
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local, Cache remote,
+                        BiConsumer<String, Object> invalidationPublisher, MeterRegistry meterRegistry) {
+        this(name, local, remote, invalidationPublisher, meterRegistry, Duration.ZERO, 0);
+    }
+
+    /**
+     * @param remoteTtl        entry TTL of the L2 cache, which early refreshes aim to beat
+     * @param earlyRefreshBeta XFetch beta: above 1 refreshes earlier, 0 disables early refreshes
+     */
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local, Cache remote,
+                        BiConsumer<String, Object> invalidationPublisher, MeterRegistry meterRegistry,
+                        Duration remoteTtl, double earlyRefreshBeta) {
+        this(name, local, remote, invalidationPublisher, meterRegistry, remoteTtl, earlyRefreshBeta,
+                System::nanoTime, () -> 1 - ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * @param random uniform in {@code (0, 1]}
+     */
+    TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> local, Cache remote,
+                 BiConsumer<String, Object> invalidationPublisher, MeterRegistry meterRegistry,
+                 Duration remoteTtl, double earlyRefreshBeta, LongSupplier clock, DoubleSupplier random) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.l1Hits = lookups(meterRegistry, "l1", "hit");
+        this.l1Misses = lookups(meterRegistry, "l1", "miss");
+        this.l2Hits = lookups(meterRegistry, "l2", "hit");
+        this.l2Misses = lookups(meterRegistry, "l2", "miss");
+        this.remoteTtl = remoteTtl;
+        this.earlyRefreshBeta = remoteTtl.isZero() ? 0 : earlyRefreshBeta;
+        this.clock = clock;
+        this.random = random;
+        Caffeine<Object, Object> stampBuilder = Caffeine.newBuilder()
+                .maximumSize(local.policy().eviction().map(Policy.Eviction::getMaximum).orElse(10_000L));
+        if (!remoteTtl.isZero()) {
+            stampBuilder.expireAfterWrite(remoteTtl);
+        }
+        this.stamps = stampBuilder.build();
+        this.missLoads = loads(meterRegistry, "miss");
+        this.earlyRefreshLoads = loads(meterRegistry, "early-refresh");
+        this.coalesced = Counter.builder("taxi.cache.coalesced")
+                .description("Cache misses that waited for another request's load of the same key")
+                .tag("cache", name)
+                .register(meterRegistry);
+        this.discardedLoads = Counter.builder("taxi.cache.loads.discarded")
+                .description("Loaded values evicted right after they were stored, because their key was invalidated during the load")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        long start = System.nanoTime();
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            l1Hits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new SimpleValueWrapper(value);
+        }
+        l1Misses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        start = System.nanoTime();
+        ValueWrapper wrapper;
+        try {
+            wrapper = remote.get(key);
+        } catch (SerializationException e) {
+            // Written in a format this instance cannot read (e.g. by a newer replica); recompute it
+            wrapper = null;
+        }
+        (wrapper != null ? l2Hits : l2Misses).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(key, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Loads a value missing from both tiers at most once per key at a time; {@code null} results are
+     * returned but not stored.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            if (refreshDue(key)) {
+                CompletableFuture<Object> flight = new CompletableFuture<>();
+                // Requests arriving during the refresh keep getting the current value
+                if (inFlight.putIfAbsent(key, flight) == null) {
+                    earlyRefreshLoads.increment();
+                    try {
+                        return (T) load(key, valueLoader, flight);
+                    } catch (RuntimeException e) {
+                        logger.warn("⚠ Early refresh of {} in {} failed, serving the cached value: {}", key, name, e.getMessage());
+                    }
+                }
+            }
+            return (T) wrapper.get();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.increment();
+            try {
+                return (T) leader.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        // A load that completed between the miss above and now has already filled L1
+        Object loaded = local.getIfPresent(key);
+        if (loaded != null) {
+            inFlight.remove(key, flight);
+            flight.complete(loaded);
+            return (T) loaded;
+        }
+        missLoads.increment();
+        return (T) load(key, valueLoader, flight);
+    }
+
+    /**
+     * Runs the loader, stores its value and hands the outcome to the requests waiting on {@code flight}.
+     */
+    private Object load(Object key, Callable<?> valueLoader, CompletableFuture<Object> flight) {
+        try {
+            // A change invalidated before the loader runs is already visible to it
+            invalidatedLoads.remove(key);
+            long start = clock.getAsLong();
+            Object value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            long end = clock.getAsLong();
+            if (value != null) {
+                put(key, value);
+                stamps.put(key, new LoadStamp(end, end - start));
+                if (invalidatedLoads.remove(key)) {
+                    evict(key);
+                    discardedLoads.increment();
+                }
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+            // Invalidations from here on find the stored value and evict it themselves
+            invalidatedLoads.remove(key);
+        }
+    }
+
+    /**
+     * Marks the loads of matching keys running in this instance, so their values are evicted once
+     * stored. Call it before evicting the stored entries, so that every load is caught by one or the other.
+     */
+    void invalidateLoading(Predicate<Object> matches) {
+        for (Object key : inFlight.keySet()) {
+            if (matches.test(key)) {
+                invalidatedLoads.add(key);
+            }
+        }
+    }
+
+    /**
+     * XFetch: due once {@code age - loadTime * beta * ln(random)} reaches the L2 TTL.
+     */
+    private boolean refreshDue(Object key) {
+        if (earlyRefreshBeta <= 0) {
+            return false;
+        }
+        LoadStamp stamp = stamps.getIfPresent(key);
+        if (stamp == null) {
+            return false;
+        }
+        double age = clock.getAsLong() - stamp.loadedAt();
+        return age - stamp.loadNanos() * earlyRefreshBeta * Math.log(random.getAsDouble()) >= remoteTtl.toNanos();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        stamps.invalidate(key);
+        remote.put(key, value);
+        if (value != null) {
+            local.put(key, value);
+        } else {
+            local.invalidate(key);
+        }
+        invalidationPublisher.accept(name, key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        local.invalidate(key);
+        stamps.invalidate(key);
+        if (existing == null) {
+            invalidationPublisher.accept(name, key);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        stamps.invalidate(key);
+        invalidationPublisher.accept(name, key);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        stamps.invalidateAll();
+        invalidationPublisher.accept(name, null);
+    }
+
+    /**
+     * L1 lookup only, for callers that batch their L2 reads themselves. Not recorded in the metrics.
+     */
+    public Object getLocal(Object key) {
+        return local.getIfPresent(key);
+    }
+
+    /**
+     * Stores a value read or written in L2 by the caller.
+     */
+    public void putLocal(Object key, Object value) {
+        if (value != null) {
+            local.put(key, value);
+        }
+    }
+
+    /**
+     * Evicts from both tiers without announcing it, for invalidations every replica receives anyway.
+     */
+    void evictWithoutPublishing(Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        stamps.invalidate(key);
+    }
+
+    /**
+     * Drops the L1 entry only, after another replica changed it.
+     */
+    void invalidateLocal(Object key) {
+        if (key == null) {
+            local.invalidateAll();
+            stamps.invalidateAll();
+        } else {
+            local.invalidate(key);
+            stamps.invalidate(key);
+        }
+    }
+
+    long localSize() {
+        return local.estimatedSize();
+    }
+
+    private Counter loads(MeterRegistry meterRegistry, String trigger) {
+        return Counter.builder("taxi.cache.loads")
+                .description("Values computed by the cache loader, after a miss in both tiers or as an early refresh")
+                .tag("cache", name)
+                .tag("trigger", trigger)
+                .register(meterRegistry);
+    }
+
+    private Timer lookups(MeterRegistry meterRegistry, String tier, String result) {
+        return Timer.builder("taxi.cache.gets")
+                .description("Cache lookups per tier; l2 is only consulted on an l1 miss")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,132 @@
+package com.taxidata.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Wraps every cache of the Redis cache manager in a {@link TwoTierCache}. L1 invalidations travel
+ * between replicas over a Redis pub/sub channel as {@code E|<instance>|<cache>|<key>} (evict) or
+ * {@code C|<instance>|<cache>} (clear); a replica ignores its own messages.
+ */
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCacheManager.class);
+
+    private final CacheManager remote;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String channel;
+    private final long maximumSize;
+    private final Duration ttl;
+    private final Duration remoteTtl;
+    private final double earlyRefreshBeta;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final Counter publishedInvalidations;
+    private final Counter receivedInvalidations;
+    private UnaryOperator<Cache> remoteDecorator = UnaryOperator.identity();
+
+    public TwoTierCacheManager(CacheManager remote, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                               String channel, long maximumSize, Duration ttl, Duration remoteTtl,
+                               double earlyRefreshBeta) {
+        this.remote = remote;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.channel = channel;
+        this.maximumSize = maximumSize;
+        this.ttl = ttl;
+        this.remoteTtl = remoteTtl;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.publishedInvalidations = invalidations("published");
+        this.receivedInvalidations = invalidations("received");
+    }
+
+    /**
+     * Wraps each Redis cache before it becomes the L2 tier, e.g. in a {@link BoundedCache}. Call before
+     * the first {@link #getCache}.
+     */
+    public void setRemoteDecorator(UnaryOperator<Cache> remoteDecorator) {
+        this.remoteDecorator = remoteDecorator;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 3 || instanceId.equals(parts[1])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        receivedInvalidations.increment();
+        cache.invalidateLocal("E".equals(parts[0]) && parts.length == 4 ? parts[3] : null);
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            throw new IllegalStateException("No Redis cache named " + name);
+        }
+        remoteCache = remoteDecorator.apply(remoteCache);
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        TwoTierCache cache = new TwoTierCache(name, local, remoteCache, this::publish, meterRegistry,
+                remoteTtl, earlyRefreshBeta);
+        Gauge.builder("taxi.cache.l1.size", cache, TwoTierCache::localSize)
+                .description("Entries held in the in-process cache tier")
+                .tag("cache", name)
+                .register(meterRegistry);
+        return cache;
+    }
+
+    private void publish(String cacheName, Object key) {
+        String message = key != null
+                ? "E|" + instanceId + "|" + cacheName + "|" + key
+                : "C|" + instanceId + "|" + cacheName;
+        try {
+            redisTemplate.convertAndSend(channel, message);
+            publishedInvalidations.increment();
+        } catch (Exception e) {
+            // Other replicas keep their copy until the L1 TTL expires
+            logger.warn("⚠ Could not publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    private Counter invalidations(String direction) {
+        return Counter.builder("taxi.cache.invalidations")
+                .description("L1 invalidation messages exchanged with other replicas")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+}
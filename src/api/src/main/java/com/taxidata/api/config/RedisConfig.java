@@ -2,8 +2,12 @@ package com.taxidata.api.config;
 
 import java.time.Duration;
 
+import com.taxidata.api.cache.BoundedCache;
+import com.taxidata.api.cache.PriceRangeInvalidator;
+import com.taxidata.api.cache.RideCacheSerializer;
+import com.taxidata.api.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.SimpleCacheErrorHandler;
 import org.springframework.context.annotation.Bean;
@@ -13,8 +17,13 @@ import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
 
 @Configuration
 @EnableCaching
@@ -26,6 +35,39 @@ public class RedisConfig {
     @Value("${spring.data.redis.port}")
     private int redisPort;
 
+    @Value("${api.cache.l1.maximum-size:10000}")
+    private long l1MaximumSize;
+
+    @Value("${api.cache.l1.ttl:30s}")
+    private Duration l1Ttl;
+
+    @Value("${api.cache.invalidation-channel:taxi:cache:invalidation}")
+    private String invalidationChannel;
+
+    @Value("${api.cache.ttl:30m}")
+    private Duration cacheTtl;
+
+    @Value("${api.cache.early-refresh-beta:1.0}")
+    private double earlyRefreshBeta;
+
+    @Value("${api.cache.rides-committed-channel:taxi:rides:committed}")
+    private String ridesCommittedChannel;
+
+    @Value("${api.cache.serializer:binary}")
+    private String cacheSerializer;
+
+    @Value("${api.cache.compression-threshold:1KB}")
+    private DataSize compressionThreshold;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${api.cache.redis.max-concurrent:64}")
+    private int redisMaxConcurrent;
+
+    @Value("${api.cache.redis.max-wait:200ms}")
+    private Duration redisMaxWait;
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
@@ -35,10 +77,19 @@ public class RedisConfig {
     @Bean
     public RedisCacheConfiguration cacheConfiguration() {
         return RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(30)) // Cache Lifetime
+                .entryTtl(cacheTtl) // Cache Lifetime
                 .disableCachingNullValues()
                 .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+                        RedisSerializationContext.SerializationPair.fromSerializer(cacheValueSerializer()));
+    }
+
+    private RedisSerializer<Object> cacheValueSerializer() {
+        RedisSerializer<Object> json = new GenericJackson2JsonRedisSerializer();
+        if ("json".equalsIgnoreCase(cacheSerializer)) {
+            return json;
+        }
+        // Reads JSON entries too, so switching formats does not need a cache flush
+        return new RideCacheSerializer(json, (int) compressionThreshold.toBytes());
     }
 
     @Bean
@@ -49,10 +100,36 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(LettuceConnectionFactory redisConnectionFactory) {
-        return RedisCacheManager.builder(redisConnectionFactory)
+    public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory connectionFactory) {
+        return new StringRedisTemplate(connectionFactory);
+    }
+
+    @Bean
+    public TwoTierCacheManager cacheManager(LettuceConnectionFactory redisConnectionFactory,
+                                            StringRedisTemplate stringRedisTemplate,
+                                            MeterRegistry meterRegistry) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
                 .cacheDefaults(cacheConfiguration())
                 .build();
+        redisCacheManager.initializeCaches();
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager, stringRedisTemplate, meterRegistry,
+                invalidationChannel, l1MaximumSize, l1Ttl, cacheTtl, earlyRefreshBeta);
+        if (virtualThreads) {
+            // Tomcat's worker pool no longer bounds the calls into Redis
+            cacheManager.setRemoteDecorator(cache -> new BoundedCache(cache, redisMaxConcurrent, redisMaxWait, meterRegistry));
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(LettuceConnectionFactory redisConnectionFactory,
+                                                                            TwoTierCacheManager cacheManager,
+                                                                            PriceRangeInvalidator priceRangeInvalidator) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        container.addMessageListener(priceRangeInvalidator, new ChannelTopic(ridesCommittedChannel));
+        return container;
     }
 
     @Bean
@@ -0,0 +1,34 @@
+package com.taxidata.api.config;
+
+import com.taxidata.api.metrics.ConditionalRequestFilter;
+import com.taxidata.api.metrics.RequestAllocationInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestAllocationInterceptor(meterRegistry))
+                .addPathPatterns("/api/**");
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConditionalRequestFilter> conditionalRequestFilter(
+            @Value("${api.etag.tracked-tags:10000}") long trackedTags) {
+        FilterRegistrationBean<ConditionalRequestFilter> registration =
+                new FilterRegistrationBean<>(new ConditionalRequestFilter(meterRegistry, trackedTags));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,112 @@
+package com.taxidata.api.controller;
+
+import com.taxidata.api.analytics.RideStatsStore;
+import com.taxidata.api.dto.RideStatsDTO;
+import io.micrometer.core.annotation.Timed;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/v1/analytics")
+@RequiredArgsConstructor
+@Tag(name = "Ride Analytics", description = "Hourly ride statistics per pickup place, served from memory")
+@Validated
+public class AnalyticsController {
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsController.class);
+    private final RideStatsStore rideStatsStore;
+
+    @GetMapping("/places")
+    @Operation(summary = "List the pickup places that have statistics")
+    @Timed(value = "taxi.analytics.places", description = "Time taken to list places with statistics")
+    public ResponseEntity<Collection<String>> getPlaces() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(30, TimeUnit.SECONDS))
+                .body(rideStatsStore.places());
+    }
+
+    @GetMapping("/summary")
+    @Operation(summary = "Get ride count, average duration and price and distance quantiles for a time range")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed statistics"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range"),
+            @ApiResponse(responseCode = "404", description = "No rides for the place in the range")
+    })
+    @Timed(value = "taxi.analytics.summary", description = "Time taken to summarise ride statistics")
+    public ResponseEntity<RideStatsDTO> getSummary(
+            @Parameter(description = "Pickup place; all places when omitted")
+            @RequestParam(required = false)
+            String place,
+
+            @Parameter(description = "Start hour from (inclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+
+            @Parameter(description = "Start hour to (exclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to) {
+
+        logger.debug("Summarising rides from {} between {} and {}", place, from, to);
+        if (from != null && to != null && !from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return rideStatsStore.summary(place, from, to)
+                .map(stats -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.maxAge(30, TimeUnit.SECONDS))
+                        .body(stats))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/hourly")
+    @Operation(summary = "Get ride statistics hour by hour for a time range")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed statistics; hours without rides are omitted"),
+            @ApiResponse(responseCode = "400", description = "Invalid date range")
+    })
+    @Timed(value = "taxi.analytics.hourly", description = "Time taken to compute hourly ride statistics")
+    public ResponseEntity<List<RideStatsDTO>> getHourly(
+            @Parameter(description = "Pickup place; all places when omitted")
+            @RequestParam(required = false)
+            String place,
+
+            @Parameter(description = "Start hour from (inclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+
+            @Parameter(description = "Start hour to (exclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to) {
+
+        logger.debug("Computing hourly ride statistics for {} between {} and {}", place, from, to);
+        if (from != null && to != null && !from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(30, TimeUnit.SECONDS))
+                .body(rideStatsStore.hourly(place, from, to));
+    }
+}
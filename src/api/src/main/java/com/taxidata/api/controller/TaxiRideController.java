@@ -1,8 +1,18 @@
 package com.taxidata.api.controller;
 
+import com.taxidata.api.cache.PriceRangeKeys;
+import com.taxidata.api.cache.RideETags;
+import com.taxidata.api.dto.CellContinuationToken;
+import com.taxidata.api.dto.ContinuationToken;
+import com.taxidata.api.dto.CountMode;
+import com.taxidata.api.dto.CursorPageDTO;
 import com.taxidata.api.dto.PageDTO;
 import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.api.export.ExportFormat;
+import com.taxidata.api.export.RideExportFilter;
+import com.taxidata.api.export.RideExportService;
 import com.taxidata.api.service.TaxiRideService;
+import com.taxidata.common.geo.GeoArea;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -12,13 +22,26 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.micrometer.core.annotation.Timed;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 @RestController
@@ -29,12 +52,15 @@ import java.util.concurrent.TimeUnit;
 public class TaxiRideController {
     private static final Logger logger = LoggerFactory.getLogger(TaxiRideController.class);
     private final TaxiRideService taxiRideService;
+    private final RideExportService rideExportService;
+    private final RideETags rideETags;
 
     @GetMapping
-    @Operation(summary = "Get taxi rides filtered by price range")
+    @Operation(summary = "Get taxi rides filtered by price range and start date")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved rides"),
-            @ApiResponse(responseCode = "400", description = "Invalid price range parameters"),
+            @ApiResponse(responseCode = "304", description = "No ride was committed in the price range since the ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid price range, date range or count mode"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     @Timed(value = "taxi.rides.search", description = "Time taken to search taxi rides")
@@ -49,37 +75,330 @@ public class TaxiRideController {
             @Min(value = 0, message = "Maximum price cannot be negative")
             Double maxPrice,
 
-            Pageable pageable) {
+            @Parameter(description = "Start date from (inclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+
+            @Parameter(description = "Start date to (exclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to,
+
+            Pageable pageable,
+
+            @Parameter(description = "How to compute the total: exact, none (has-next only), planner or sample")
+            @RequestParam(defaultValue = "exact")
+            String count,
 
-        logger.debug("Searching rides with price range: {} - {}, page: {}",
-                minPrice, maxPrice, pageable.getPageNumber());
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch) {
+
+        logger.debug("Searching rides with price range: {} - {}, start date: {} - {}, page: {}, count: {}",
+                minPrice, maxPrice, from, to, pageable.getPageNumber(), count);
 
         // Validate price range if both parameters are provided
         if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
             return ResponseEntity.badRequest().build();
         }
+        if (from != null && to != null && !from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        CountMode countMode;
+        try {
+            countMode = CountMode.of(count);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        double min = minPrice != null ? minPrice : 0.0;
+        double max = maxPrice != null ? maxPrice : Double.MAX_VALUE;
+        Optional<String> etag = rideETags.pageTag(min, max, PriceRangeKeys.key(min, max, from, to, pageable, countMode));
+        if (etag.isPresent() && rideETags.matches(ifNoneMatch, etag.get())) {
+            return notModified(etag.get());
+        }
 
         try {
-            PageDTO<TaxiRideDTO> rides = taxiRideService.findByPriceRange(
-                    minPrice != null ? minPrice : 0.0,
-                    maxPrice != null ? maxPrice : Double.MAX_VALUE,
-                    pageable
-            );
+            PageDTO<TaxiRideDTO> rides = taxiRideService.findByPriceRange(min, max, from, to, pageable, countMode);
+
+            return tagged(etag).body(rides);
+
+        } catch (Exception e) {
+            logger.error("Error retrieving rides", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/cursor")
+    @Operation(summary = "Get taxi rides filtered by price range, ordered by price, using a continuation token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved rides"),
+            @ApiResponse(responseCode = "304", description = "No ride was committed in the price range since the ETag"),
+            @ApiResponse(responseCode = "400", description = "Invalid price range or continuation token"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Timed(value = "taxi.rides.search.cursor", description = "Time taken to search taxi rides by keyset")
+    public ResponseEntity<CursorPageDTO<TaxiRideDTO>> getRidesByCursor(
+            @Parameter(description = "Minimum price")
+            @RequestParam(required = false)
+            @Min(value = 0, message = "Minimum price cannot be negative")
+            Double minPrice,
+
+            @Parameter(description = "Maximum price")
+            @RequestParam(required = false)
+            @Min(value = 0, message = "Maximum price cannot be negative")
+            Double maxPrice,
+
+            @Parameter(description = "Continuation token returned as nextToken by the previous page")
+            @RequestParam(required = false)
+            String after,
+
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be positive")
+            @Max(value = 100, message = "Size cannot exceed 100")
+            int size,
+
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch) {
+
+        logger.debug("Searching rides with price range: {} - {}, after: {}", minPrice, maxPrice, after);
+
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        ContinuationToken token;
+        try {
+            token = after != null ? ContinuationToken.decode(after) : null;
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected continuation token: {}", after);
+            return ResponseEntity.badRequest().build();
+        }
+
+        double min = minPrice != null ? minPrice : 0.0;
+        double max = maxPrice != null ? maxPrice : Double.MAX_VALUE;
+        Optional<String> etag = rideETags.pageTag(min, max,
+                PriceRangeKeys.cursorKey(min, max, size) + ":a" + (token != null ? token.encode() : ""));
+        if (etag.isPresent() && rideETags.matches(ifNoneMatch, etag.get())) {
+            return notModified(etag.get());
+        }
+
+        try {
+            CursorPageDTO<TaxiRideDTO> rides = taxiRideService.findByPriceRangeAfter(min, max, token, size);
+
+            return tagged(etag).body(rides);
+
+        } catch (Exception e) {
+            logger.error("Error retrieving rides", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "Get several taxi rides by ID in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rides found, in request order; unknown IDs are omitted"),
+            @ApiResponse(responseCode = "400", description = "No IDs, too many IDs or a non-positive ID"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Timed(value = "taxi.rides.get.batch", description = "Time taken to get taxi rides by ID in bulk")
+    public ResponseEntity<List<TaxiRideDTO>> getRidesByIds(
+            @Parameter(description = "Ride IDs, comma separated or repeated")
+            @RequestParam
+            @NotEmpty(message = "At least one ID is required")
+            @Size(max = 100, message = "At most 100 IDs per request")
+            List<@Min(value = 1, message = "ID must be positive") Long> ids) {
+
+        logger.debug("Fetching {} rides by ID", ids.size());
+
+        try {
+            List<TaxiRideDTO> rides = taxiRideService.findByIds(ids);
 
             return ResponseEntity.ok()
                     .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES))
                     .body(rides);
 
         } catch (Exception e) {
-            logger.error("Error retrieving rides", e);
+            logger.error("Error retrieving rides by ID", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/near")
+    @Operation(summary = "Get taxi rides starting or ending within a radius of a point, using a continuation token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved rides"),
+            @ApiResponse(responseCode = "400", description = "Invalid point, radius too large or invalid continuation token"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Timed(value = "taxi.rides.search.geo", extraTags = {"shape", "circle"}, description = "Time taken to search taxi rides by location")
+    public ResponseEntity<CursorPageDTO<TaxiRideDTO>> getRidesNear(
+            @Parameter(description = "Latitude of the center")
+            @RequestParam
+            double lat,
+
+            @Parameter(description = "Longitude of the center")
+            @RequestParam
+            double lon,
+
+            @Parameter(description = "Radius in kilometres")
+            @RequestParam
+            double radiusKm,
+
+            @Parameter(description = "Match the start or the end of the ride")
+            @RequestParam(defaultValue = "start")
+            @Pattern(regexp = "start|end", message = "by must be start or end")
+            String by,
+
+            @Parameter(description = "Continuation token returned as nextToken by the previous page")
+            @RequestParam(required = false)
+            String after,
+
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be positive")
+            @Max(value = 100, message = "Size cannot exceed 100")
+            int size) {
+
+        logger.debug("Searching rides {} within {} km of {}, {}", by, radiusKm, lat, lon);
+        try {
+            return searchArea(GeoArea.circle(lat, lon, radiusKm), by, after, size);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected geo search: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/within")
+    @Operation(summary = "Get taxi rides starting or ending inside a bounding box, using a continuation token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved rides"),
+            @ApiResponse(responseCode = "400", description = "Invalid or too large box, or invalid continuation token"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @Timed(value = "taxi.rides.search.geo", extraTags = {"shape", "box"}, description = "Time taken to search taxi rides by location")
+    public ResponseEntity<CursorPageDTO<TaxiRideDTO>> getRidesWithin(
+            @RequestParam double minLat,
+            @RequestParam double minLon,
+            @RequestParam double maxLat,
+            @RequestParam double maxLon,
+
+            @Parameter(description = "Match the start or the end of the ride")
+            @RequestParam(defaultValue = "start")
+            @Pattern(regexp = "start|end", message = "by must be start or end")
+            String by,
+
+            @Parameter(description = "Continuation token returned as nextToken by the previous page")
+            @RequestParam(required = false)
+            String after,
+
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be positive")
+            @Max(value = 100, message = "Size cannot exceed 100")
+            int size) {
+
+        logger.debug("Searching rides {} within [{}, {}] - [{}, {}]", by, minLat, minLon, maxLat, maxLon);
+        try {
+            return searchArea(GeoArea.box(minLat, minLon, maxLat, maxLon), by, after, size);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected geo search: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<CursorPageDTO<TaxiRideDTO>> searchArea(GeoArea area, String by, String after, int size) {
+        // Invalid tokens and oversized areas surface as IllegalArgumentException, mapped to 400 by the callers
+        CellContinuationToken token = after != null ? CellContinuationToken.decode(after) : null;
+        try {
+            CursorPageDTO<TaxiRideDTO> rides = taxiRideService.findInArea(area, "end".equals(by), token, size);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES))
+                    .body(rides);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error retrieving rides by location", e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Stream all rides matching the filters as NDJSON or CSV")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Rides are streamed in ID order"),
+            @ApiResponse(responseCode = "400", description = "Invalid price range, date range or format"),
+            @ApiResponse(responseCode = "429", description = "Too many exports running")
+    })
+    public ResponseEntity<StreamingResponseBody> exportRides(
+            @Parameter(description = "Minimum price")
+            @RequestParam(required = false)
+            @Min(value = 0, message = "Minimum price cannot be negative")
+            Double minPrice,
+
+            @Parameter(description = "Maximum price")
+            @RequestParam(required = false)
+            @Min(value = 0, message = "Maximum price cannot be negative")
+            Double maxPrice,
+
+            @Parameter(description = "Start date from (inclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime from,
+
+            @Parameter(description = "Start date to (exclusive), ISO date-time")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime to,
+
+            @Parameter(description = "ndjson or csv")
+            @RequestParam(defaultValue = "ndjson")
+            String format,
+
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding) {
+
+        if ((minPrice != null && maxPrice != null && minPrice > maxPrice)
+                || (from != null && to != null && !from.isBefore(to))) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        Optional<StreamingResponseBody> body = rideExportService.export(
+                new RideExportFilter(minPrice, maxPrice, from, to), exportFormat, gzip);
+        if (body.isEmpty()) {
+            logger.warn("⚠ Export rejected, too many exports running");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+
+        logger.debug("Exporting rides as {} with price range: {} - {}, dates: {} - {}", exportFormat, minPrice, maxPrice, from, to);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("rides." + exportFormat.extension())
+                        .build()
+                        .toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .cacheControl(CacheControl.noStore());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body.get());
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get taxi ride by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved the ride"),
+            @ApiResponse(responseCode = "304", description = "The ride has not changed since the ETag"),
             @ApiResponse(responseCode = "404", description = "Ride not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
@@ -88,10 +407,21 @@ public class TaxiRideController {
             @Parameter(description = "Ride ID")
             @PathVariable
             @Min(value = 1, message = "ID must be positive")
-            Long id) {
+            Long id,
+
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            String ifNoneMatch) {
 
         logger.debug("Fetching ride with ID: {}", id);
 
+        // Only the version this replica has cached can vouch for a tag; unknown and evicted rides are read
+        Optional<String> current = taxiRideService.findCachedById(id)
+                .map(cached -> rideETags.rideTag(id, cached.getVersion()))
+                .filter(tag -> rideETags.matches(ifNoneMatch, tag));
+        if (current.isPresent()) {
+            return notModified(current.get());
+        }
+
         try {
             TaxiRideDTO ride = taxiRideService.findById(id);
             if (ride == null) {
@@ -100,6 +430,7 @@ public class TaxiRideController {
 
             return ResponseEntity.ok()
                     .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES))
+                    .eTag(rideETags.rideTag(id, ride.getVersion()))
                     .body(ride);
 
         } catch (Exception e) {
@@ -108,6 +439,21 @@ public class TaxiRideController {
         }
     }
 
+    private static ResponseEntity.BodyBuilder tagged(Optional<String> etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES));
+        etag.ifPresent(response::eTag);
+        return response;
+    }
+
+    // Answered before any database access
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .cacheControl(CacheControl.maxAge(10, TimeUnit.MINUTES))
+                .eTag(etag)
+                .build();
+    }
+
     @GetMapping("/cache/status")
     @Operation(summary = "Check Redis cache status")
     @ApiResponses(value = {
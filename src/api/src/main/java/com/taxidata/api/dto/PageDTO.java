@@ -1,32 +0,0 @@
-package com.taxidata.api.dto;
-
-import lombok.Data;
-import org.springframework.data.domain.Page;
-
-import java.util.List;
-import java.util.stream.Collectors;
-
-@Data
-public class PageDTO<T> {
-    private List<T> content;
-    private int pageNumber;
-    private int pageSize;
-    private long totalElements;
-    private int totalPages;
-    private boolean first;
-    private boolean last;
-    private boolean empty;
-
-    public static <T, E> PageDTO<T> fromPage(Page<E> page, java.util.function.Function<E, T> mapper) {
-        PageDTO<T> dto = new PageDTO<>();
-        dto.setContent(page.getContent().stream().map(mapper).collect(Collectors.toList()));
-        dto.setPageNumber(page.getNumber());
-        dto.setPageSize(page.getSize());
-        dto.setTotalElements(page.getTotalElements());
-        dto.setTotalPages(page.getTotalPages());
-        dto.setFirst(page.isFirst());
-        dto.setLast(page.isLast());
-        dto.setEmpty(page.isEmpty());
-        return dto;
-    }
-}
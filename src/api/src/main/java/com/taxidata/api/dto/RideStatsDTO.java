@@ -0,0 +1,47 @@
+package com.taxidata.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ride statistics of one pickup place (or all of them, when {@code place} is null) over
+ * {@code [from, to)}. Quantiles are within the sketch accuracy of the exact value; min and max are exact.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RideStatsDTO {
+
+    private String place;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime from;
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime to;
+
+    private long rides;
+    private Double averageDurationMinutes;
+    private Distribution price;
+    private Distribution distanceKm;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Distribution {
+        private long count;
+        private double min;
+        private double p50;
+        private double p90;
+        private double p99;
+        private double max;
+    }
+}
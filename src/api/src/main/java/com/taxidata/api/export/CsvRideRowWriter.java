@@ -0,0 +1,87 @@
+package com.taxidata.api.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * RFC 4180 CSV with a header line. {@code important_places} is the jsonb array as a quoted field.
+ */
+class CsvRideRowWriter implements RideRowWriter {
+
+    static final String HEADER = "id,start_latitude,start_longitude,start_place,end_latitude,end_longitude,end_place," +
+            "start_date,end_date,price,distance_km,important_places";
+
+    private final Writer writer;
+
+    CsvRideRowWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    @Override
+    public void begin() throws IOException {
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void row(ResultSet rs) throws SQLException, IOException {
+        writer.write(Long.toString(rs.getLong("id")));
+        number(RideRowWriter.getDouble(rs, "latitude"));
+        number(RideRowWriter.getDouble(rs, "longitude"));
+        text(rs.getString("place"));
+        number(RideRowWriter.getDouble(rs, "end_latitude"));
+        number(RideRowWriter.getDouble(rs, "end_longitude"));
+        text(rs.getString("end_place"));
+        date(rs.getObject("start_date", LocalDateTime.class));
+        date(rs.getObject("end_date", LocalDateTime.class));
+        number(RideRowWriter.getDouble(rs, "price"));
+        number(RideRowWriter.getDouble(rs, "distance_km"));
+        text(rs.getString("important_places"));
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void end() throws IOException {
+        writer.flush();
+    }
+
+    private void number(Double value) throws IOException {
+        writer.write(',');
+        if (value != null) {
+            writer.write(Double.toString(value));
+        }
+    }
+
+    private void date(LocalDateTime value) throws IOException {
+        writer.write(',');
+        if (value != null) {
+            writer.write(DATE_FORMAT.format(value));
+        }
+    }
+
+    private void text(String value) throws IOException {
+        writer.write(',');
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
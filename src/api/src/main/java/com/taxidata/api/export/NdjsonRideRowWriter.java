@@ -0,0 +1,90 @@
+package com.taxidata.api.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+/**
+ * One JSON object per line, shaped like {@code TaxiRideDTO} without the derived fields. The
+ * application ObjectMapper is not used: it adds type ids for the Redis cache.
+ */
+class NdjsonRideRowWriter implements RideRowWriter {
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private final JsonGenerator json;
+
+    NdjsonRideRowWriter(OutputStream out) throws IOException {
+        this.json = JSON.createGenerator(out);
+        this.json.setRootValueSeparator(null);
+    }
+
+    @Override
+    public void begin() {
+    }
+
+    @Override
+    public void row(ResultSet rs) throws SQLException, IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", rs.getLong("id"));
+        writeLocation("start", RideRowWriter.getDouble(rs, "latitude"), RideRowWriter.getDouble(rs, "longitude"),
+                rs.getString("place"));
+        writeLocation("end", RideRowWriter.getDouble(rs, "end_latitude"), RideRowWriter.getDouble(rs, "end_longitude"),
+                rs.getString("end_place"));
+        String places = rs.getString("important_places");
+        json.writeFieldName("importantPlaces");
+        // Already JSON in the database; copied through without parsing
+        json.writeRawValue(places != null ? places : "[]");
+        writeDate("startDate", rs.getObject("start_date", LocalDateTime.class));
+        writeDate("endDate", rs.getObject("end_date", LocalDateTime.class));
+        writeNumber("price", RideRowWriter.getDouble(rs, "price"));
+        writeNumber("distanceKm", RideRowWriter.getDouble(rs, "distance_km"));
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        json.flush();
+    }
+
+    @Override
+    public void end() throws IOException {
+        json.close();
+    }
+
+    private void writeLocation(String field, Double latitude, Double longitude, String place) throws IOException {
+        if (latitude == null && longitude == null && place == null) {
+            json.writeNullField(field);
+            return;
+        }
+        json.writeObjectFieldStart(field);
+        writeNumber("latitude", latitude);
+        writeNumber("longitude", longitude);
+        json.writeStringField("place", place);
+        json.writeEndObject();
+    }
+
+    private void writeDate(String field, LocalDateTime value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeStringField(field, DATE_FORMAT.format(value));
+        }
+    }
+
+    private void writeNumber(String field, Double value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.taxidata.api.export;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Export bounds. Prices are inclusive; {@code from} is inclusive and {@code to} exclusive on the
+ * start date. Null means unbounded.
+ */
+@Value
+public class RideExportFilter {
+    Double minPrice;
+    Double maxPrice;
+    LocalDateTime from;
+    LocalDateTime to;
+}
@@ -0,0 +1,165 @@
+package com.taxidata.api.export;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams rides out of PostgreSQL through a server-side cursor.
+ * <p>
+ * The query runs in a read-only transaction, so the driver fetches {@code fetch-size} rows at a time
+ * instead of materializing the result. Each row goes straight to the response stream; a slow client
+ * blocks the servlet write, which in turn stops the next fetch, so memory stays at one fetch batch
+ * plus the writer buffers whatever the export size. Each export holds a pooled connection for its
+ * whole duration, hence the concurrency limit.
+ */
+@Service
+@RequiredArgsConstructor
+public class RideExportService {
+    private static final Logger logger = LoggerFactory.getLogger(RideExportService.class);
+
+    private static final String COLUMNS = "id, latitude, longitude, place, end_latitude, end_longitude, end_place, " +
+            "important_places, start_date, end_date, price, distance_km";
+
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${api.export.fetch-size:2000}")
+    private int fetchSize;
+
+    @Value("${api.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private Semaphore slots;
+    private final Map<ExportFormat, Counter> rows = new EnumMap<>(ExportFormat.class);
+
+    @PostConstruct
+    public void init() {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.slots = new Semaphore(maxConcurrent);
+        for (ExportFormat format : ExportFormat.values()) {
+            rows.put(format, Counter.builder("taxi.rides.export.rows")
+                    .description("Rides written by exports; its rate is the export throughput")
+                    .tag("format", format.extension())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("taxi.rides.export.active", slots, s -> maxConcurrent - s.availablePermits())
+                .description("Exports currently streaming")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves an export slot and returns the body that streams the rides, or empty when
+     * {@code max-concurrent} exports are already running. The slot is released when the body ends.
+     */
+    public Optional<StreamingResponseBody> export(RideExportFilter filter, ExportFormat format, boolean gzip) {
+        if (!slots.tryAcquire()) {
+            return Optional.empty();
+        }
+        return Optional.of(out -> {
+            try {
+                stream(filter, format, gzip ? new GZIPOutputStream(out, 64 * 1024, true) : out);
+            } finally {
+                slots.release();
+            }
+        });
+    }
+
+    private void stream(RideExportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        List<Object> args = new ArrayList<>(4);
+        String sql = "SELECT " + COLUMNS + " FROM taxi_rides" + where(filter, args) + " ORDER BY id";
+        RideRowWriter writer = RideRowWriter.of(format, out);
+        Counter counter = rows.get(format);
+        long[] written = new long[1];
+        long start = System.nanoTime();
+        String outcome = "aborted";
+        try {
+            writer.begin();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(sql, rs -> {
+                try {
+                    writer.row(rs);
+                    if (++written[0] % fetchSize == 0) {
+                        // Push each fetched batch to the client instead of letting buffers fill up
+                        writer.flush();
+                        counter.increment(fetchSize);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray()));
+            writer.end();
+            if (out instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            outcome = "completed";
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the transaction is rolled back and the cursor closed
+            logger.warn("⚠ Export aborted after {} rides: {}", written[0], e.getCause().getMessage());
+            throw e.getCause();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            counter.increment(written[0] % fetchSize);
+            Timer.builder("taxi.rides.export")
+                    .description("Duration of ride exports")
+                    .tag("format", format.extension())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            if ("completed".equals(outcome)) {
+                logger.info("✔ Exported {} rides as {} in {} ms ({} rides/s)", written[0], format.extension(),
+                        elapsed / 1_000_000, elapsed > 0 ? written[0] * 1_000_000_000L / elapsed : written[0]);
+            }
+        }
+    }
+
+    private static String where(RideExportFilter filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>(4);
+        if (filter.getMinPrice() != null) {
+            conditions.add("price >= ?");
+            args.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add("price <= ?");
+            args.add(filter.getMaxPrice());
+        }
+        if (filter.getFrom() != null) {
+            conditions.add("start_date >= ?");
+            args.add(filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            conditions.add("start_date < ?");
+            args.add(filter.getTo());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+}
@@ -0,0 +1,37 @@
+package com.taxidata.api.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes export rows straight from the JDBC cursor, without building a DTO per ride. Columns are
+ * read by the names selected in {@link RideExportService}.
+ */
+interface RideRowWriter {
+
+    // Same pattern as the @JsonFormat of TaxiRideDTO
+    DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    void begin() throws IOException;
+
+    void row(ResultSet rs) throws SQLException, IOException;
+
+    void flush() throws IOException;
+
+    void end() throws IOException;
+
+    static RideRowWriter of(ExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonRideRowWriter(out);
+            case CSV -> new CsvRideRowWriter(out);
+        };
+    }
+
+    static Double getDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+}
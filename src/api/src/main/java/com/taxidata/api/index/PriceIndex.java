@@ -0,0 +1,406 @@
+package com.taxidata.api.index;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ride IDs in {@code (price, id)} order, held in parallel primitive arrays: 16 bytes per ride and no
+ * object per entry.
+ * <p>
+ * A large base run is only replaced whole; new rides go to a small sorted delta run, rewritten into a
+ * spare buffer on every add and swapped in under the write lock, so readers never wait for more than
+ * the swap. When the delta is full it is merged with the base into new arrays. Range counts are two
+ * binary searches per run, and the ride at any offset of a range is found with one more binary search
+ * over the split between the runs, so a page costs O(log n + size) however deep it is.
+ * <p>
+ * Entries are never removed; the owner rebuilds the index to drop deleted rides. Adds are serialized
+ * internally, reads run concurrently.
+ */
+public class PriceIndex {
+
+    private final int maxRides;
+    private final Lock writer = new ReentrantLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private double[] basePrices;
+    private long[] baseIds;
+    private int baseSize;
+
+    private double[] deltaPrices;
+    private long[] deltaIds;
+    private int deltaSize;
+
+    private double[] sparePrices;
+    private long[] spareIds;
+
+    /**
+     * Result of a range read: the number of rides in the range and the IDs of the requested slice.
+     */
+    public record Slice(long total, long[] ids) {
+    }
+
+    private PriceIndex(double[] basePrices, long[] baseIds, int baseSize, int deltaCapacity, int maxRides) {
+        this.basePrices = basePrices;
+        this.baseIds = baseIds;
+        this.baseSize = baseSize;
+        this.deltaPrices = new double[deltaCapacity];
+        this.deltaIds = new long[deltaCapacity];
+        this.sparePrices = new double[deltaCapacity];
+        this.spareIds = new long[deltaCapacity];
+        this.maxRides = maxRides;
+    }
+
+    public static Builder builder(int maxRides) {
+        return new Builder(maxRides);
+    }
+
+    /**
+     * Adds committed rides; rides already present are skipped.
+     *
+     * @return false, leaving the index unchanged, if the rides would not fit in {@code maxRides}
+     */
+    public boolean add(long[] ids, double[] prices, int count) {
+        writer.lock();
+        try {
+            double[] batchPrices = Arrays.copyOf(prices, count);
+            long[] batchIds = Arrays.copyOf(ids, count);
+            sort(batchPrices, batchIds, 0, count);
+            int fresh = 0;
+            for (int i = 0; i < count; i++) {
+                if (indexOf(basePrices, baseIds, baseSize, batchPrices[i], batchIds[i]) < 0) {
+                    batchPrices[fresh] = batchPrices[i];
+                    batchIds[fresh++] = batchIds[i];
+                }
+            }
+
+            if (deltaSize + fresh <= deltaPrices.length) {
+                int merged = merge(deltaPrices, deltaIds, deltaSize, batchPrices, batchIds, fresh, sparePrices, spareIds);
+                lock.writeLock().lock();
+                try {
+                    double[] prices0 = deltaPrices;
+                    long[] ids0 = deltaIds;
+                    deltaPrices = sparePrices;
+                    deltaIds = spareIds;
+                    deltaSize = merged;
+                    sparePrices = prices0;
+                    spareIds = ids0;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                return true;
+            }
+
+            // Delta full: fold delta and batch into a new base
+            if ((long) baseSize + deltaSize + fresh > maxRides) {
+                return false;
+            }
+            double[] runPrices = new double[deltaSize + fresh];
+            long[] runIds = new long[deltaSize + fresh];
+            int run = merge(deltaPrices, deltaIds, deltaSize, batchPrices, batchIds, fresh, runPrices, runIds);
+            double[] newPrices = new double[baseSize + run];
+            long[] newIds = new long[baseSize + run];
+            int merged = merge(basePrices, baseIds, baseSize, runPrices, runIds, run, newPrices, newIds);
+            lock.writeLock().lock();
+            try {
+                basePrices = newPrices;
+                baseIds = newIds;
+                baseSize = merged;
+                deltaSize = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return true;
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return baseSize + deltaSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Heap held by the arrays, spare buffer included.
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return 16L * (basePrices.length + deltaPrices.length + sparePrices.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(double minPrice, double maxPrice) {
+        lock.readLock().lock();
+        try {
+            return countIn(basePrices, baseSize, minPrice, maxPrice) + countIn(deltaPrices, deltaSize, minPrice, maxPrice);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rides {@code offset} to {@code offset + limit} of the price range, in (price, id) order, with the
+     * range count.
+     */
+    public Slice page(double minPrice, double maxPrice, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int baseFrom = firstAtLeast(basePrices, baseSize, minPrice);
+            int baseTo = firstAbove(basePrices, baseSize, maxPrice);
+            int deltaFrom = firstAtLeast(deltaPrices, deltaSize, minPrice);
+            int deltaTo = firstAbove(deltaPrices, deltaSize, maxPrice);
+            long total = Math.max(0, baseTo - baseFrom) + Math.max(0, deltaTo - deltaFrom);
+            if (offset >= total) {
+                return new Slice(total, new long[0]);
+            }
+            int k = (int) offset;
+            int fromBase = split(baseFrom, baseTo, deltaFrom, deltaTo, k);
+            return new Slice(total, collect(baseFrom + fromBase, baseTo, deltaFrom + k - fromBase, deltaTo, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} rides strictly after {@code (afterPrice, afterId)} and at most {@code maxPrice},
+     * in (price, id) order.
+     */
+    public long[] after(double afterPrice, long afterId, double maxPrice, int limit) {
+        lock.readLock().lock();
+        try {
+            return collect(firstAfter(basePrices, baseIds, baseSize, afterPrice, afterId),
+                    firstAbove(basePrices, baseSize, maxPrice),
+                    firstAfter(deltaPrices, deltaIds, deltaSize, afterPrice, afterId),
+                    firstAbove(deltaPrices, deltaSize, maxPrice),
+                    limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of base entries among the first k entries of base[baseFrom, baseTo) merged with delta[deltaFrom, deltaTo)
+    private int split(int baseFrom, int baseTo, int deltaFrom, int deltaTo, int k) {
+        int lo = Math.max(0, k - Math.max(0, deltaTo - deltaFrom));
+        int hi = Math.min(k, Math.max(0, baseTo - baseFrom));
+        while (lo < hi) {
+            int i = (lo + hi) >>> 1;
+            int d = deltaFrom + k - i - 1;
+            if (compare(basePrices[baseFrom + i], baseIds[baseFrom + i], deltaPrices[d], deltaIds[d]) < 0) {
+                lo = i + 1;
+            } else {
+                hi = i;
+            }
+        }
+        return lo;
+    }
+
+    private long[] collect(int b, int baseTo, int d, int deltaTo, int limit) {
+        int available = Math.max(0, baseTo - b) + Math.max(0, deltaTo - d);
+        long[] ids = new long[Math.min(limit, available)];
+        for (int n = 0; n < ids.length; n++) {
+            if (d >= deltaTo || (b < baseTo && compare(basePrices[b], baseIds[b], deltaPrices[d], deltaIds[d]) < 0)) {
+                ids[n] = baseIds[b++];
+            } else {
+                ids[n] = deltaIds[d++];
+            }
+        }
+        return ids;
+    }
+
+    private static long countIn(double[] prices, int size, double minPrice, double maxPrice) {
+        return Math.max(0, firstAbove(prices, size, maxPrice) - firstAtLeast(prices, size, minPrice));
+    }
+
+    private static int firstAtLeast(double[] prices, int size, double price) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[mid] < price) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int firstAbove(double[] prices, int size, double price) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (prices[mid] <= price) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int firstAfter(double[] prices, long[] ids, int size, double price, long id) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(prices[mid], ids[mid], price, id) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int indexOf(double[] prices, long[] ids, int size, double price, long id) {
+        int i = firstAfter(prices, ids, size, price, id) - 1;
+        return i >= 0 && prices[i] == price && ids[i] == id ? i : -1;
+    }
+
+    private static int compare(double price1, long id1, double price2, long id2) {
+        int byPrice = Double.compare(price1, price2);
+        return byPrice != 0 ? byPrice : Long.compare(id1, id2);
+    }
+
+    // Merges two sorted runs into out, dropping equal entries; returns the merged length
+    private static int merge(double[] aPrices, long[] aIds, int aSize, double[] bPrices, long[] bIds, int bSize,
+                             double[] outPrices, long[] outIds) {
+        int a = 0;
+        int b = 0;
+        int n = 0;
+        while (a < aSize || b < bSize) {
+            int order = a >= aSize ? 1 : b >= bSize ? -1 : compare(aPrices[a], aIds[a], bPrices[b], bIds[b]);
+            double price;
+            long id;
+            if (order <= 0) {
+                price = aPrices[a];
+                id = aIds[a++];
+                if (order == 0) {
+                    b++;
+                }
+            } else {
+                price = bPrices[b];
+                id = bIds[b++];
+            }
+            if (n == 0 || outPrices[n - 1] != price || outIds[n - 1] != id) {
+                outPrices[n] = price;
+                outIds[n++] = id;
+            }
+        }
+        return n;
+    }
+
+    // Quicksort of the parallel arrays by (price, id), insertion sort for short ranges
+    static void sort(double[] prices, long[] ids, int from, int to) {
+        while (to - from > 16) {
+            int mid = (from + to) >>> 1;
+            double pivotPrice = prices[mid];
+            long pivotId = ids[mid];
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (compare(prices[i], ids[i], pivotPrice, pivotId) < 0) {
+                    i++;
+                }
+                while (compare(prices[j], ids[j], pivotPrice, pivotId) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(prices, ids, i++, j--);
+                }
+            }
+            // Recurse into the shorter side to bound the stack
+            if (j - from < to - i) {
+                sort(prices, ids, from, j + 1);
+                from = i;
+            } else {
+                sort(prices, ids, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(prices[j], ids[j], prices[j - 1], ids[j - 1]) < 0; j--) {
+                swap(prices, ids, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] prices, long[] ids, int i, int j) {
+        double price = prices[i];
+        prices[i] = prices[j];
+        prices[j] = price;
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    /**
+     * Collects rides for a new index. Rides appended in (price, id) order, as a scan ordered by the
+     * {@code (price, id)} index delivers them, are used as they are; anything else is sorted once.
+     */
+    public static final class Builder {
+        private final int maxRides;
+        private double[] prices = new double[1024];
+        private long[] ids = new long[1024];
+        private int size;
+        private boolean sorted = true;
+
+        private Builder(int maxRides) {
+            this.maxRides = maxRides;
+        }
+
+        /**
+         * @return false if the ride would exceed {@code maxRides}
+         */
+        public boolean append(long id, double price) {
+            if (size == maxRides) {
+                return false;
+            }
+            if (size == prices.length) {
+                int capacity = (int) Math.min(maxRides, size + (size >> 1));
+                prices = Arrays.copyOf(prices, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+            }
+            if (size > 0 && compare(prices[size - 1], ids[size - 1], price, id) > 0) {
+                sorted = false;
+            }
+            prices[size] = price;
+            ids[size++] = id;
+            return true;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Appended rides, as (ids, prices) views of the first {@link #size()} entries.
+         */
+        long[] ids() {
+            return ids;
+        }
+
+        double[] prices() {
+            return prices;
+        }
+
+        public PriceIndex build(int deltaCapacity) {
+            if (!sorted) {
+                sort(prices, ids, 0, size);
+            }
+            // In place: every entry is read before its slot can be overwritten
+            int unique = merge(prices, ids, size, prices, ids, 0, prices, ids);
+            return new PriceIndex(prices, ids, unique, deltaCapacity, maxRides);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.taxidata.api.index;
+
+import com.taxidata.common.events.CommittedRides;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process {@link PriceIndex} of every ride, answering price-range counts and the IDs of any page
+ * without a query.
+ * <p>
+ * It is loaded on startup by a scan ordered by {@code idx_taxi_rides_price_id}, so rows arrive sorted
+ * and are appended straight into the arrays, and kept current from the {@code id:price} pairs the
+ * processor publishes for each committed batch. Rides committed while a load runs are buffered and added
+ * to the new index before it replaces the old one. Rides removed by partition retention stay in the
+ * index until the next periodic reload; their IDs simply do not resolve. Past {@code max-rides} the
+ * index is dropped and callers fall back to the database until a reload fits again.
+ * <p>
+ * The last sequence number of every publisher is tracked. A skipped number means a committed batch
+ * never arrived, for example while the subscription was reconnecting, so totals and pages from the
+ * index would silently miss its rides: the index is then dropped, callers fall back to the database,
+ * and a reload that starts after the gap replaces it.
+ */
+@Component
+@RequiredArgsConstructor
+public class RidePriceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RidePriceIndex.class);
+
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${api.price-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${api.price-index.max-rides:10000000}")
+    private int maxRides;
+
+    @Value("${api.price-index.delta-size:131072}")
+    private int deltaSize;
+
+    @Value("${api.price-index.fetch-size:10000}")
+    private int fetchSize;
+
+    private final Lock reloads = new ReentrantLock();
+    private final Lock writes = new ReentrantLock();
+    private volatile PriceIndex index;
+    private PriceIndex.Builder pending;
+    /** Last sequence number seen per publisher; guarded by {@link #writes} */
+    private final Map<String, Long> sequences = new HashMap<>();
+    /** Set on a gap, cleared when a reload starts; a reload that sees it set again is discarded */
+    private volatile boolean stale;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private Timer loadTimer;
+    private Counter gaps;
+
+    @PostConstruct
+    public void init() {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.loadTimer = Timer.builder("taxi.price_index.load")
+                .description("Time taken to load the price index from the database")
+                .register(meterRegistry);
+        this.gaps = Counter.builder("taxi.price_index.gaps")
+                .description("Commit messages found missing, each dropping the price index until it is reloaded")
+                .register(meterRegistry);
+        Gauge.builder("taxi.price_index.rides", this, self -> self.index != null ? self.index.size() : 0)
+                .description("Rides in the in-memory price index")
+                .register(meterRegistry);
+        Gauge.builder("taxi.price_index.memory", this, self -> self.index != null ? self.index.memoryBytes() : 0)
+                .description("Heap held by the price index arrays")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${api.price-index.reload-interval-ms:3600000}",
+            initialDelayString = "${api.price-index.reload-interval-ms:3600000}")
+    public void reload() {
+        // A reload still running when the next one is due is left to finish
+        if (!enabled || !reloads.tryLock()) {
+            return;
+        }
+        try {
+            reloadExclusively();
+        } finally {
+            reloads.unlock();
+        }
+    }
+
+    /**
+     * Reloads soon after a missed commit message rather than at the next periodic reload.
+     */
+    @Scheduled(fixedDelayString = "${api.price-index.gap-reload-delay-ms:5000}")
+    public void reloadIfStale() {
+        if (stale) {
+            reload();
+        }
+    }
+
+    private void reloadExclusively() {
+        boolean wasStale;
+        writes.lock();
+        try {
+            pending = PriceIndex.builder(maxRides);
+            wasStale = stale;
+            stale = false;
+        } finally {
+            writes.unlock();
+        }
+
+        PriceIndex loaded = null;
+        boolean failed = false;
+        try {
+            loaded = loadTimer.recordCallable(this::scan);
+        } catch (DataAccessException e) {
+            logger.warn("⚠ Could not load the price index, keeping the current one: {}", e.getMessage());
+            failed = true;
+        } catch (Exception e) {
+            logger.error("✘ Failed to load the price index", e);
+            failed = true;
+        }
+
+        writes.lock();
+        try {
+            if (failed) {
+                stale |= wasStale;
+                return;
+            }
+            if (stale) {
+                // The scan may have missed the rides of a batch lost while it ran; the next reload covers them
+                logger.warn("⚠ Commit messages were missed during the price index load, reloading again");
+                return;
+            }
+            if (loaded != null && loaded.add(pending.ids(), pending.prices(), pending.size())) {
+                index = loaded;
+                logger.info("↻ Loaded {} rides into the price index", loaded.size());
+            } else {
+                disable();
+            }
+        } finally {
+            pending = null;
+            writes.unlock();
+        }
+    }
+
+    /**
+     * Adds the rides of a committed batch. Called before cached ranges are evicted, so that a page
+     * recomputed after the eviction already sees them.
+     */
+    public void add(CommittedRides committed) {
+        writes.lock();
+        try {
+            if (!inSequence(committed)) {
+                gaps.increment();
+                stale = true;
+                if (index != null) {
+                    logger.warn("⚠ Missed commit messages of {}, answering from the database until the price index is reloaded",
+                            committed.publisher());
+                }
+                index = null;
+            }
+            add(committed.ids(), committed.prices());
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    void add(long[] ids, double[] prices) {
+        writes.lock();
+        try {
+            if (pending != null) {
+                for (int i = 0; i < ids.length; i++) {
+                    pending.append(ids[i], prices[i]);
+                }
+            }
+            PriceIndex current = index;
+            if (current != null && !current.add(ids, prices, ids.length)) {
+                disable();
+            }
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    /**
+     * The current index, or null while it is not loaded.
+     */
+    public PriceIndex current() {
+        return index;
+    }
+
+    /**
+     * Whether a page request can be answered in the index order: paged, and unsorted or sorted by
+     * price and then ID, both ascending.
+     */
+    public static boolean supports(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return false;
+        }
+        Iterator<Sort.Order> orders = pageable.getSort().iterator();
+        if (!orders.hasNext()) {
+            return true;
+        }
+        Sort.Order first = orders.next();
+        if (!first.getProperty().equals("price") || !first.isAscending()) {
+            return false;
+        }
+        if (!orders.hasNext()) {
+            return true;
+        }
+        Sort.Order second = orders.next();
+        return second.getProperty().equals("id") && second.isAscending() && !orders.hasNext();
+    }
+
+    private PriceIndex scan() {
+        PriceIndex.Builder builder = PriceIndex.builder(maxRides);
+        boolean fits = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            boolean[] full = {false};
+            jdbcTemplate.query("SELECT id, price FROM taxi_rides ORDER BY price, id", rs -> {
+                if (!full[0] && !builder.append(rs.getLong(1), rs.getDouble(2))) {
+                    full[0] = true;
+                }
+            });
+            return !full[0];
+        }));
+        if (!fits) {
+            logger.warn("⚠ More than {} rides, the price index is disabled until they fit", maxRides);
+            return null;
+        }
+        return builder.build(deltaSize);
+    }
+
+    // The first message of a publisher only sets its baseline; late or repeated numbers are no gap
+    private boolean inSequence(CommittedRides committed) {
+        if (committed.publisher() == null) {
+            return true;
+        }
+        Long previous = sequences.get(committed.publisher());
+        if (previous != null && committed.sequence() <= previous) {
+            return true;
+        }
+        sequences.put(committed.publisher(), committed.sequence());
+        return previous == null || committed.follows(previous);
+    }
+
+    private void disable() {
+        if (index != null) {
+            logger.warn("⚠ Price index exceeded {} rides, falling back to the database", maxRides);
+        }
+        index = null;
+    }
+}
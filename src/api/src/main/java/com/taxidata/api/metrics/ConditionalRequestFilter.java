@@ -0,0 +1,125 @@
+package com.taxidata.api.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts responses carrying an {@code ETag} as {@code taxi.http.conditional.requests{uri,result}},
+ * where result is {@code not_modified}, {@code modified} (a validator was sent but no longer matched)
+ * or {@code unconditional}. The body size of each 200 is remembered per tag, so that a later 304 for
+ * that tag adds the bytes it did not resend to {@code taxi.http.etag.saved.bytes{uri}}. Sizes are the
+ * uncompressed bodies; a 304 for a tag this replica never served, or no longer remembers, is counted
+ * without savings.
+ */
+public class ConditionalRequestFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Long> bodySizes;
+
+    public ConditionalRequestFilter(MeterRegistry meterRegistry, long trackedTags) {
+        this.meterRegistry = meterRegistry;
+        this.bodySizes = Caffeine.newBuilder().maximumSize(trackedTags).build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CountingResponse counting = new CountingResponse(response);
+        chain.doFilter(request, counting);
+
+        String etag = response.getHeader(HttpHeaders.ETAG);
+        if (etag == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        int status = response.getStatus();
+        if (status == HttpServletResponse.SC_NOT_MODIFIED) {
+            requests(uri, "not_modified").increment();
+            Long saved = bodySizes.getIfPresent(etag);
+            if (saved != null) {
+                Counter.builder("taxi.http.etag.saved.bytes")
+                        .description("Response body bytes not resent thanks to a 304")
+                        .baseUnit("bytes")
+                        .tag("uri", uri)
+                        .register(meterRegistry)
+                        .increment(saved);
+            }
+        } else if (status == HttpServletResponse.SC_OK) {
+            bodySizes.put(etag, counting.bytes);
+            requests(uri, request.getHeader(HttpHeaders.IF_NONE_MATCH) != null ? "modified" : "unconditional").increment();
+        }
+    }
+
+    private Counter requests(String uri, String result) {
+        return Counter.builder("taxi.http.conditional.requests")
+                .description("Responses with an ETag, by whether the client's validator matched")
+                .tag("uri", uri)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static final class CountingResponse extends HttpServletResponseWrapper {
+        private ServletOutputStream stream;
+        private long bytes;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        delegate.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        delegate.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        delegate.setWriteListener(listener);
+                    }
+                };
+            }
+            return stream;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.taxidata.api.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Records the heap bytes allocated by the request thread between handler entry and completion, as
+ * {@code taxi.http.allocated.bytes{uri}}. Uses HotSpot's per-thread allocation counter, which is a
+ * cheap TLAB read; on JVMs without it the interceptor does nothing. Async requests (exports) are
+ * skipped, since their work continues on another thread, and so are requests on virtual threads,
+ * which have no such counter.
+ */
+public class RequestAllocationInterceptor implements AsyncHandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(RequestAllocationInterceptor.class);
+    private static final String START_ATTRIBUTE = RequestAllocationInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+    private final com.sun.management.ThreadMXBean threads;
+
+    public RequestAllocationInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean hotspot && hotspot.isThreadAllocatedMemorySupported()) {
+            hotspot.setThreadAllocatedMemoryEnabled(true);
+            this.threads = hotspot;
+        } else {
+            logger.warn("⚠ Thread allocation accounting unavailable, taxi.http.allocated.bytes will not be recorded");
+            this.threads = null;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (threads != null && request.getDispatcherType() != DispatcherType.ASYNC) {
+            request.setAttribute(START_ATTRIBUTE, threads.getCurrentThreadAllocatedBytes());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.removeAttribute(START_ATTRIBUTE);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (threads == null || !(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        long end = threads.getCurrentThreadAllocatedBytes();
+        if (start < 0 || end < 0) {
+            return;
+        }
+        long allocated = end - start;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("taxi.http.allocated.bytes")
+                .description("Heap bytes allocated by the request thread per request")
+                .baseUnit("bytes")
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(allocated);
+    }
+}
@@ -2,13 +2,16 @@ package com.taxidata.api.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.taxidata.api.dto.TaxiRideDTO;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -39,11 +42,16 @@ public class TaxiRide implements Serializable {
     })
     private Location end;
 
-    @ElementCollection
-    @CollectionTable(
-            name = "important_places",
-            joinColumns = @JoinColumn(name = "ride_id")
-    )
+    // GeoGrid cells, written by the processor
+    @Column(name = "start_cell")
+    private Long startCell;
+
+    @Column(name = "end_cell")
+    private Long endCell;
+
+    // Stored inline as a jsonb array, so a ride is written and read as a single row
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "important_places", columnDefinition = "jsonb")
     @Builder.Default
     private List<Location> importantPlaces = new ArrayList<>();
 
@@ -119,4 +127,20 @@ public class TaxiRide implements Serializable {
     public boolean isInProgress() {
         return startDate != null && endDate == null;
     }
+
+    public TaxiRideDTO toDTO() {
+        return TaxiRideDTO.builder()
+                .id(id)
+                .start(start)
+                .end(end)
+                .importantPlaces(new ArrayList<>(importantPlaces))
+                .startDate(startDate)
+                .endDate(endDate)
+                .price(price)
+                .distanceKm(distanceKm)
+                .durationInMinutes(getDurationInMinutes())
+                .inProgress(isInProgress())
+                .version(version)
+                .build();
+    }
 }
\ No newline at end of file
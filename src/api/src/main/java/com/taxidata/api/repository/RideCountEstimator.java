@@ -0,0 +1,84 @@
+package com.taxidata.api.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Approximate totals of a price-range search, for pages that do not need an exact count.
+ * <p>
+ * {@link #plannerEstimate} asks the planner for its row estimate without running the query. It comes
+ * from the column statistics kept by ANALYZE and has no error bound. {@link #sampleEstimate} counts the
+ * matches in a {@code TABLESAMPLE SYSTEM} block sample of {@code sample-percent} and scales the count
+ * up. Treating the sampled rows as independent, the relative half-width of the 95% interval is
+ * {@code 1.96 * sqrt((1 - f) / k)} for {@code k} matches at sampling fraction {@code f}. Prices do not
+ * follow insert order, so sampling whole blocks hardly widens it. Below {@code min-sample-rows} matches
+ * the bound is too wide to be useful; the caller counts exactly instead, which is cheap for a range
+ * that small.
+ */
+@Component
+@RequiredArgsConstructor
+public class RideCountEstimator {
+
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${api.count.sample-percent:1.0}")
+    private double samplePercent;
+
+    @Value("${api.count.min-sample-rows:100}")
+    private int minSampleRows;
+
+    public record Estimate(long total, Double errorBound) {
+    }
+
+    /**
+     * @param from inclusive start-date bound, or null
+     * @param to   exclusive start-date bound, or null
+     */
+    public Estimate plannerEstimate(double minPrice, double maxPrice, LocalDateTime from, LocalDateTime to) {
+        // Literals rather than parameters: a generic plan of a prepared statement would estimate
+        // without the bounds. All values are typed, so nothing from the request reaches the SQL as text.
+        String where = "price >= " + minPrice + " AND price <= " + maxPrice
+                + (from != null ? " AND start_date >= '" + from + "'::timestamp" : "")
+                + (to != null ? " AND start_date < '" + to + "'::timestamp" : "");
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN SELECT 1 FROM taxi_rides WHERE " + where, String.class);
+        Matcher rows = PLAN_ROWS.matcher(plan.isEmpty() ? "" : plan.get(0));
+        if (!rows.find()) {
+            throw new IllegalStateException("No row estimate in plan: " + plan);
+        }
+        return new Estimate(Long.parseLong(rows.group(1)), null);
+    }
+
+    /**
+     * Empty when the sample holds fewer than {@code min-sample-rows} matches.
+     */
+    public Optional<Estimate> sampleEstimate(double minPrice, double maxPrice, LocalDateTime from, LocalDateTime to) {
+        List<Object> args = new ArrayList<>(List.of(samplePercent, minPrice, maxPrice));
+        StringBuilder sql = new StringBuilder("SELECT count(*) FROM taxi_rides TABLESAMPLE SYSTEM (?) " +
+                "WHERE price >= ? AND price <= ?");
+        if (from != null) {
+            sql.append(" AND start_date >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND start_date < ?");
+            args.add(to);
+        }
+        Long matches = jdbcTemplate.queryForObject(sql.toString(), Long.class, args.toArray());
+        if (matches == null || matches < minSampleRows) {
+            return Optional.empty();
+        }
+        double fraction = samplePercent / 100;
+        return Optional.of(new Estimate(Math.round(matches / fraction), 1.96 * Math.sqrt((1 - fraction) / matches)));
+    }
+}
@@ -1,19 +1,158 @@
 package com.taxidata.api.repository;
 
+import com.taxidata.api.dto.TaxiRideDTO;
 import com.taxidata.api.model.TaxiRide;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 public interface TaxiRideRepository extends JpaRepository<TaxiRide, Long> {
 
-    @Query("SELECT t FROM TaxiRide t WHERE " +
+    /**
+     * Read path: the queries below build {@link TaxiRideDTO}s straight from the result rows. Nothing
+     * enters the persistence context, so there are no entity snapshots to dirty-check and no second
+     * copy into a DTO. {@code importantPlaces} is an inline jsonb column and comes with the same row.
+     */
+    String RIDE_ROW = "SELECT new com.taxidata.api.dto.TaxiRideDTO(t.id, t.start, t.end, t.importantPlaces, " +
+            "t.startDate, t.endDate, t.price, t.distanceKm, t.version) FROM TaxiRide t ";
+
+    @Query(value = RIDE_ROW + "WHERE " +
             "(:minPrice IS NULL OR t.price >= :minPrice) AND " +
-            "(:maxPrice IS NULL OR t.price <= :maxPrice)")
-    Page<TaxiRide> findByPriceRange(
+            "(:maxPrice IS NULL OR t.price <= :maxPrice)",
+            countQuery = "SELECT COUNT(t) FROM TaxiRide t WHERE " +
+                    "(:minPrice IS NULL OR t.price >= :minPrice) AND " +
+                    "(:maxPrice IS NULL OR t.price <= :maxPrice)")
+    Page<TaxiRideDTO> findRowsByPriceRange(
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            Pageable pageable);
+
+    /**
+     * Price range within a start-date window. The window is a plain {@code >= / <} pair, never
+     * {@code :from IS NULL OR ...}, so PostgreSQL can prune the monthly partitions of taxi_rides.
+     */
+    @Query(value = RIDE_ROW + "WHERE " +
+            "t.price >= :minPrice AND t.price <= :maxPrice AND " +
+            "t.startDate >= :from AND t.startDate < :to",
+            countQuery = "SELECT COUNT(t) FROM TaxiRide t WHERE " +
+                    "t.price >= :minPrice AND t.price <= :maxPrice AND " +
+                    "t.startDate >= :from AND t.startDate < :to")
+    Page<TaxiRideDTO> findRowsByPriceRangeAndStartDate(
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
+
+    /**
+     * Count-free variants of the two searches above: Spring Data fetches {@code size + 1} rows to tell
+     * whether a next page exists and runs no count query.
+     */
+    @Query(RIDE_ROW + "WHERE t.price >= :minPrice AND t.price <= :maxPrice")
+    Slice<TaxiRideDTO> findSliceByPriceRange(
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            Pageable pageable);
+
+    @Query(RIDE_ROW + "WHERE " +
+            "t.price >= :minPrice AND t.price <= :maxPrice AND " +
+            "t.startDate >= :from AND t.startDate < :to")
+    Slice<TaxiRideDTO> findSliceByPriceRangeAndStartDate(
             @Param("minPrice") Double minPrice,
             @Param("maxPrice") Double maxPrice,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
             Pageable pageable);
-}
\ No newline at end of file
+
+    @Query("SELECT COUNT(t) FROM TaxiRide t WHERE t.price >= :minPrice AND t.price <= :maxPrice")
+    long countByPriceRange(@Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice);
+
+    @Query("SELECT COUNT(t) FROM TaxiRide t WHERE " +
+            "t.price >= :minPrice AND t.price <= :maxPrice AND " +
+            "t.startDate >= :from AND t.startDate < :to")
+    long countByPriceRangeAndStartDate(
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    @Query(RIDE_ROW + "WHERE t.id IN :ids")
+    List<TaxiRideDTO> findRowsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * First page of a keyset search, ordered by (price, id). Only {@code limit.getPageSize()} is used.
+     */
+    @Query(RIDE_ROW + "WHERE " +
+            "t.price >= :minPrice AND t.price <= :maxPrice " +
+            "ORDER BY t.price, t.id")
+    List<TaxiRideDTO> findFirstByPriceRange(
+            @Param("minPrice") Double minPrice,
+            @Param("maxPrice") Double maxPrice,
+            Pageable limit);
+
+    /**
+     * Rides strictly after (afterPrice, afterId) in (price, id) order, served by idx_taxi_rides_price_id.
+     */
+    @Query(RIDE_ROW + "WHERE " +
+            "t.price >= :afterPrice AND t.price <= :maxPrice AND " +
+            "(t.price > :afterPrice OR t.id > :afterId) " +
+            "ORDER BY t.price, t.id")
+    List<TaxiRideDTO> findByPriceRangeAfter(
+            @Param("afterPrice") Double afterPrice,
+            @Param("afterId") Long afterId,
+            @Param("maxPrice") Double maxPrice,
+            Pageable limit);
+
+    /**
+     * Rides starting inside a {@link com.taxidata.common.geo.GeoArea}, ordered by (start_cell, id) and
+     * served by idx_taxi_rides_start_cell_id. The cells narrow the scan; the coordinate predicates
+     * then drop rides in the covered cells but outside the area.
+     */
+    @Query(RIDE_ROW + "WHERE t.startCell IN :cells AND (t.startCell, t.id) > (:afterCell, :afterId) AND " +
+            "t.start.latitude BETWEEN :minLat AND :maxLat AND t.start.longitude BETWEEN :minLon AND :maxLon AND " +
+            "(t.start.latitude - :lat) * (t.start.latitude - :lat) + " +
+            "(t.start.longitude - :lon) * (t.start.longitude - :lon) * :lonScale <= :maxDistanceSquared " +
+            "ORDER BY t.startCell, t.id")
+    List<TaxiRideDTO> findStartingIn(
+            @Param("cells") Collection<Long> cells,
+            @Param("afterCell") long afterCell,
+            @Param("afterId") long afterId,
+            @Param("minLat") double minLatitude,
+            @Param("maxLat") double maxLatitude,
+            @Param("minLon") double minLongitude,
+            @Param("maxLon") double maxLongitude,
+            @Param("lat") double centerLatitude,
+            @Param("lon") double centerLongitude,
+            @Param("lonScale") double longitudeScale,
+            @Param("maxDistanceSquared") double maxDistanceSquared,
+            Pageable limit);
+
+    /**
+     * Same as {@link #findStartingIn} for the end location, served by idx_taxi_rides_end_cell_id.
+     */
+    @Query(RIDE_ROW + "WHERE t.endCell IN :cells AND (t.endCell, t.id) > (:afterCell, :afterId) AND " +
+            "t.end.latitude BETWEEN :minLat AND :maxLat AND t.end.longitude BETWEEN :minLon AND :maxLon AND " +
+            "(t.end.latitude - :lat) * (t.end.latitude - :lat) + " +
+            "(t.end.longitude - :lon) * (t.end.longitude - :lon) * :lonScale <= :maxDistanceSquared " +
+            "ORDER BY t.endCell, t.id")
+    List<TaxiRideDTO> findEndingIn(
+            @Param("cells") Collection<Long> cells,
+            @Param("afterCell") long afterCell,
+            @Param("afterId") long afterId,
+            @Param("minLat") double minLatitude,
+            @Param("maxLat") double maxLatitude,
+            @Param("minLon") double minLongitude,
+            @Param("maxLon") double maxLongitude,
+            @Param("lat") double centerLatitude,
+            @Param("lon") double centerLongitude,
+            @Param("lonScale") double longitudeScale,
+            @Param("maxDistanceSquared") double maxDistanceSquared,
+            Pageable limit);
+}
@@ -1,49 +1,411 @@
 package com.taxidata.api.service;
 
+import com.taxidata.api.cache.PriceRangeInvalidator;
+import com.taxidata.api.cache.PriceRangeKeys;
+import com.taxidata.api.cache.TwoTierCache;
+import com.taxidata.api.dto.CellContinuationToken;
+import com.taxidata.api.dto.ContinuationToken;
+import com.taxidata.api.dto.CountMode;
+import com.taxidata.api.dto.CursorPageDTO;
 import com.taxidata.api.dto.PageDTO;
 import com.taxidata.api.dto.TaxiRideDTO;
-import com.taxidata.api.model.TaxiRide;
+import com.taxidata.api.index.PriceIndex;
+import com.taxidata.api.index.RidePriceIndex;
+import com.taxidata.api.model.Location;
+import com.taxidata.api.repository.RideCountEstimator;
 import com.taxidata.api.repository.TaxiRideRepository;
+import com.taxidata.common.geo.GeoArea;
+import com.taxidata.common.geo.GeoGrid;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.SerializationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
 public class TaxiRideService {
     private static final Logger logger = LoggerFactory.getLogger(TaxiRideService.class);
-    private static final String CACHE_NAME = "rides";
+    public static final String CACHE_NAME = "rides";
+
+    // Stand-ins for an open end of a start-date window; the query only takes closed windows
+    private static final LocalDateTime EARLIEST_START = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_START = LocalDateTime.of(9999, 1, 1, 0, 0);
 
     private final TaxiRideRepository repository;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final PriceRangeInvalidator priceRangeInvalidator;
+    private final CacheManager cacheManager;
+    private final RedisCacheConfiguration cacheConfiguration;
+    private final MeterRegistry meterRegistry;
+    private final RidePriceIndex ridePriceIndex;
+    private final PlatformTransactionManager transactionManager;
+    private final RideCountEstimator countEstimator;
+
+    @Value("${api.cache.ttl:30m}")
+    private Duration cacheTtl;
+
+    @Value("${api.geo.max-cells:400}")
+    private int maxGeoCells;
+
+    private DistributionSummary batchFromLocal;
+    private DistributionSummary batchFromRedis;
+    private DistributionSummary batchFromDatabase;
+    private DistributionSummary batchMissing;
+    private TransactionTemplate readOnlyTransaction;
+    private Counter totalsFromCountQuery;
+    private Counter totalsFromIndex;
+    private Counter totalsFromPlanner;
+    private Counter totalsFromSample;
+    private Counter totalsSkipped;
 
-    @Cacheable(value = CACHE_NAME, key = "'price_range:' + #minPrice + '_' + #maxPrice", unless = "#result.empty")
-    public PageDTO<TaxiRideDTO> findByPriceRange(Double minPrice, Double maxPrice, Pageable pageable) {
+    @PostConstruct
+    public void init() {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.batchFromLocal = batchLookups("l1");
+        this.batchFromRedis = batchLookups("redis");
+        this.batchFromDatabase = batchLookups("database");
+        this.batchMissing = batchLookups("missing");
+        this.totalsFromCountQuery = pageTotals("count_query");
+        this.totalsFromIndex = pageTotals("index");
+        this.totalsFromPlanner = pageTotals("planner");
+        this.totalsFromSample = pageTotals("sample");
+        this.totalsSkipped = pageTotals("none");
+    }
+
+    /**
+     * Concurrent misses for the same page run one query per instance (see {@code TwoTierCache}). Empty
+     * pages are cached as well; the price-range index evicts them once a ride lands in the range.
+     * <p>
+     * Without a date window, and unsorted or sorted by (price, id), the count and the page IDs come
+     * from the {@link RidePriceIndex} and the rides are resolved like {@link #findByIds}, so no
+     * connection is held across the Redis round trips. Otherwise an exact page and count run in one
+     * read-only transaction; the other count modes fetch a slice and estimate the total, if at all,
+     * with {@link RideCountEstimator}.
+     */
+    @Cacheable(value = CACHE_NAME, key = "T(com.taxidata.api.cache.PriceRangeKeys).key(#minPrice, #maxPrice, #from, #to, #pageable, #count)",
+            sync = true)
+    public PageDTO<TaxiRideDTO> findByPriceRange(Double minPrice, Double maxPrice, LocalDateTime from, LocalDateTime to,
+                                                 Pageable pageable, CountMode count) {
+        priceRangeInvalidator.register(PriceRangeKeys.key(minPrice, maxPrice, from, to, pageable, count));
         try {
-            logger.debug("Fetching rides from database for price range: {} - {}, page: {}", minPrice, maxPrice, pageable.getPageNumber());
-            Page<TaxiRide> page = repository.findByPriceRange(minPrice, maxPrice, pageable);
-            return PageDTO.fromPage(page, TaxiRideDTO::fromEntity);
+            PriceIndex index = from == null && to == null && RidePriceIndex.supports(pageable) ? ridePriceIndex.current() : null;
+            if (index != null) {
+                PriceIndex.Slice slice = index.page(minPrice, maxPrice, pageable.getOffset(), pageable.getPageSize());
+                List<TaxiRideDTO> rides = lookup(slice.ids());
+                totalsFromIndex.increment();
+                if (count == CountMode.NONE) {
+                    boolean hasNext = pageable.getOffset() + slice.ids().length < slice.total();
+                    return PageDTO.fromSlice(new SliceImpl<>(rides, pageable, hasNext), Function.identity());
+                }
+                return PageDTO.fromPage(new PageImpl<>(rides, pageable, slice.total()), Function.identity());
+            }
+            logger.debug("Fetching rides from database for price range: {} - {}, start date: {} - {}, page: {}, count: {}",
+                    minPrice, maxPrice, from, to, pageable.getPageNumber(), count);
+            if (count == CountMode.EXACT) {
+                totalsFromCountQuery.increment();
+                Page<TaxiRideDTO> page = readOnlyTransaction.execute(status -> from == null && to == null
+                        ? repository.findRowsByPriceRange(minPrice, maxPrice, pageable)
+                        : repository.findRowsByPriceRangeAndStartDate(minPrice, maxPrice,
+                                from != null ? from : EARLIEST_START, to != null ? to : LATEST_START, pageable));
+                return PageDTO.fromPage(page, Function.identity());
+            }
+
+            Slice<TaxiRideDTO> slice = readOnlyTransaction.execute(status -> from == null && to == null
+                    ? repository.findSliceByPriceRange(minPrice, maxPrice, pageable)
+                    : repository.findSliceByPriceRangeAndStartDate(minPrice, maxPrice,
+                            from != null ? from : EARLIEST_START, to != null ? to : LATEST_START, pageable));
+            PageDTO<TaxiRideDTO> page = PageDTO.fromSlice(slice, Function.identity());
+            switch (count) {
+                case PLANNER -> {
+                    totalsFromPlanner.increment();
+                    page.estimate(CountMode.PLANNER, countEstimator.plannerEstimate(minPrice, maxPrice, from, to).total(), null);
+                }
+                case SAMPLE -> {
+                    Optional<RideCountEstimator.Estimate> estimate = countEstimator.sampleEstimate(minPrice, maxPrice, from, to);
+                    if (estimate.isPresent()) {
+                        totalsFromSample.increment();
+                        page.estimate(CountMode.SAMPLE, estimate.get().total(), estimate.get().errorBound());
+                    } else {
+                        // Too few rides in the sample for a useful bound; the range is small enough to count
+                        totalsFromCountQuery.increment();
+                        page.estimate(CountMode.EXACT, countExactly(minPrice, maxPrice, from, to), null);
+                    }
+                }
+                default -> totalsSkipped.increment();
+            }
+            return page;
         } catch (SerializationException e) {
             logger.error("Error deserializing cached data: {}", e.getMessage());
             return new PageDTO<>();
         }
     }
 
-    @Cacheable(value = CACHE_NAME, key = "'ride:' + #id", unless = "#result == null")
+    private long countExactly(Double minPrice, Double maxPrice, LocalDateTime from, LocalDateTime to) {
+        Long total = readOnlyTransaction.execute(status -> from == null && to == null
+                ? repository.countByPriceRange(minPrice, maxPrice)
+                : repository.countByPriceRangeAndStartDate(minPrice, maxPrice,
+                        from != null ? from : EARLIEST_START, to != null ? to : LATEST_START));
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Keyset variant of {@link #findByPriceRange}: no OFFSET and no count, so every page costs the same.
+     * Only first pages are cached; continuation pages are rarely requested twice. Page IDs come from the
+     * {@link RidePriceIndex} when it is loaded.
+     */
+    @Cacheable(value = CACHE_NAME, key = "T(com.taxidata.api.cache.PriceRangeKeys).cursorKey(#minPrice, #maxPrice, #size)",
+            condition = "#after == null", unless = "#result.content.empty")
+    public CursorPageDTO<TaxiRideDTO> findByPriceRangeAfter(Double minPrice, Double maxPrice, ContinuationToken after, int size) {
+        if (after == null) {
+            priceRangeInvalidator.register(PriceRangeKeys.cursorKey(minPrice, maxPrice, size));
+        }
+        boolean first = after == null || after.getPrice() < minPrice;
+        // One extra row tells whether there is a next page
+        PriceIndex index = ridePriceIndex.current();
+        List<TaxiRideDTO> rows;
+        if (index != null) {
+            rows = lookup(first
+                    ? index.page(minPrice, maxPrice, 0, size + 1).ids()
+                    : index.after(after.getPrice(), after.getId(), maxPrice, size + 1));
+        } else {
+            logger.debug("Fetching rides from database for price range: {} - {}, after: {}", minPrice, maxPrice, after);
+            PageRequest limit = PageRequest.of(0, size + 1);
+            rows = readOnlyTransaction.execute(status -> first
+                    ? repository.findFirstByPriceRange(minPrice, maxPrice, limit)
+                    : repository.findByPriceRangeAfter(after.getPrice(), after.getId(), maxPrice, limit));
+        }
+        return CursorPageDTO.fromRows(rows, size, Function.identity(),
+                ride -> new ContinuationToken(ride.getPrice(), ride.getId()).encode());
+    }
+
+    /**
+     * Rides starting (or, with {@code byEnd}, ending) inside the area, in (cell, id) order. Not cached:
+     * areas are rarely requested twice.
+     *
+     * @throws IllegalArgumentException if the area covers more than {@code api.geo.max-cells} grid cells
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<TaxiRideDTO> findInArea(GeoArea area, boolean byEnd, CellContinuationToken after, int size) {
+        long cellCount = GeoGrid.countCovering(area);
+        if (cellCount > maxGeoCells) {
+            throw new IllegalArgumentException("Search area covers " + cellCount + " grid cells, at most " + maxGeoCells + " allowed");
+        }
+        List<Long> cells = Arrays.stream(GeoGrid.cellsCovering(area)).boxed().toList();
+        long afterCell = after != null ? after.getCell() : -1;
+        long afterId = after != null ? after.getId() : 0;
+        PageRequest limit = PageRequest.of(0, size + 1);
+
+        logger.debug("Fetching rides {} in {} grid cells, after: {}", byEnd ? "ending" : "starting", cells.size(), after);
+        List<TaxiRideDTO> rows = byEnd
+                ? repository.findEndingIn(cells, afterCell, afterId, area.getMinLatitude(), area.getMaxLatitude(),
+                        area.getMinLongitude(), area.getMaxLongitude(), area.getCenterLatitude(), area.getCenterLongitude(),
+                        area.getLongitudeScale(), area.getMaxDistanceSquared(), limit)
+                : repository.findStartingIn(cells, afterCell, afterId, area.getMinLatitude(), area.getMaxLatitude(),
+                        area.getMinLongitude(), area.getMaxLongitude(), area.getCenterLatitude(), area.getCenterLongitude(),
+                        area.getLongitudeScale(), area.getMaxDistanceSquared(), limit);
+        return CursorPageDTO.fromRows(rows, size, Function.identity(), ride -> {
+            Location location = byEnd ? ride.getEnd() : ride.getStart();
+            return new CellContinuationToken(GeoGrid.cellOf(location.getLatitude(), location.getLongitude()), ride.getId()).encode();
+        });
+    }
+
+    @Cacheable(value = CACHE_NAME, key = "'ride:' + #id", sync = true)
+    @Transactional(readOnly = true)
     public TaxiRideDTO findById(Long id) {
         logger.debug("Fetching ride from database with ID: {}", id);
-        return repository.findById(id)
-                .map(TaxiRideDTO::fromEntity)
-                .orElse(null);
+        List<TaxiRideDTO> rows = repository.findRowsByIds(List.of(id));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    /**
+     * The ride as {@link #findById} cached it, from L1 or Redis; empty when it is not cached or Redis
+     * fails. Never queries the database.
+     */
+    public Optional<TaxiRideDTO> findCachedById(Long id) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        try {
+            Cache.ValueWrapper cached = cache != null ? cache.get(rideKey(id)) : null;
+            return cached != null && cached.get() instanceof TaxiRideDTO ride ? Optional.of(ride) : Optional.empty();
+        } catch (RuntimeException e) {
+            logger.debug("Cached ride {} unavailable: {}", id, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Resolves many rides at once: L1, then one MGET for the rest, then one {@code IN} query for the
+     * remaining misses, whose results are written back to Redis in one pipeline. Rides are returned
+     * in request order; unknown ids are skipped.
+     */
+    public List<TaxiRideDTO> findByIds(List<Long> ids) {
+        return lookup(new ArrayList<>(new LinkedHashSet<>(ids)), true);
+    }
+
+    // Page IDs from the price index are distinct already; their sources are not batch lookups
+    private List<TaxiRideDTO> lookup(long[] ids) {
+        return lookup(Arrays.stream(ids).boxed().toList(), false);
+    }
+
+    private List<TaxiRideDTO> lookup(List<Long> distinct, boolean recordSources) {
+        Map<Long, TaxiRideDTO> found = new HashMap<>(distinct.size() * 2);
+        TwoTierCache nearCache = cacheManager.getCache(CACHE_NAME) instanceof TwoTierCache twoTier ? twoTier : null;
+
+        List<Long> pending = new ArrayList<>(distinct.size());
+        for (Long id : distinct) {
+            Object local = nearCache != null ? nearCache.getLocal(rideKey(id)) : null;
+            if (local instanceof TaxiRideDTO ride) {
+                found.put(id, ride);
+            } else {
+                pending.add(id);
+            }
+        }
+        int fromLocal = found.size();
+
+        List<Long> misses = pending.isEmpty() ? pending : readFromRedis(pending, found, nearCache);
+        int fromRedis = found.size() - fromLocal;
+
+        if (!misses.isEmpty()) {
+            logger.debug("Fetching {} rides from database by ID", misses.size());
+            List<TaxiRideDTO> loaded = repository.findRowsByIds(misses);
+            loaded.forEach(ride -> found.put(ride.getId(), ride));
+            writeToRedis(loaded, nearCache);
+        }
+        int fromDatabase = found.size() - fromLocal - fromRedis;
+
+        if (recordSources) {
+            batchFromLocal.record(fromLocal);
+            batchFromRedis.record(fromRedis);
+            batchFromDatabase.record(fromDatabase);
+            batchMissing.record(distinct.size() - found.size());
+        }
+
+        List<TaxiRideDTO> rides = new ArrayList<>(found.size());
+        for (Long id : distinct) {
+            TaxiRideDTO ride = found.get(id);
+            if (ride != null) {
+                rides.add(ride);
+            }
+        }
+        return rides;
+    }
+
+    private List<Long> readFromRedis(List<Long> ids, Map<Long, TaxiRideDTO> found, TwoTierCache nearCache) {
+        byte[][] keys = ids.stream().map(this::rawRideKey).toArray(byte[][]::new);
+        List<byte[]> values;
+        try {
+            values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(keys));
+        } catch (Exception e) {
+            logger.warn("⚠ Redis MGET failed, loading {} rides from database: {}", ids.size(), e.getMessage());
+            return ids;
+        }
+
+        List<Long> misses = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            byte[] value = values != null ? values.get(i) : null;
+            Object ride = null;
+            if (value != null) {
+                try {
+                    ride = cacheConfiguration.getValueSerializationPair().read(ByteBuffer.wrap(value));
+                } catch (SerializationException e) {
+                    logger.debug("Unreadable cache entry for ride {}: {}", ids.get(i), e.getMessage());
+                }
+            }
+            if (ride instanceof TaxiRideDTO dto) {
+                found.put(ids.get(i), dto);
+                if (nearCache != null) {
+                    nearCache.putLocal(rideKey(ids.get(i)), dto);
+                }
+            } else {
+                misses.add(ids.get(i));
+            }
+        }
+        return misses;
+    }
+
+    private void writeToRedis(List<TaxiRideDTO> rides, TwoTierCache nearCache) {
+        if (rides.isEmpty()) {
+            return;
+        }
+        Expiration expiration = Expiration.from(cacheTtl);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (TaxiRideDTO ride : rides) {
+                    ByteBuffer value = cacheConfiguration.getValueSerializationPair().write(ride);
+                    byte[] bytes = new byte[value.remaining()];
+                    value.get(bytes);
+                    connection.stringCommands().set(rawRideKey(ride.getId()), bytes, expiration,
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("⚠ Could not backfill {} rides into Redis: {}", rides.size(), e.getMessage());
+            return;
+        }
+        if (nearCache != null) {
+            rides.forEach(ride -> nearCache.putLocal(rideKey(ride.getId()), ride));
+        }
+    }
+
+    // Same keys as @Cacheable findById: "ride:<id>", stored by RedisCache under its cache prefix
+    private static String rideKey(Long id) {
+        return "ride:" + id;
+    }
+
+    private byte[] rawRideKey(Long id) {
+        return (cacheConfiguration.getKeyPrefixFor(CACHE_NAME) + rideKey(id)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private DistributionSummary batchLookups(String source) {
+        return DistributionSummary.builder("taxi.rides.batch.lookups")
+                .description("Rides per batch lookup, by where they were found")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    private Counter pageTotals(String source) {
+        return Counter.builder("taxi.rides.search.totals")
+                .description("Offset pages computed, by where their total came from; all but count_query avoid a count(*)")
+                .tag("source", source)
+                .register(meterRegistry);
     }
 
     public boolean isRedisAvailable() {
@@ -0,0 +1,103 @@
+package com.taxidata.api.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // Blocks reads of "slow" until released, holding the only permit
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("rides") {
+        @Override
+        public ValueWrapper get(Object key) {
+            if ("slow".equals(key)) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.get(key);
+        }
+    };
+
+    private final BoundedCache cache = new BoundedCache(remote, 1, Duration.ofMillis(50), meterRegistry);
+
+    @Test
+    void testCallsPassThroughWithinTheLimit() {
+        cache.put("ride:1", "value");
+
+        assertEquals("value", cache.get("ride:1").get());
+        cache.evict("ride:1");
+        assertNull(remote.get("ride:1"));
+    }
+
+    @Test
+    void testSaturatedReadIsAMissAndWriteIsSkipped() throws Exception {
+        remote.put("ride:1", "value");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> slow = executor.submit(() -> cache.get("slow"));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            assertNull(cache.get("ride:1"));
+            cache.put("ride:2", "value");
+            assertNull(remote.get("ride:2"));
+            assertEquals(1.0, inflight());
+
+            release.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, rejected("get"));
+        assertEquals(1, rejected("put"));
+        assertEquals("value", cache.get("ride:1").get());
+    }
+
+    @Test
+    void testEvictionWaitsForAPermit() throws Exception {
+        remote.put("ride:1", "value");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(() -> cache.get("slow"));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            Future<?> eviction = executor.submit(() -> cache.evict("ride:1"));
+
+            Thread.sleep(100);
+            assertEquals("value", remote.get("ride:1").get());
+            release.countDown();
+            eviction.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertNull(remote.get("ride:1"));
+    }
+
+    private double rejected(String operation) {
+        return meterRegistry.get("taxi.cache.l2.rejected").tag("operation", operation).counter().count();
+    }
+
+    private double inflight() {
+        return meterRegistry.get("taxi.cache.l2.inflight").gauge().value();
+    }
+}
@@ -0,0 +1,108 @@
+package com.taxidata.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.taxidata.api.index.RidePriceIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PriceRangeInvalidatorTest {
+
+    private static final String INDEX_KEY = "taxi:cache:price-ranges";
+    private static final String RANGE = PriceRangeKeys.key(10.0, 20.0, PageRequest.of(0, 20));
+    private static final String OTHER_RANGE = PriceRangeKeys.key(30.0, 40.0, PageRequest.of(0, 20));
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSet;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private RideETags rideETags;
+
+    @Mock
+    private RidePriceIndex ridePriceIndex;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("rides");
+
+    private TwoTierCache cache;
+    private PriceRangeInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TwoTierCache("rides", Caffeine.newBuilder().maximumSize(100).build(), remote,
+                (name, key) -> { }, meterRegistry);
+        when(cacheManager.getCache("rides")).thenReturn(cache);
+        when(redisTemplate.opsForZSet()).thenReturn(zSet);
+        invalidator = new PriceRangeInvalidator(redisTemplate, cacheManager, meterRegistry, rideETags, ridePriceIndex);
+        ReflectionTestUtils.setField(invalidator, "indexKey", INDEX_KEY);
+        ReflectionTestUtils.setField(invalidator, "ttl", Duration.ofMinutes(30));
+        invalidator.init();
+    }
+
+    @Test
+    void testCommitDuringALoadDoesNotLeaveTheOldPageCached() {
+        when(zSet.rangeByScore(eq(INDEX_KEY), anyDouble(), anyDouble())).thenReturn(Set.of(RANGE));
+
+        String page = cache.get(RANGE, () -> {
+            // The commit lands after the page was read and before it is stored
+            invalidator.onMessage(committed("42:15.5"), null);
+            return "page without ride 42";
+        });
+
+        assertEquals("page without ride 42", page);
+        assertNull(remote.get(RANGE));
+        assertNull(cache.get(RANGE));
+    }
+
+    @Test
+    void testEvictedRangesStayIndexedForPagesStoredLate() {
+        when(zSet.rangeByScore(eq(INDEX_KEY), anyDouble(), anyDouble())).thenReturn(Set.of(RANGE, OTHER_RANGE));
+        cache.put(RANGE, "page");
+        cache.put(OTHER_RANGE, "other page");
+
+        invalidator.onMessage(committed("42:15.5"), null);
+        // Another replica stores the page it read before the commit; this replica's message comes next
+        cache.put(RANGE, "page read before the commit");
+        invalidator.onMessage(committed("42:15.5"), null);
+
+        assertNull(remote.get(RANGE));
+        assertNotNull(remote.get(OTHER_RANGE));
+        verify(zSet, never()).remove(eq(INDEX_KEY), eq(RANGE));
+    }
+
+    private static DefaultMessage committed(String pairs) {
+        return new DefaultMessage("taxi:rides:committed".getBytes(StandardCharsets.UTF_8),
+                pairs.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,194 @@
+package com.taxidata.api.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RideETagsTest {
+
+    private static final String PAGE = "page:10.0_20.0:p0:s20:unsorted";
+
+    private final AtomicLong clock = new AtomicLong();
+    private RideETags tags;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tags = loaded(new long[][]{{12, 3, 40}, {15, 2, 41}, {1023, 1, 7}});
+    }
+
+    @Test
+    void testNoPageTagsBeforeTheStoredRidesAreLoaded() {
+        RideETags unloaded = etags(mock(JdbcTemplate.class));
+
+        assertEquals(Optional.empty(), unloaded.pageTag(10, 20, PAGE));
+    }
+
+    @Test
+    void testCommitInsideTheRangeChangesThePageTag() {
+        String before = tags.pageTag(10, 20, PAGE).orElseThrow();
+
+        tags.recordCommitted(new long[]{42}, new double[]{15.5});
+
+        assertNotEquals(before, tags.pageTag(10, 20, PAGE).orElseThrow());
+    }
+
+    @Test
+    void testCommitOutsideTheRangeKeepsThePageTag() {
+        String before = tags.pageTag(10, 20, PAGE).orElseThrow();
+
+        tags.recordCommitted(new long[]{42, 43}, new double[]{5.0, 42.0});
+
+        assertEquals(before, tags.pageTag(10, 20, PAGE).orElseThrow());
+    }
+
+    @Test
+    void testLowerIdCommittedAfterAHigherOneChangesThePageTag() {
+        // Pooled sequence blocks: ride 60 of one writer commits before ride 45 of another
+        tags.recordCommitted(new long[]{60}, new double[]{15.5});
+        String before = tags.pageTag(10, 20, PAGE).orElseThrow();
+
+        tags.recordCommitted(new long[]{45}, new double[]{15.2});
+
+        assertNotEquals(before, tags.pageTag(10, 20, PAGE).orElseThrow());
+    }
+
+    @Test
+    void testRecountThatLostAsManyRidesAsWereCommittedChangesThePageTag() throws Exception {
+        String before = tags.pageTag(10, 20, PAGE).orElseThrow();
+        // Retention dropped one ride of bucket 15 while ride 42 was committed into it
+        RideETags recounted = loaded(new long[][]{{12, 3, 40}, {15, 2, 42}, {1023, 1, 7}});
+
+        assertFalse(recounted.matches(before, recounted.pageTag(10, 20, PAGE).orElseThrow()));
+    }
+
+    @Test
+    void testCommitsAnnouncedDuringTheLoadAreCountedOnce() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        RideETags loading = etags(jdbcTemplate);
+        // Ride 42 is in the load's snapshot, ride 43 committed after it; both are announced while it runs
+        answerCounts(jdbcTemplate, new long[][]{{12, 3, 40}, {15, 3, 42}, {1023, 1, 7}},
+                () -> loading.recordCommitted(new long[]{42, 43}, new double[]{15.5, 15.7}));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            handler.processRow(row(42));
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        loading.load();
+
+        tags.recordCommitted(new long[]{42, 43}, new double[]{15.5, 15.7});
+        assertEquals(tags.pageTag(10, 20, PAGE), loading.pageTag(10, 20, PAGE));
+    }
+
+    @Test
+    void testPricesAboveTheLastBucketShareIt() {
+        String before = tags.pageTag(99, Double.MAX_VALUE, PAGE).orElseThrow();
+
+        tags.recordCommitted(new long[]{42}, new double[]{5000.0});
+
+        assertNotEquals(before, tags.pageTag(99, Double.MAX_VALUE, PAGE).orElseThrow());
+    }
+
+    @Test
+    void testEveryOtherRequestParameterChangesThePageTag() {
+        String tag = tags.pageTag(10, 20, PAGE).orElseThrow();
+
+        assertNotEquals(tag, tags.pageTag(10, 20, "page:10.0_20.0:p1:s20:unsorted").orElseThrow());
+        assertNotEquals(tag, tags.pageTag(10, 20, "page:10.0_20.0:p0:s20:price-desc").orElseThrow());
+        assertNotEquals(tag, tags.pageTag(10, 20, PAGE + ":d2024-01-01T00:00_null").orElseThrow());
+        assertNotEquals(tag, tags.pageTag(10, 20, PAGE + ":cnone").orElseThrow());
+    }
+
+    @Test
+    void testReplicasWithTheSameRidesIssueTheSameTags() throws Exception {
+        // Loaded later: one ride was already stored instead of arriving as a commit message
+        RideETags other = loaded(new long[][]{{12, 3, 40}, {15, 3, 42}, {1023, 1, 7}});
+        tags.recordCommitted(new long[]{42}, new double[]{15.5});
+
+        assertTrue(other.matches(tags.pageTag(10, 20, PAGE).orElseThrow(), other.pageTag(10, 20, PAGE).orElseThrow()));
+        assertEquals(tags.rideTag(7, 3L), other.rideTag(7, 3L));
+    }
+
+    @Test
+    void testTagsExpireWithTheTtlWindow() {
+        String page = tags.pageTag(10, 20, PAGE).orElseThrow();
+        String ride = tags.rideTag(7, 0L);
+
+        clock.addAndGet(Duration.ofMinutes(30).toMillis());
+
+        assertFalse(tags.matches(page, tags.pageTag(10, 20, PAGE).orElseThrow()));
+        assertFalse(tags.matches(ride, tags.rideTag(7, 0L)));
+    }
+
+    @Test
+    void testRideTagsCarryTheVersion() {
+        String ride = tags.rideTag(7, 3L);
+
+        assertTrue(tags.matches("\"other\", W/" + ride, tags.rideTag(7, 3L)));
+        assertFalse(tags.matches(ride, tags.rideTag(7, 4L)));
+        assertFalse(tags.matches(ride, tags.rideTag(8, 3L)));
+    }
+
+    @Test
+    void testIfNoneMatchListsAndWeakTagsAreAccepted() {
+        String page = tags.pageTag(10, 20, PAGE).orElseThrow();
+
+        assertTrue(tags.matches("W/" + page + ", \"other\"", page));
+        assertFalse(tags.matches("*", page));
+        assertFalse(tags.matches(null, page));
+    }
+
+    private RideETags etags(JdbcTemplate jdbcTemplate) {
+        return new RideETags(1.0, 1024, Duration.ofMinutes(30), clock::get, jdbcTemplate,
+                mock(PlatformTransactionManager.class));
+    }
+
+    // Tags loaded from taxi_rides rows of (bucket, count(*), max(id))
+    private RideETags loaded(long[][] rows) throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        answerCounts(jdbcTemplate, rows, () -> {
+        });
+        RideETags loaded = etags(jdbcTemplate);
+        loaded.load();
+        return loaded;
+    }
+
+    private static void answerCounts(JdbcTemplate jdbcTemplate, long[][] rows, Runnable whileCounting) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long[] values : rows) {
+                ResultSet row = row(values);
+                when(row.getInt(1)).thenReturn((int) values[0]);
+                handler.processRow(row);
+            }
+            whileCounting.run();
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    private static ResultSet row(long... values) throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        for (int i = 0; i < values.length; i++) {
+            when(row.getLong(i + 1)).thenReturn(values[i]);
+        }
+        return row;
+    }
+}
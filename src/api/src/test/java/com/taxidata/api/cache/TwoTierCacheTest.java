@@ -0,0 +1,182 @@
+package com.taxidata.api.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TwoTierCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("rides");
+    private final List<Object> published = new ArrayList<>();
+
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TwoTierCache("rides", Caffeine.newBuilder().maximumSize(100).build(), remote,
+                (name, key) -> published.add(key), meterRegistry);
+    }
+
+    @Test
+    void testRemoteHitIsServedLocallyAfterwards() {
+        remote.put("ride:1", "value");
+
+        assertEquals("value", cache.get("ride:1").get());
+        remote.evict("ride:1");
+        assertEquals("value", cache.get("ride:1").get());
+
+        assertEquals(1, lookups("l1", "hit"));
+        assertEquals(1, lookups("l1", "miss"));
+        assertEquals(1, lookups("l2", "hit"));
+    }
+
+    @Test
+    void testWritesGoToBothTiersAndArePublished() {
+        cache.put("ride:1", "value");
+        cache.evict("ride:2");
+        cache.clear();
+
+        assertEquals(List.of("ride:1", "ride:2"), published.subList(0, 2));
+        assertNull(published.get(2));
+    }
+
+    @Test
+    void testRemoteInvalidationDropsOnlyTheLocalCopy() {
+        cache.put("ride:1", "value");
+
+        cache.invalidateLocal("ride:1");
+
+        assertEquals(0, cache.localSize());
+        assertEquals("value", cache.get("ride:1").get());
+        assertEquals(1, lookups("l2", "hit"));
+    }
+
+    @Test
+    void testLoaderRunsOnlyOnMissInBothTiers() {
+        assertEquals("loaded", cache.get("ride:1", () -> "loaded"));
+        assertEquals("loaded", cache.get("ride:1", () -> "reloaded"));
+        assertEquals("loaded", remote.get("ride:1").get());
+    }
+
+    @Test
+    void testConcurrentMissesRunOneLoader() throws Exception {
+        int requests = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                results.add(executor.submit(() -> cache.get("ride:1", () -> {
+                    loads.incrementAndGet();
+                    loaderStarted.countDown();
+                    release.await();
+                    return "loaded";
+                })));
+            }
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            // Let the other requests reach the cache before the load completes
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (meterRegistry.get("taxi.cache.coalesced").counter().count() < requests - 1
+                    && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, loadCount("miss"));
+    }
+
+    @Test
+    void testLoadInvalidatedWhileRunningIsReturnedButNotLeftCached() {
+        String value = cache.get("price_range:10.0_20.0:p0:s20:unsorted", () -> {
+            // The change lands after the loader read, before its value is stored
+            cache.invalidateLoading(key -> key.toString().startsWith("price_range:10.0_20.0"));
+            return "page read before the change";
+        });
+
+        assertEquals("page read before the change", value);
+        assertNull(remote.get("price_range:10.0_20.0:p0:s20:unsorted"));
+        assertEquals(0, cache.localSize());
+        assertEquals(1, meterRegistry.get("taxi.cache.loads.discarded").counter().count());
+        assertEquals("reloaded", cache.get("price_range:10.0_20.0:p0:s20:unsorted", () -> "reloaded"));
+        assertEquals("reloaded", remote.get("price_range:10.0_20.0:p0:s20:unsorted").get());
+    }
+
+    @Test
+    void testNullValuesAreReturnedButNotStored() {
+        assertNull(cache.get("ride:1", () -> null));
+
+        assertNull(remote.get("ride:1"));
+        assertEquals(0, cache.localSize());
+    }
+
+    @Test
+    void testHotEntryIsRefreshedBeforeItExpires() {
+        AtomicLong clock = new AtomicLong();
+        TwoTierCache refreshing = new TwoTierCache("rides", Caffeine.newBuilder().maximumSize(100).build(), remote,
+                (name, key) -> published.add(key), meterRegistry, Duration.ofMinutes(30), 1.0, clock::get, () -> 0.5);
+        AtomicInteger version = new AtomicInteger();
+        refreshing.get("ride:1", () -> {
+            clock.addAndGet(Duration.ofMillis(100).toNanos());
+            return "v" + version.incrementAndGet();
+        });
+        long loadedAt = clock.get();
+
+        // 100 ms load, beta 1, ln(0.5): due about 69 ms before the TTL
+        clock.set(loadedAt + Duration.ofMinutes(29).toNanos());
+        assertEquals("v1", refreshing.get("ride:1", () -> "v" + version.incrementAndGet()));
+        clock.set(loadedAt + Duration.ofMinutes(30).minusMillis(50).toNanos());
+        assertEquals("v2", refreshing.get("ride:1", () -> "v" + version.incrementAndGet()));
+
+        assertEquals("v2", remote.get("ride:1").get());
+        assertEquals(1, loadCount("early-refresh"));
+    }
+
+    @Test
+    void testFailedEarlyRefreshServesTheCachedValue() {
+        AtomicLong clock = new AtomicLong();
+        TwoTierCache refreshing = new TwoTierCache("rides", Caffeine.newBuilder().maximumSize(100).build(), remote,
+                (name, key) -> published.add(key), meterRegistry, Duration.ofMinutes(30), 1.0, clock::get, () -> 0.5);
+        refreshing.get("ride:1", () -> "v1");
+
+        clock.set(Duration.ofMinutes(30).toNanos());
+        assertEquals("v1", refreshing.get("ride:1", () -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+    }
+
+    private long lookups(String tier, String result) {
+        return meterRegistry.get("taxi.cache.gets").tag("tier", tier).tag("result", result).timer().count();
+    }
+
+    private double loadCount(String trigger) {
+        return meterRegistry.get("taxi.cache.loads").tag("trigger", trigger).counter().count();
+    }
+}
@@ -0,0 +1,66 @@
+package com.taxidata.api.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RideRowWriterTest {
+
+    private static final String PLACES = "[{\"latitude\": 40.7851, \"longitude\": -73.9683, \"place\": \"Central Park\"}]";
+
+    @Test
+    void testNdjsonWritesOneObjectPerLineAndCopiesPlacesThrough() throws Exception {
+        String[] lines = write(ExportFormat.NDJSON, ride()).split("\n");
+
+        assertEquals("{\"id\":7,\"start\":{\"latitude\":40.7128,\"longitude\":-74.006,\"place\":\"New York, NY\"}," +
+                "\"end\":null,\"importantPlaces\":" + PLACES + "," +
+                "\"startDate\":\"2024-01-01 10:00:00\",\"endDate\":null,\"price\":25.5,\"distanceKm\":null}", lines[0]);
+        assertEquals(lines[0], lines[1]);
+        assertEquals(2, lines.length);
+    }
+
+    @Test
+    void testCsvQuotesFieldsWithSeparatorsAndLeavesNullsEmpty() throws Exception {
+        String output = write(ExportFormat.CSV, ride());
+
+        String[] lines = output.split("\r\n");
+        assertEquals(CsvRideRowWriter.HEADER, lines[0]);
+        assertEquals("7,40.7128,-74.006,\"New York, NY\",,,,2024-01-01 10:00:00,,25.5,,\"" +
+                PLACES.replace("\"", "\"\"") + "\"", lines[1]);
+        assertEquals(3, lines.length);
+    }
+
+    private static String write(ExportFormat format, ResultSet rs) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RideRowWriter writer = RideRowWriter.of(format, out);
+        writer.begin();
+        writer.row(rs);
+        writer.row(rs);
+        writer.end();
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ResultSet ride() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(7L);
+        when(rs.getDouble(anyString())).thenReturn(0.0);
+        when(rs.getDouble("latitude")).thenReturn(40.7128);
+        when(rs.getDouble("longitude")).thenReturn(-74.006);
+        when(rs.getDouble("price")).thenReturn(25.5);
+        // wasNull follows getDouble: latitude, longitude, end_latitude, end_longitude, price, distance_km
+        when(rs.wasNull()).thenReturn(false, false, true, true, false, true, false, false, true, true, false, true);
+        when(rs.getString("place")).thenReturn("New York, NY");
+        when(rs.getString("important_places")).thenReturn(PLACES);
+        when(rs.getObject(eq("start_date"), eq(LocalDateTime.class))).thenReturn(LocalDateTime.of(2024, 1, 1, 10, 0));
+        return rs;
+    }
+}
@@ -0,0 +1,108 @@
+package com.taxidata.api.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriceIndexTest {
+
+    private record Ride(long id, double price) {
+    }
+
+    private static final Comparator<Ride> ORDER = Comparator.comparingDouble(Ride::price).thenComparingLong(Ride::id);
+
+    @Test
+    void testPagesMatchASortedScanAcrossBaseAndDelta() {
+        Random random = new Random(42);
+        List<Ride> rides = new ArrayList<>();
+        PriceIndex.Builder builder = PriceIndex.builder(100_000);
+        long id = 0;
+        for (int i = 0; i < 2_000; i++) {
+            Ride ride = new Ride(++id, random.nextInt(5_000) / 100.0);
+            rides.add(ride);
+            builder.append(ride.id(), ride.price());
+        }
+        // Small delta, so adds go through several base merges
+        PriceIndex index = builder.build(300);
+        for (int batch = 0; batch < 20; batch++) {
+            long[] ids = new long[50];
+            double[] prices = new double[50];
+            for (int i = 0; i < ids.length; i++) {
+                Ride ride = new Ride(++id, random.nextInt(5_000) / 100.0);
+                rides.add(ride);
+                ids[i] = ride.id();
+                prices[i] = ride.price();
+            }
+            index.add(ids, prices, ids.length);
+        }
+        rides.sort(ORDER);
+
+        for (int query = 0; query < 200; query++) {
+            double min = random.nextInt(5_000) / 100.0;
+            double max = min + random.nextInt(1_000) / 100.0;
+            List<Ride> matching = rides.stream().filter(r -> r.price() >= min && r.price() <= max).toList();
+            int offset = random.nextInt(matching.size() + 5);
+
+            PriceIndex.Slice slice = index.page(min, max, offset, 20);
+
+            assertEquals(matching.size(), slice.total());
+            assertEquals(matching.size(), index.count(min, max));
+            assertArrayEquals(ids(matching.subList(Math.min(offset, matching.size()),
+                    Math.min(offset + 20, matching.size()))), slice.ids());
+        }
+    }
+
+    @Test
+    void testAfterContinuesStrictlyBehindTheKey() {
+        PriceIndex index = PriceIndex.builder(100).build(8);
+        index.add(new long[]{1, 2, 3, 4}, new double[]{10.0, 10.0, 12.5, 30.0}, 4);
+
+        assertArrayEquals(new long[]{2, 3}, index.after(10.0, 1, 20.0, 5));
+        assertArrayEquals(new long[]{3}, index.after(10.0, 2, 20.0, 1));
+    }
+
+    @Test
+    void testRidesAlreadyIndexedAreNotCountedTwice() {
+        PriceIndex.Builder builder = PriceIndex.builder(100);
+        builder.append(1, 10.0);
+        PriceIndex index = builder.build(8);
+
+        index.add(new long[]{1, 2, 2}, new double[]{10.0, 11.0, 11.0}, 3);
+
+        assertEquals(2, index.size());
+        assertEquals(2, index.count(0, 100));
+    }
+
+    @Test
+    void testUnsortedAppendsAreSortedOnBuild() {
+        PriceIndex.Builder builder = PriceIndex.builder(100);
+        builder.append(3, 30.0);
+        builder.append(1, 10.0);
+        builder.append(2, 10.0);
+
+        assertArrayEquals(new long[]{1, 2, 3}, builder.build(8).page(0, 100, 0, 10).ids());
+    }
+
+    @Test
+    void testRefusesRidesBeyondTheLimit() {
+        PriceIndex.Builder builder = PriceIndex.builder(3);
+        assertTrue(builder.append(1, 10.0));
+        assertTrue(builder.append(2, 11.0));
+        PriceIndex index = builder.build(1);
+
+        assertFalse(index.add(new long[]{3, 4}, new double[]{12.0, 13.0}, 2));
+        assertEquals(2, index.size());
+    }
+
+    private static long[] ids(List<Ride> rides) {
+        return rides.stream().mapToLong(Ride::id).toArray();
+    }
+}
@@ -0,0 +1,61 @@
+package com.taxidata.api.index;
+
+import com.taxidata.common.events.CommittedRides;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class RidePriceIndexTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RidePriceIndex ridePriceIndex;
+
+    @BeforeEach
+    void setUp() {
+        ridePriceIndex = new RidePriceIndex(mock(DataSource.class), mock(PlatformTransactionManager.class), meterRegistry);
+        ReflectionTestUtils.setField(ridePriceIndex, "maxRides", 1000);
+        ridePriceIndex.init();
+        // As loaded on startup
+        ReflectionTestUtils.setField(ridePriceIndex, "index", PriceIndex.builder(1000).build(16));
+    }
+
+    @Test
+    void testConsecutiveMessagesKeepTheIndex() {
+        ridePriceIndex.add(committed("a", 1, 1, 10.0));
+        ridePriceIndex.add(committed("a", 2, 2, 11.0));
+        // Repeated, a new publisher and a message of a processor without sequence numbers
+        ridePriceIndex.add(committed("a", 2, 2, 11.0));
+        ridePriceIndex.add(committed("b", 40, 3, 12.0));
+        ridePriceIndex.add(CommittedRides.parse("4:13.0"));
+
+        assertNotNull(ridePriceIndex.current());
+        assertEquals(4, ridePriceIndex.current().count(10.0, 13.0));
+        assertEquals(0, meterRegistry.get("taxi.price_index.gaps").counter().count());
+    }
+
+    @Test
+    void testSkippedSequenceNumberDropsTheIndex() {
+        ridePriceIndex.add(committed("a", 1, 1, 10.0));
+        // Batch 2 was lost, its rides are in the database only
+        ridePriceIndex.add(committed("a", 3, 3, 12.0));
+
+        assertNull(ridePriceIndex.current());
+        assertEquals(1, meterRegistry.get("taxi.price_index.gaps").counter().count());
+        assertTrue((Boolean) ReflectionTestUtils.getField(ridePriceIndex, "stale"));
+    }
+
+    private static CommittedRides committed(String publisher, long sequence, long id, double price) {
+        return new CommittedRides(publisher, sequence, new long[]{id}, new double[]{price});
+    }
+}
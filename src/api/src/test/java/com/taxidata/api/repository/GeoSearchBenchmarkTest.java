@@ -0,0 +1,136 @@
+package com.taxidata.api.repository;
+
+import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.common.geo.GeoArea;
+import com.taxidata.common.geo.GeoGrid;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * p50/p99 of first-page geo searches on a synthetic dataset spread over New York, through the
+ * grid-cell index and, for comparison, with plain coordinate predicates on a (latitude, longitude)
+ * btree, the best a search without the cell columns can do. The dataset is generated inside PostgreSQL; 10M rides by default, set
+ * {@code -Dbenchmark.rides=} for a quicker run. Run with
+ * {@code ./gradlew :src:api:test --tests '*GeoSearchBenchmarkTest' -Dbenchmark=true}.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create")
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class GeoSearchBenchmarkTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_QUERIES = 200;
+    private static final int QUERIES = 2000;
+    private static final double RADIUS_KM = 1.0;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14.11");
+
+    @Autowired
+    private TaxiRideRepository repository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void measureGridIndexAgainstCoordinateScan() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        load(Long.getLong("benchmark.rides", 10_000_000L));
+
+        Random random = new Random(42);
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            viaCells(randomCircle(random));
+            viaCoordinates(randomCircle(random));
+        }
+
+        long[] cells = new long[QUERIES];
+        long[] coordinates = new long[QUERIES];
+        int rides = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            GeoArea area = randomCircle(random);
+            long start = System.nanoTime();
+            rides += viaCells(area).size();
+            cells[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            viaCoordinates(area);
+            coordinates[i] = System.nanoTime() - start;
+        }
+        assertTrue(rides > 0);
+
+        System.out.printf("Rides within %.1f km, first page of %d: grid cells p50 %.2f ms, p99 %.2f ms | " +
+                        "coordinates only p50 %.2f ms, p99 %.2f ms%n", RADIUS_KM, PAGE_SIZE,
+                percentile(cells, 0.50), percentile(cells, 0.99),
+                percentile(coordinates, 0.50), percentile(coordinates, 0.99));
+    }
+
+    private List<TaxiRideDTO> viaCells(GeoArea area) {
+        List<Long> cells = Arrays.stream(GeoGrid.cellsCovering(area)).boxed().toList();
+        return repository.findStartingIn(cells, -1, 0, area.getMinLatitude(), area.getMaxLatitude(),
+                area.getMinLongitude(), area.getMaxLongitude(), area.getCenterLatitude(), area.getCenterLongitude(),
+                area.getLongitudeScale(), area.getMaxDistanceSquared(), PageRequest.of(0, PAGE_SIZE + 1));
+    }
+
+    private List<Long> viaCoordinates(GeoArea area) {
+        return jdbcTemplate.queryForList("SELECT id FROM taxi_rides WHERE latitude BETWEEN ? AND ? " +
+                        "AND longitude BETWEEN ? AND ? AND (latitude - ?) * (latitude - ?) + " +
+                        "(longitude - ?) * (longitude - ?) * ? <= ? ORDER BY id LIMIT ?", Long.class,
+                area.getMinLatitude(), area.getMaxLatitude(), area.getMinLongitude(), area.getMaxLongitude(),
+                area.getCenterLatitude(), area.getCenterLatitude(), area.getCenterLongitude(), area.getCenterLongitude(),
+                area.getLongitudeScale(), area.getMaxDistanceSquared(), PAGE_SIZE + 1);
+    }
+
+    private void load(long rides) {
+        // Mostly Manhattan, the rest spread over the city, like the generator's places
+        jdbcTemplate.execute("INSERT INTO taxi_rides (latitude, longitude, place, end_latitude, end_longitude, " +
+                "end_place, important_places, start_date, end_date, price, distance_km, version) " +
+                "SELECT lat, lon, 'Start', lat + 0.02, lon + 0.02, 'End', '[]'::jsonb, " +
+                "timestamp '2024-01-01' + g * interval '1 second', timestamp '2024-01-01' + g * interval '1 second' + interval '20 minutes', " +
+                "5 + random() * 75, 1 + random() * 20, 0 " +
+                "FROM (SELECT g, " +
+                "CASE WHEN random() < 0.7 THEN 40.70 + random() * 0.12 ELSE 40.55 + random() * 0.35 END AS lat, " +
+                "CASE WHEN random() < 0.7 THEN -74.02 + random() * 0.07 ELSE -74.05 + random() * 0.30 END AS lon " +
+                "FROM generate_series(1, " + rides + ") g) s");
+        // Same arithmetic as schema.sql in the processor
+        jdbcTemplate.execute("UPDATE taxi_rides SET " +
+                "start_cell = floor((latitude + 90) * 100)::bigint * 36000 + floor((longitude + 180) * 100)::bigint, " +
+                "end_cell = floor((end_latitude + 90) * 100)::bigint * 36000 + floor((end_longitude + 180) * 100)::bigint");
+        jdbcTemplate.execute("CREATE INDEX idx_taxi_rides_start_cell_id ON taxi_rides (start_cell, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_taxi_rides_end_cell_id ON taxi_rides (end_cell, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_taxi_rides_latitude_longitude ON taxi_rides (latitude, longitude)");
+        jdbcTemplate.execute("VACUUM ANALYZE taxi_rides");
+    }
+
+    private static GeoArea randomCircle(Random random) {
+        return GeoArea.circle(40.60 + random.nextDouble() * 0.25, -74.03 + random.nextDouble() * 0.25, RADIUS_KM);
+    }
+
+    private static double percentile(long[] samples, double quantile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1] / 1_000_000.0;
+    }
+}
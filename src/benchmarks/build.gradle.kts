@@ -0,0 +1,119 @@
+import groovy.json.JsonSlurper
+
+plugins {
+    id("io.spring.dependency-management")
+    id("me.champeau.jmh") version "0.7.2"
+    java
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+// Same library versions as the services
+dependencyManagement {
+    imports {
+        mavenBom("org.springframework.boot:spring-boot-dependencies:3.2.0")
+        mavenBom("org.springframework.cloud:spring-cloud-dependencies:2023.0.0")
+    }
+}
+
+dependencies {
+    // Shared by the JMH suites and the ingest harness
+    implementation(project(":src:common"))
+    implementation(project(":src:api"))
+    implementation(project(":src:processor"))
+
+    // Only the runtime classpath of the services is inherited; these are referenced by the benchmarks
+    implementation("org.springframework.boot:spring-boot")
+    implementation("org.springframework:spring-context")
+    implementation("org.springframework.data:spring-data-commons")
+    implementation("org.springframework.data:spring-data-jpa")
+    implementation("org.springframework.data:spring-data-redis")
+    implementation("org.springframework.amqp:spring-amqp")
+    implementation("jakarta.persistence:jakarta.persistence-api")
+    implementation("io.micrometer:micrometer-core")
+    implementation("io.github.resilience4j:resilience4j-circuitbreaker")
+    implementation("com.fasterxml.jackson.core:jackson-databind")
+    implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
+}
+
+// Lazy: git only runs when a JMH task resolves its results file, never while other builds are configured
+val commit: Provider<String> = providers.exec {
+    commandLine("git", "rev-parse", "--short", "HEAD")
+    isIgnoreExitValue = true
+}.standardOutput.asText.map { it.trim().ifEmpty { "local" } }
+
+jmh {
+    jmhVersion.set("1.37")
+    // ./gradlew :src:benchmarks:jmh -Pjmh.includes=RideMapping runs a subset
+    (findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file(commit.map { "results/jmh/$it.json" }))
+}
+
+/**
+ * End-to-end ingest run in one JVM against local broker and database stand-ins:
+ * ./gradlew :src:benchmarks:ingestHarness -Pharness.rate=20000 -Pharness.batch=false
+ */
+tasks.register<JavaExec>("ingestHarness") {
+    group = "benchmark"
+    description = "Drives the processor's listener path at a fixed rate and reports throughput, latency and allocation"
+    mainClass.set("com.taxidata.benchmarks.ingest.IngestHarness")
+    classpath = sourceSets.main.get().runtimeClasspath
+    jvmArgs("-Xms1g", "-Xmx1g")
+    systemProperties(project.properties.filterKeys { it.startsWith("harness.") || it.startsWith("processor.") })
+}
+
+/**
+ * Side-by-side HTTP load test of running API instances (servlet and reactive by default):
+ * ./gradlew :src:benchmarks:apiLoadTest -Pload.clients=2000 -Pload.targets=mvc=http://localhost:8080,reactive=http://localhost:8082
+ */
+tasks.register<JavaExec>("apiLoadTest") {
+    group = "benchmark"
+    description = "Drives the ride query API variants with the same closed-loop load and reports throughput and latency"
+    mainClass.set("com.taxidata.benchmarks.http.ApiLoadTest")
+    classpath = sourceSets.main.get().runtimeClasspath
+    systemProperties(project.properties.filterKeys { it.startsWith("load.") })
+}
+
+/**
+ * Prints the score change of every benchmark between two result files:
+ * ./gradlew :src:benchmarks:jmhCompare -Pbaseline=build/results/jmh/abc1234.json -Pcandidate=build/results/jmh/def5678.json
+ */
+tasks.register("jmhCompare") {
+    group = "benchmark"
+    description = "Compares two JMH JSON result files"
+    doLast {
+        fun load(property: String): Map<String, Map<String, Any>> {
+            val path = findProperty(property) as String? ?: throw GradleException("-P$property=<results.json> is required")
+            @Suppress("UNCHECKED_CAST")
+            val runs = JsonSlurper().parse(file(path)) as List<Map<String, Any>>
+            return runs.associateBy { run ->
+                val params = (run["params"] as Map<*, *>?)?.entries?.joinToString(",") { "${it.key}=${it.value}" } ?: ""
+                "${run["benchmark"]}($params)"
+            }
+        }
+
+        fun score(run: Map<String, Any>, metric: String? = null): Pair<Double, String>? {
+            @Suppress("UNCHECKED_CAST")
+            val result = if (metric == null) run["primaryMetric"] as Map<String, Any>
+            else (run["secondaryMetrics"] as Map<String, Map<String, Any>>)[metric] ?: return null
+            return (result["score"] as Number).toDouble() to result["scoreUnit"] as String
+        }
+
+        val baseline = load("baseline")
+        val candidate = load("candidate")
+        for ((name, run) in candidate.toSortedMap()) {
+            val before = baseline[name] ?: continue
+            val (time, unit) = score(run)!!
+            val change = (time / score(before)!!.first - 1) * 100
+            val allocation = score(run, "gc.alloc.rate.norm")?.first
+            val allocationBefore = score(before, "gc.alloc.rate.norm")?.first
+            println(String.format("%-90s %12.1f %-6s %+7.1f%%  alloc %10.0f B/op (was %s)", name, time, unit, change,
+                    allocation ?: Double.NaN, allocationBefore?.let { String.format("%.0f", it) } ?: "-"))
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.taxidata.benchmarks;
+
+import com.taxidata.api.cache.RideCacheSerializer;
+import com.taxidata.api.config.JacksonConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of a single ride and a 20-ride page by every serializer they pass through:
+ * <ul>
+ *     <li>{@code json}: the {@code JacksonConfig} ObjectMapper with default typing, as used for responses
+ *     and by {@code api.cache.serializer=json}</li>
+ *     <li>{@code binary} and {@code binary-deflate}: {@code RideCacheSerializer} below and above its compression threshold</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheValueBenchmark {
+
+    @Param({"json", "binary", "binary-deflate"})
+    String format;
+
+    @Param({"ride", "page"})
+    String value;
+
+    @Param({"0", "3", "10"})
+    int importantPlaces;
+
+    private RedisSerializer<Object> serializer;
+    private Object cached;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(new JacksonConfig().objectMapper());
+        serializer = switch (format) {
+            case "json" -> json;
+            case "binary" -> new RideCacheSerializer(json, Integer.MAX_VALUE);
+            case "binary-deflate" -> new RideCacheSerializer(json, 0);
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        cached = "page".equals(value) ? RideFixtures.page(20, importantPlaces) : RideFixtures.dto(42, importantPlaces);
+        encoded = serializer.serialize(cached);
+        if (!cached.equals(serializer.deserialize(encoded))) {
+            throw new IllegalStateException(format + " does not round-trip a " + value);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(cached);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(encoded);
+    }
+}
@@ -0,0 +1,78 @@
+package com.taxidata.benchmarks;
+
+import com.taxidata.processor.model.TaxiRide;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of generator messages by the processor's {@code Jackson2JsonMessageConverter}
+ * ({@code RabbitConfig}), one message and a 100-message batch as the batch listener receives them.
+ * The target type is inferred from the listener parameter, as in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageDecodingBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"0", "3", "10"})
+    int importantPlaces;
+
+    private Jackson2JsonMessageConverter converter;
+    private Message message;
+    private List<Message> batch;
+
+    @Setup
+    public void setUp() {
+        converter = new Jackson2JsonMessageConverter();
+        message = message(1);
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= BATCH_SIZE; i++) {
+            batch.add(message(i));
+        }
+        if (!(converter.fromMessage(message) instanceof TaxiRide)) {
+            throw new IllegalStateException("Message did not decode to a TaxiRide");
+        }
+    }
+
+    @Benchmark
+    public Object decode() {
+        return converter.fromMessage(message);
+    }
+
+    @Benchmark
+    public List<Object> decodeBatch() {
+        List<Object> rides = new ArrayList<>(BATCH_SIZE);
+        for (Message each : batch) {
+            rides.add(converter.fromMessage(each));
+        }
+        return rides;
+    }
+
+    private Message message(long id) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setInferredArgumentType(TaxiRide.class);
+        return new Message(RideFixtures.message(id, importantPlaces), properties);
+    }
+}
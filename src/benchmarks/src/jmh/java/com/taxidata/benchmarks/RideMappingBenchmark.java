@@ -0,0 +1,64 @@
+package com.taxidata.benchmarks;
+
+import com.taxidata.api.dto.PageDTO;
+import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.api.model.TaxiRide;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping of the read path: {@code TaxiRide.toDTO}, the constructor the JPQL
+ * projection calls for every row, and {@code PageDTO.fromPage} over a 20-ride page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RideMappingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "3", "10"})
+    int importantPlaces;
+
+    private TaxiRide entity;
+    private Page<TaxiRide> page;
+
+    @Setup
+    public void setUp() {
+        entity = RideFixtures.entity(42, importantPlaces);
+        page = new PageImpl<>(RideFixtures.entities(PAGE_SIZE, importantPlaces), PageRequest.of(3, PAGE_SIZE), 1_000_000);
+    }
+
+    @Benchmark
+    public TaxiRideDTO toDTO() {
+        return entity.toDTO();
+    }
+
+    @Benchmark
+    public TaxiRideDTO projectionRow() {
+        return new TaxiRideDTO(entity.getId(), entity.getStart(), entity.getEnd(), entity.getImportantPlaces(),
+                entity.getStartDate(), entity.getEndDate(), entity.getPrice(), entity.getDistanceKm(), entity.getVersion());
+    }
+
+    @Benchmark
+    public PageDTO<TaxiRideDTO> pageFromPage() {
+        return PageDTO.fromPage(page, TaxiRide::toDTO);
+    }
+}
@@ -0,0 +1,62 @@
+package com.taxidata.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only nanosecond samples of one recording thread (or of callbacks that never overlap), in
+ * fixed chunks so that recording never copies and allocates only once per chunk.
+ */
+public class LatencySamples {
+
+    private static final int DEFAULT_CHUNK = 1 << 16;
+
+    private final int chunk;
+    private final List<long[]> chunks = new ArrayList<>();
+    private long[] current;
+    private int position;
+
+    public LatencySamples() {
+        this(DEFAULT_CHUNK);
+    }
+
+    /**
+     * @param chunk samples per allocation; keep it small when there are many recorders
+     */
+    public LatencySamples(int chunk) {
+        this.chunk = chunk;
+        this.current = new long[chunk];
+    }
+
+    public void record(long nanos) {
+        if (position == chunk) {
+            chunks.add(current);
+            current = new long[chunk];
+            position = 0;
+        }
+        current[position++] = nanos;
+    }
+
+    /**
+     * All samples of all threads, sorted.
+     */
+    public static long[] merge(List<LatencySamples> all) {
+        long total = 0;
+        for (LatencySamples samples : all) {
+            total += (long) samples.chunks.size() * samples.chunk + samples.position;
+        }
+        long[] merged = new long[Math.toIntExact(total)];
+        int offset = 0;
+        for (LatencySamples samples : all) {
+            for (long[] chunk : samples.chunks) {
+                System.arraycopy(chunk, 0, merged, offset, samples.chunk);
+                offset += samples.chunk;
+            }
+            System.arraycopy(samples.current, 0, merged, offset, samples.position);
+            offset += samples.position;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+}
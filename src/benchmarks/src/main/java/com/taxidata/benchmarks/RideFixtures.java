@@ -0,0 +1,127 @@
+package com.taxidata.benchmarks;
+
+import com.taxidata.api.dto.PageDTO;
+import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.api.model.Location;
+import com.taxidata.api.model.TaxiRide;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Rides shaped like the ones the data generator publishes: New York places, a 15–120 minute trip
+ * in 2024 and a price between 5 and 80. Seeded by id, so every run and every commit measures the same
+ * data and the same id always yields the same ride.
+ */
+public final class RideFixtures {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Object[][] PLACES = {
+            {"Times Square", 40.7580, -73.9855},
+            {"Central Park", 40.7851, -73.9683},
+            {"Empire State Building", 40.7484, -73.9857},
+            {"Brooklyn Bridge", 40.7061, -73.9969},
+            {"Grand Central Terminal", 40.7527, -73.9772},
+            {"Statue of Liberty", 40.6892, -74.0445},
+            {"Wall Street", 40.7060, -74.0086},
+            {"JFK Airport", 40.6413, -73.7781},
+            {"LaGuardia Airport", 40.7769, -73.8740},
+            {"Rockefeller Center", 40.7587, -73.9787},
+            {"Madison Square Garden", 40.7505, -73.9934},
+            {"Yankee Stadium", 40.8296, -73.9262},
+    };
+
+    private RideFixtures() {
+    }
+
+    public static TaxiRide entity(long id, int importantPlaces) {
+        Random random = new Random(id);
+        LocalDateTime start = startDate(random);
+        return TaxiRide.builder()
+                .id(id)
+                .start(location(random.nextInt(PLACES.length)))
+                .end(location(random.nextInt(PLACES.length)))
+                .importantPlaces(places(random, importantPlaces))
+                .startDate(start)
+                .endDate(start.plusMinutes(15 + random.nextInt(106)))
+                .price(price(random))
+                .distanceKm(1 + random.nextDouble() * 29)
+                .build();
+    }
+
+    public static TaxiRideDTO dto(long id, int importantPlaces) {
+        return entity(id, importantPlaces).toDTO();
+    }
+
+    public static List<TaxiRide> entities(int count, int importantPlaces) {
+        List<TaxiRide> rides = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            rides.add(entity(i, importantPlaces));
+        }
+        return rides;
+    }
+
+    public static PageDTO<TaxiRideDTO> page(int size, int importantPlaces) {
+        List<TaxiRideDTO> rides = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            rides.add(dto(i, importantPlaces));
+        }
+        PageDTO<TaxiRideDTO> page = new PageDTO<>();
+        page.setContent(rides);
+        page.setPageNumber(3);
+        page.setPageSize(size);
+        page.setTotalElements(1_000_000L);
+        page.setTotalPages(1_000_000 / size);
+        return page;
+    }
+
+    /**
+     * Message body as {@code generator.py} writes it, with snake_case keys.
+     */
+    public static byte[] message(long id, int importantPlaces) {
+        Random random = new Random(id);
+        LocalDateTime start = startDate(random);
+        StringBuilder json = new StringBuilder(256 + importantPlaces * 80);
+        json.append("{\"start\": ").append(locationJson(random.nextInt(PLACES.length)))
+                .append(", \"end\": ").append(locationJson(random.nextInt(PLACES.length)))
+                .append(", \"important_places\": [");
+        for (int i = 0; i < importantPlaces; i++) {
+            json.append(i > 0 ? ", " : "").append(locationJson(random.nextInt(PLACES.length)));
+        }
+        json.append("], \"start_date\": \"").append(start.format(DATE_FORMAT))
+                .append("\", \"end_date\": \"").append(start.plusMinutes(15 + random.nextInt(106)).format(DATE_FORMAT))
+                .append("\", \"price\": ").append(price(random)).append('}');
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static LocalDateTime startDate(Random random) {
+        return LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(366 * 24 * 60));
+    }
+
+    private static double price(Random random) {
+        return Math.round((5 + random.nextDouble() * 75) * 100) / 100.0;
+    }
+
+    private static List<Location> places(Random random, int count) {
+        List<Location> places = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            places.add(location(random.nextInt(PLACES.length)));
+        }
+        return places;
+    }
+
+    private static Location location(int index) {
+        return new Location((Double) PLACES[index][1], (Double) PLACES[index][2], (String) PLACES[index][0]);
+    }
+
+    private static String locationJson(int index) {
+        return String.format(Locale.ROOT, "{\"latitude\": %s, \"longitude\": %s, \"place\": \"%s\"}",
+                PLACES[index][1], PLACES[index][2], PLACES[index][0]);
+    }
+}
@@ -0,0 +1,152 @@
+package com.taxidata.benchmarks.http;
+
+import com.taxidata.benchmarks.LatencySamples;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Side-by-side load test of the ride query API variants. Every target gets the same closed-loop load:
+ * a fixed number of clients, each on its own HTTP/1.1 connection, sending a price-range page or a ride
+ * by ID as soon as its previous response arrived. Requests are asynchronous, so a thousand clients
+ * need only a few threads here and the load generator is not the bottleneck.
+ * <p>
+ * Latency runs from sending a request to receiving the whole response. A closed loop slows down with
+ * the server, so compare throughput and latency together; the ingest harness is the open-loop test.
+ * 404s for unknown ride IDs count as successes, every other non-200 response and every I/O error as
+ * an error.
+ * <p>
+ * Run with {@code ./gradlew :src:benchmarks:apiLoadTest -Pload.clients=2000}; see {@link LoadSettings}.
+ */
+public final class ApiLoadTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadSettings settings;
+
+    ApiLoadTest(LoadSettings settings) {
+        this.settings = settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        System.out.println("API load test: " + settings.describe());
+        ApiLoadTest loadTest = new ApiLoadTest(settings);
+        for (Map.Entry<String, URI> target : settings.targets().entrySet()) {
+            loadTest.run(target.getKey(), target.getValue());
+        }
+    }
+
+    void run(String name, URI baseUri) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(executor)
+                .build();
+        try {
+            long start = System.nanoTime();
+            long measureFrom = start + settings.warmup().toNanos();
+            long measureTo = measureFrom + settings.duration().toNanos();
+            LongAdder errors = new LongAdder();
+            CountDownLatch done = new CountDownLatch(settings.clients());
+
+            List<LatencySamples> samples = new ArrayList<>(settings.clients());
+            for (int i = 0; i < settings.clients(); i++) {
+                // A client's requests never overlap, so its callbacks can share unsynchronized samples
+                LatencySamples clientSamples = new LatencySamples(1 << 10);
+                samples.add(clientSamples);
+                new Client(client, baseUri, clientSamples, errors, measureFrom, measureTo, done).next();
+            }
+            if (!done.await(settings.warmup().plus(settings.duration()).plus(REQUEST_TIMEOUT).toSeconds(), TimeUnit.SECONDS)) {
+                System.out.printf("%s: clients did not finish within the request timeout%n", name);
+            }
+            report(name, LatencySamples.merge(samples), errors.sum());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private final class Client {
+        private final HttpClient http;
+        private final URI baseUri;
+        private final LatencySamples samples;
+        private final LongAdder errors;
+        private final long measureFrom;
+        private final long measureTo;
+        private final CountDownLatch done;
+
+        Client(HttpClient http, URI baseUri, LatencySamples samples, LongAdder errors, long measureFrom,
+               long measureTo, CountDownLatch done) {
+            this.http = http;
+            this.baseUri = baseUri;
+            this.samples = samples;
+            this.errors = errors;
+            this.measureFrom = measureFrom;
+            this.measureTo = measureTo;
+            this.done = done;
+        }
+
+        void next() {
+            long sentAt = System.nanoTime();
+            if (sentAt >= measureTo) {
+                done.countDown();
+                return;
+            }
+            HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(nextPath()))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build();
+            http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long receivedAt = System.nanoTime();
+                        if (sentAt >= measureFrom) {
+                            if (failure != null || (response.statusCode() != 200 && response.statusCode() != 404)) {
+                                errors.increment();
+                            } else {
+                                samples.record(receivedAt - sentAt);
+                            }
+                        }
+                        next();
+                    });
+        }
+
+        private String nextPath() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < settings.byIdShare()) {
+                return "/api/v1/rides/" + random.nextLong(1, settings.maxId() + 1);
+            }
+            int minPrice = random.nextInt(settings.priceRanges()) * 10;
+            return "/api/v1/rides?minPrice=" + minPrice + "&maxPrice=" + (minPrice + 10) + "&page=" + random.nextInt(5)
+                    + "&size=20";
+        }
+    }
+
+    private void report(String name, long[] latencies, long errors) {
+        double seconds = settings.duration().toNanos() / 1e9;
+        System.out.printf("%-10s %,10.0f req/s  p50 %7.2f ms  p99 %7.2f ms  p99.9 %7.2f ms  max %8.2f ms  %,d errors%n",
+                name, latencies.length / seconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                percentile(latencies, 1.0), errors);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+}
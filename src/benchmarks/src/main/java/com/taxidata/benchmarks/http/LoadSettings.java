@@ -0,0 +1,41 @@
+package com.taxidata.benchmarks.http;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test parameters, read from {@code load.*} system properties.
+ *
+ * @param targets     name and base URL of every API under test, run one after the other
+ * @param clients     concurrent clients; each sends its next request when the previous one completes
+ * @param maxId       ride IDs are drawn from 1 to this
+ * @param byIdShare   share of requests for a single ride; the rest are price-range pages
+ * @param priceRanges distinct 10-unit price ranges the page requests spread over
+ */
+record LoadSettings(Map<String, URI> targets, int clients, Duration warmup, Duration duration, long maxId,
+                    double byIdShare, int priceRanges) {
+
+    static LoadSettings fromSystemProperties() {
+        Map<String, URI> targets = new LinkedHashMap<>();
+        Arrays.stream(System.getProperty("load.targets", "mvc=http://localhost:8080,reactive=http://localhost:8082").split(","))
+                .map(target -> target.split("=", 2))
+                .forEach(target -> targets.put(target[0].trim(), URI.create(target[1].trim())));
+        return new LoadSettings(
+                targets,
+                Integer.getInteger("load.clients", 1_000),
+                Duration.ofSeconds(Long.getLong("load.warmup-seconds", 15)),
+                Duration.ofSeconds(Long.getLong("load.duration-seconds", 60)),
+                Long.getLong("load.max-id", 100_000),
+                Double.parseDouble(System.getProperty("load.by-id-share", "0.3")),
+                Integer.getInteger("load.price-ranges", 50));
+    }
+
+    String describe() {
+        return String.format("%,d clients, %.0f%% by ID (1..%,d), %.0f%% pages over %d price ranges, %d s warm-up, %d s measured",
+                clients, byIdShare * 100, maxId, (1 - byIdShare) * 100, priceRanges,
+                warmup.toSeconds(), duration.toSeconds());
+    }
+}
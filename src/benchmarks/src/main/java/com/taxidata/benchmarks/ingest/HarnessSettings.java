@@ -0,0 +1,44 @@
+package com.taxidata.benchmarks.ingest;
+
+import java.time.Duration;
+
+/**
+ * Harness parameters, read from {@code harness.*} system properties.
+ *
+ * @param rate            rides generated per second; 0 generates as fast as the consumers take them
+ * @param batch           drive the batch listener ({@code processRides}) instead of {@code processRide}
+ * @param virtualThreads  run the consumers on virtual threads (Java 21+) instead of platform threads
+ * @param commitLatency   time charged for every commit and duplicate lookup of the database stand-in
+ * @param poolSize        commits and lookups in flight at once, like the processor's Hikari pool
+ * @param duplicateRate   share of messages that redeliver an earlier ride
+ * @param queueCapacity   messages the broker stand-in holds before the generator blocks
+ */
+record HarnessSettings(int rate, Duration warmup, Duration duration, int consumers, boolean virtualThreads,
+                       boolean batch, int batchSize, Duration batchMaxWait, Duration commitLatency, int poolSize,
+                       int importantPlaces, double duplicateRate, int queueCapacity) {
+
+    static HarnessSettings fromSystemProperties() {
+        return new HarnessSettings(
+                Integer.getInteger("harness.rate", 5_000),
+                Duration.ofSeconds(Long.getLong("harness.warmup-seconds", 15)),
+                Duration.ofSeconds(Long.getLong("harness.duration-seconds", 60)),
+                Integer.getInteger("harness.consumers", 4),
+                Boolean.getBoolean("harness.virtual-threads"),
+                Boolean.parseBoolean(System.getProperty("harness.batch", "true")),
+                Integer.getInteger("harness.batch-size", 100),
+                Duration.ofMillis(Long.getLong("harness.batch-max-wait-ms", 500)),
+                Duration.ofNanos(Math.round(Double.parseDouble(System.getProperty("harness.commit-latency-ms", "2")) * 1_000_000)),
+                Integer.getInteger("harness.pool-size", 10),
+                Integer.getInteger("harness.important-places", 3),
+                Double.parseDouble(System.getProperty("harness.duplicate-rate", "0.01")),
+                Integer.getInteger("harness.queue-capacity", 10_000));
+    }
+
+    String describe() {
+        return String.format("%s listener, %d %s consumers%s, %s, commit latency %.1f ms, pool of %d, %d important places, %.1f%% redeliveries",
+                batch ? "batch" : "single-message", consumers, virtualThreads ? "virtual" : "platform",
+                batch ? ", batches of up to " + batchSize : "",
+                rate > 0 ? String.format("target %,d rides/s", rate) : "unthrottled",
+                commitLatency.toNanos() / 1e6, poolSize, importantPlaces, duplicateRate * 100);
+    }
+}
@@ -0,0 +1,108 @@
+package com.taxidata.benchmarks.ingest;
+
+import com.taxidata.processor.dedup.RideFingerprint;
+import com.taxidata.processor.model.TaxiRide;
+import com.taxidata.processor.repository.RideWriter;
+import com.taxidata.processor.repository.TaxiRideRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Database stand-in for the harness: a {@link RideWriter} that assigns ids and charges a fixed commit
+ * latency per transaction, plus the one repository query the processor issues ({@code existsDuplicate}).
+ * At most {@code poolSize} of them run at once; the rest wait, as they would for a pooled connection.
+ * Only the fingerprints of the last {@link #RETAINED} rides are kept, which covers the harness's
+ * redeliveries and keeps the heap flat on long runs.
+ */
+class InMemoryRideStore implements RideWriter {
+
+    static final int RETAINED = 1 << 17;
+
+    private final long commitLatencyNanos;
+    private final Semaphore connections;
+    private final AtomicLong ids = new AtomicLong();
+    private final Set<RideFingerprint> stored = ConcurrentHashMap.newKeySet();
+    private final RideFingerprint[] recent = new RideFingerprint[RETAINED];
+    private int next;
+
+    InMemoryRideStore(Duration commitLatency, int poolSize) {
+        this.commitLatencyNanos = commitLatency.toNanos();
+        this.connections = new Semaphore(poolSize, true);
+    }
+
+    @Override
+    public void write(TaxiRide ride) {
+        store(List.of(ride));
+        commit();
+    }
+
+    @Override
+    public void writeAll(List<TaxiRide> rides) {
+        store(rides);
+        commit();
+    }
+
+    long writtenCount() {
+        return ids.get();
+    }
+
+    /**
+     * Answers {@code existsDuplicate} from the stored fingerprints; every other repository method is unsupported.
+     */
+    TaxiRideRepository repository() {
+        return (TaxiRideRepository) Proxy.newProxyInstance(TaxiRideRepository.class.getClassLoader(),
+                new Class<?>[]{TaxiRideRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("existsDuplicate")) {
+                        commit();
+                        return stored.contains(new RideFingerprint((Double) args[0], (Double) args[1], (String) args[2],
+                                (Double) args[3], (Double) args[4], (String) args[5],
+                                (LocalDateTime) args[6], (LocalDateTime) args[7], (Double) args[8]));
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> "InMemoryRideStore.repository";
+                        };
+                    }
+                    throw new UnsupportedOperationException(method.getName() + " is not available in the ingest harness");
+                });
+    }
+
+    private void store(List<TaxiRide> rides) {
+        RideFingerprint[] fingerprints = new RideFingerprint[rides.size()];
+        for (int i = 0; i < fingerprints.length; i++) {
+            rides.get(i).setId(ids.incrementAndGet());
+            fingerprints[i] = RideFingerprint.of(rides.get(i));
+        }
+        synchronized (recent) {
+            for (RideFingerprint fingerprint : fingerprints) {
+                if (recent[next] != null) {
+                    stored.remove(recent[next]);
+                }
+                recent[next] = fingerprint;
+                stored.add(fingerprint);
+                next = (next + 1) % RETAINED;
+            }
+        }
+    }
+
+    private void commit() {
+        if (commitLatencyNanos > 0) {
+            connections.acquireUninterruptibly();
+            try {
+                LockSupport.parkNanos(commitLatencyNanos);
+            } finally {
+                connections.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package com.taxidata.benchmarks.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taxidata.benchmarks.LatencySamples;
+import com.taxidata.benchmarks.RideFixtures;
+import com.taxidata.processor.config.VirtualThreadConfig;
+import com.taxidata.processor.dedup.RideDeduplicator;
+import com.taxidata.processor.events.RideCommitNotifier;
+import com.taxidata.processor.metrics.IngestMetrics;
+import com.taxidata.processor.model.TaxiRide;
+import com.taxidata.processor.repository.RideWriter;
+import com.taxidata.processor.repository.TaxiRideRepository;
+import com.taxidata.processor.service.TaxiRideProcessor;
+import com.taxidata.processor.spill.RideSpillLog;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ingest load test in one JVM. A generator thread publishes generator-shaped ride messages at a fixed
+ * rate into a bounded queue (the broker stand-in). Consumer threads take batches the way the batch
+ * listener container does, decode them with the processor's {@link Jackson2JsonMessageConverter} and
+ * hand them to the real {@link TaxiRideProcessor}, wired by Spring with the real deduplicator, circuit
+ * breaker and commit notifier. The database is {@link InMemoryRideStore}, which charges a fixed latency
+ * per commit.
+ * <p>
+ * Latency runs from the moment a message was due to be published to the return of the listener, i.e.
+ * after the commit. The schedule is fixed in advance, so a stalled consumer shows up as latency
+ * instead of silently lowering the offered load. Only the measurement window after the warm-up is reported.
+ * <p>
+ * Run with {@code ./gradlew :src:benchmarks:ingestHarness -Pharness.rate=20000}; see {@link HarnessSettings}.
+ */
+public final class IngestHarness {
+
+    /**
+     * Redeliveries repeat one of this many most recent rides, all still known to {@link InMemoryRideStore}.
+     */
+    private static final int REDELIVERY_WINDOW = 100_000;
+
+    private static final Delivery END = new Delivery(null, 0);
+
+    private final HarnessSettings settings;
+    private final BlockingQueue<Delivery> broker;
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private final LongAdder completedInWindow = new LongAdder();
+
+    private volatile long measureFrom;
+    private volatile long measureTo;
+
+    private record Delivery(Message message, long dueAt) {
+    }
+
+    IngestHarness(HarnessSettings settings) {
+        this.settings = settings;
+        this.broker = new ArrayBlockingQueue<>(settings.queueCapacity());
+    }
+
+    public static void main(String[] args) throws Exception {
+        HarnessSettings settings = HarnessSettings.fromSystemProperties();
+        System.out.println("Ingest harness: " + settings.describe());
+        new IngestHarness(settings).run();
+    }
+
+    void run() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InMemoryRideStore store = new InMemoryRideStore(settings.commitLatency(), settings.poolSize());
+        try (AnnotationConfigApplicationContext context = processorContext(meterRegistry, store)) {
+            TaxiRideProcessor processor = context.getBean(TaxiRideProcessor.class);
+
+            long start = System.nanoTime();
+            measureFrom = start + settings.warmup().toNanos();
+            measureTo = measureFrom + settings.duration().toNanos();
+
+            List<LatencySamples> samples = new ArrayList<>();
+            List<Thread> consumers = new ArrayList<>();
+            ThreadFactory consumerThreads = settings.virtualThreads()
+                    ? new VirtualThreadTaskExecutor("harness-consumer-").getVirtualThreadFactory()
+                    : new CustomizableThreadFactory("harness-consumer-");
+            // Keeps the sample buffers of a thousand virtual consumers within the heap
+            int chunk = Math.max(1 << 10, Math.min(1 << 16, (1 << 20) / settings.consumers()));
+            for (int i = 0; i < settings.consumers(); i++) {
+                LatencySamples consumerSamples = new LatencySamples(chunk);
+                samples.add(consumerSamples);
+                Thread consumer = consumerThreads.newThread(() -> consume(processor, consumerSamples));
+                consumers.add(consumer);
+                consumer.start();
+            }
+            Thread generator = new Thread(() -> generate(start), "harness-generator");
+            generator.start();
+
+            LockSupport.parkNanos(measureFrom - System.nanoTime());
+            long[] ids = consumers.stream().mapToLong(Thread::getId).toArray();
+            long allocatedBefore = allocatedBytes(ids);
+            long[] gcBefore = gcTotals();
+
+            LockSupport.parkNanos(measureTo - System.nanoTime());
+            // HotSpot keeps no allocation counter for virtual threads
+            long allocated = settings.virtualThreads() ? -1 : allocatedBytes(ids) - allocatedBefore;
+            long[] gc = gcTotals();
+
+            generator.join();
+            for (Thread consumer : consumers) {
+                consumer.join();
+            }
+
+            report(LatencySamples.merge(samples), allocated, gc[0] - gcBefore[0], gc[1] - gcBefore[1],
+                    meterRegistry, store);
+        }
+    }
+
+    /**
+     * The processor's listener path as Spring wires it, with the broker and database replaced.
+     */
+    private AnnotationConfigApplicationContext processorContext(MeterRegistry meterRegistry, InMemoryRideStore store) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        // Parses the Duration and DataSize values of the processor's @Value settings
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        // processor.dedup.* system properties still apply
+        context.getEnvironment().getPropertySources()
+                .addLast(new MapPropertySource("harness", Map.of("processor.spill.enabled", "false",
+                        "spring.threads.virtual.enabled", String.valueOf(settings.virtualThreads()))));
+        context.registerBean(MeterRegistry.class, () -> meterRegistry);
+        context.registerBean(CircuitBreakerRegistry.class, CircuitBreakerRegistry::ofDefaults);
+        context.registerBean(RideWriter.class, () -> store);
+        context.registerBean(TaxiRideRepository.class, store::repository);
+        context.registerBean(RideSpillLog.class, () -> new RideSpillLog(new ObjectMapper(), meterRegistry, false,
+                Path.of(System.getProperty("java.io.tmpdir"), "taxi-harness-spill"), DataSize.ofMegabytes(64)));
+        context.registerBean(RideCommitNotifier.class, () -> new RideCommitNotifier(List.of()));
+        context.register(IngestMetrics.class, RideDeduplicator.class, TaxiRideProcessor.class,
+                VirtualThreadConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    private void generate(long start) {
+        long interval = settings.rate() > 0 ? TimeUnit.SECONDS.toNanos(1) / settings.rate() : 0;
+        long end = measureTo;
+        long nextId = 1;
+        try {
+            for (long i = 0; ; i++) {
+                long dueAt = interval > 0 ? start + i * interval : System.nanoTime();
+                if (dueAt >= end) {
+                    break;
+                }
+                long wait = dueAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                long id = nextId > 1 && ThreadLocalRandom.current().nextDouble() < settings.duplicateRate()
+                        ? nextId - 1 - ThreadLocalRandom.current().nextLong(Math.min(nextId - 1, REDELIVERY_WINDOW))
+                        : nextId++;
+                broker.put(new Delivery(message(id), dueAt));
+            }
+            for (int i = 0; i < settings.consumers(); i++) {
+                broker.put(END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Message message(long id) {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        // Set by the listener adapter from the listener's parameter type
+        properties.setInferredArgumentType(TaxiRide.class);
+        return new Message(RideFixtures.message(id, settings.importantPlaces()), properties);
+    }
+
+    private void consume(TaxiRideProcessor processor, LatencySamples samples) {
+        int batchSize = settings.batch() ? settings.batchSize() : 1;
+        List<Delivery> deliveries = new ArrayList<>(batchSize);
+        List<TaxiRide> rides = new ArrayList<>(batchSize);
+        try {
+            boolean ended = false;
+            while (!ended) {
+                Delivery first = broker.take();
+                if (first == END) {
+                    break;
+                }
+                deliveries.add(first);
+                // Like the container: wait up to batch-max-wait for the batch to fill
+                long deadline = System.nanoTime() + settings.batchMaxWait().toNanos();
+                while (deliveries.size() < batchSize) {
+                    Delivery next = broker.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == END) {
+                        ended = true;
+                        break;
+                    }
+                    deliveries.add(next);
+                }
+
+                for (Delivery delivery : deliveries) {
+                    rides.add((TaxiRide) converter.fromMessage(delivery.message()));
+                }
+                if (settings.batch()) {
+                    processor.processRides(rides);
+                } else {
+                    processor.processRide(rides.get(0));
+                }
+
+                long done = System.nanoTime();
+                for (Delivery delivery : deliveries) {
+                    if (delivery.dueAt() >= measureFrom) {
+                        samples.record(done - delivery.dueAt());
+                    }
+                }
+                if (done >= measureFrom && done < measureTo) {
+                    completedInWindow.add(deliveries.size());
+                }
+                deliveries.clear();
+                rides.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void report(long[] latencies, long allocatedBytes, long gcCount, long gcMillis,
+                        MeterRegistry meterRegistry, InMemoryRideStore store) {
+        double seconds = settings.duration().toNanos() / 1e9;
+        long completed = completedInWindow.sum();
+        System.out.printf("Sustained:   %,.0f rides/s (%,d rides in %.0f s)%n", completed / seconds, completed, seconds);
+        if (latencies.length > 0) {
+            System.out.printf("Latency:     p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms (due → committed, %,d samples)%n",
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    latencies[latencies.length - 1] / 1e6, latencies.length);
+        }
+        // Includes the warm-up
+        System.out.printf("Stage means: %s%n", stages(meterRegistry));
+        if (allocatedBytes >= 0) {
+            System.out.printf("Allocation:  %,.1f MB/s on the consumer threads, %,.0f bytes per ride%n",
+                    allocatedBytes / seconds / (1 << 20), completed > 0 ? (double) allocatedBytes / completed : 0.0);
+        } else {
+            System.out.printf("Allocation:  not measured on virtual threads%n");
+        }
+        System.out.printf("GC:          %d collections, %d ms%n", gcCount, gcMillis);
+        if (settings.virtualThreads()) {
+            // Includes the warm-up
+            System.out.printf("Pinned:      %s%n", pinning(meterRegistry));
+        }
+        System.out.printf("Outcome:     %,d written, %,.0f redeliveries dropped, %,.0f rejected%n", store.writtenCount(),
+                sum(meterRegistry.find("taxi.processor.dedup.duplicates")),
+                sum(meterRegistry.find("taxi.processor.rides.rejected")));
+    }
+
+    private static String stages(MeterRegistry meterRegistry) {
+        StringBuilder stages = new StringBuilder();
+        for (Timer timer : meterRegistry.find("taxi.processor.stage").timers()) {
+            if (timer.count() > 0) {
+                stages.append(String.format("%s %.1f µs, ", timer.getId().getTag("stage"),
+                        timer.mean(TimeUnit.MICROSECONDS)));
+            }
+        }
+        return stages.isEmpty() ? "-" : stages.substring(0, stages.length() - 2);
+    }
+
+    private static String pinning(MeterRegistry meterRegistry) {
+        StringBuilder frames = new StringBuilder();
+        for (Timer timer : meterRegistry.find("taxi.threads.virtual.pinned").timers()) {
+            frames.append(String.format("%s %d× %.1f ms, ", timer.getId().getTag("frame"), timer.count(),
+                    timer.totalTime(TimeUnit.MILLISECONDS)));
+        }
+        return frames.isEmpty() ? "none above the threshold" : frames.substring(0, frames.length() - 2);
+    }
+
+    private static double sum(Search search) {
+        return search.counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+
+    private static long allocatedBytes(long[] threadIds) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threadIds)) {
+            total += Math.max(0, bytes);
+        }
+        return total;
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+}
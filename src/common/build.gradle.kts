@@ -0,0 +1,43 @@
+plugins {
+    id("io.spring.dependency-management")
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+// Same library versions as the services
+dependencyManagement {
+    imports {
+        mavenBom("org.springframework.boot:spring-boot-dependencies:3.2.0")
+    }
+}
+
+// Cache DTOs and their Redis encoding, shared by src:api and src:api-reactive so both replicas
+// read and write the same cache entries, and the metrics the API and the processor both record
+dependencies {
+    api("com.fasterxml.jackson.core:jackson-databind")
+    api("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
+    api("org.springframework:spring-context")
+    api("org.springframework.data:spring-data-commons")
+    api("org.springframework.data:spring-data-redis")
+    api("io.micrometer:micrometer-core")
+    implementation("jakarta.annotation:jakarta.annotation-api")
+    implementation("org.slf4j:slf4j-api")
+
+    // Location is also a JPA embeddable in src:api; the reactive API never loads the annotation
+    compileOnly("jakarta.persistence:jakarta.persistence-api")
+
+    compileOnly("org.projectlombok:lombok")
+    annotationProcessor("org.projectlombok:lombok")
+
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+    // ./gradlew :src:common:test -Dbenchmark=true runs the serializer benchmark
+    systemProperty("benchmark", System.getProperty("benchmark") ?: "false")
+}
@@ -0,0 +1,104 @@
+package com.taxidata.api.cache;
+
+import com.taxidata.api.dto.CountMode;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+/**
+ * Cache keys of price-range searches. Every key starts with {@code <prefix><min>_<max>:}, so the
+ * bounds can be recovered from the key when a committed price has to be matched against it.
+ */
+public final class PriceRangeKeys {
+
+    static final String PAGE_PREFIX = "price_range:";
+    static final String CURSOR_PREFIX = "price_range_cursor:";
+
+    private PriceRangeKeys() {
+    }
+
+    /**
+     * Key of one offset page: bounds, page number, page size and sort.
+     */
+    public static String key(Double minPrice, Double maxPrice, Pageable pageable) {
+        String page = pageable.isPaged()
+                ? "p" + pageable.getPageNumber() + ":s" + pageable.getPageSize()
+                : "unpaged";
+        return PAGE_PREFIX + minPrice + "_" + maxPrice + ":" + page + ":" + sort(pageable.getSort());
+    }
+
+    /**
+     * Key of one offset page restricted to a start-date window; without a window it equals
+     * {@link #key(Double, Double, Pageable)}.
+     */
+    public static String key(Double minPrice, Double maxPrice, LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        String key = key(minPrice, maxPrice, pageable);
+        return from == null && to == null ? key : key + ":d" + from + "_" + to;
+    }
+
+    /**
+     * Key of one offset page with a count mode; exact counts keep the key of
+     * {@link #key(Double, Double, LocalDateTime, LocalDateTime, Pageable)}.
+     */
+    public static String key(Double minPrice, Double maxPrice, LocalDateTime from, LocalDateTime to, Pageable pageable,
+                             CountMode count) {
+        String key = key(minPrice, maxPrice, from, to, pageable);
+        return count == CountMode.EXACT ? key : key + ":c" + count.value();
+    }
+
+    /**
+     * Key of the first page of a keyset search.
+     */
+    public static String cursorKey(Double minPrice, Double maxPrice, int size) {
+        return CURSOR_PREFIX + minPrice + "_" + maxPrice + ":s" + size;
+    }
+
+    /**
+     * Whether the key is a price-range key whose bounds contain one of the prices.
+     *
+     * @param sortedPrices prices in ascending order
+     */
+    static boolean containsAny(String key, double[] sortedPrices) {
+        String prefix = key.startsWith(CURSOR_PREFIX) ? CURSOR_PREFIX : key.startsWith(PAGE_PREFIX) ? PAGE_PREFIX : null;
+        if (prefix == null) {
+            return false;
+        }
+        int separator = key.indexOf('_', prefix.length());
+        int end = key.indexOf(':', prefix.length());
+        if (separator < 0 || end < separator) {
+            return false;
+        }
+        double min;
+        double max;
+        try {
+            min = Double.parseDouble(key.substring(prefix.length(), separator));
+            max = Double.parseDouble(key.substring(separator + 1, end));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+
+        // First price not below min
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid] < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < sortedPrices.length && sortedPrices[low] <= max;
+    }
+
+    private static String sort(Sort sort) {
+        if (sort.isUnsorted()) {
+            return "unsorted";
+        }
+        return sort.stream()
+                .map(order -> order.getProperty() + "." + order.getDirection())
+                .collect(Collectors.joining(","));
+    }
+}
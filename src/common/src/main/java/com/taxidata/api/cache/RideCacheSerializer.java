@@ -0,0 +1,493 @@
+package com.taxidata.api.cache;
+
+import com.taxidata.api.dto.CountMode;
+import com.taxidata.api.dto.CursorPageDTO;
+import com.taxidata.api.dto.PageDTO;
+import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.api.model.Location;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary encoding of the values in the {@code rides} cache.
+ * <p>
+ * Layout: {@code [magic][version][flags][type][payload]}. Nullable fields are announced in a
+ * per-object presence mask and integers are written as varints. Payloads above the compression
+ * threshold are deflated when that makes them smaller ({@code flags & COMPRESSED}, followed by the
+ * inflated length). Values of any other type are written with the fallback serializer, and bytes
+ * that do not start with the magic byte (e.g. JSON cached before this format existed) are read
+ * with it too.
+ * <p>
+ * Any change to the encoded DTO fields must bump {@link #VERSION}; readers reject versions they do
+ * not know, which the cache treats as a miss.
+ * <p>
+ * Lives in {@code src/common} with the DTOs it encodes, so {@code src/api} and {@code src/api-reactive},
+ * which read and write the same Redis entries, always use the same encoding.
+ */
+public class RideCacheSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte VERSION = 3;
+
+    private static final int COMPRESSED = 1;
+
+    private static final byte TYPE_RIDE = 1;
+    private static final byte TYPE_PAGE = 2;
+    private static final byte TYPE_CURSOR_PAGE = 3;
+
+    private static final int HEADER_LENGTH = 4;
+
+    // Presence mask of a ride
+    private static final int RIDE_ID = 1;
+    private static final int RIDE_START = 1 << 1;
+    private static final int RIDE_END = 1 << 2;
+    private static final int RIDE_START_DATE = 1 << 3;
+    private static final int RIDE_END_DATE = 1 << 4;
+    private static final int RIDE_PRICE = 1 << 5;
+    private static final int RIDE_DISTANCE = 1 << 6;
+    private static final int RIDE_PLACES = 1 << 7;
+    private static final int RIDE_IN_PROGRESS = 1 << 8;
+    private static final int RIDE_VERSION = 1 << 9;
+
+    // Presence mask of a page's totals
+    private static final int PAGE_TOTALS = 1;
+    private static final int PAGE_ERROR_BOUND = 1 << 1;
+
+    private final RedisSerializer<Object> fallback;
+    private final int compressionThreshold;
+
+    /**
+     * @param compressionThreshold payload size in bytes above which compression is attempted
+     */
+    public RideCacheSerializer(RedisSerializer<Object> fallback, int compressionThreshold) {
+        this.fallback = fallback;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        byte type = typeOf(value);
+        if (type == 0) {
+            return fallback.serialize(value);
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            switch (type) {
+                case TYPE_RIDE -> writeRide(out, (TaxiRideDTO) value);
+                case TYPE_PAGE -> writePage(out, (PageDTO<?>) value);
+                default -> writeCursorPage(out, (CursorPageDTO<?>) value);
+            }
+            out.flush();
+            return frame(type, bytes.toByteArray());
+        } catch (IOException e) {
+            throw new SerializationException("Cannot serialize " + value.getClass().getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return fallback.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_LENGTH) {
+            throw new SerializationException("Truncated cache value");
+        }
+        if (bytes[1] != VERSION) {
+            throw new SerializationException("Unsupported cache value version " + bytes[1]);
+        }
+
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload(bytes)));
+            return switch (bytes[3]) {
+                case TYPE_RIDE -> readRide(in);
+                case TYPE_PAGE -> readPage(in);
+                case TYPE_CURSOR_PAGE -> readCursorPage(in);
+                default -> throw new SerializationException("Unknown cache value type " + bytes[3]);
+            };
+        } catch (IOException | DataFormatException e) {
+            throw new SerializationException("Cannot deserialize cache value", e);
+        }
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof TaxiRideDTO) {
+            return TYPE_RIDE;
+        }
+        if (value instanceof PageDTO<?> page && containsOnlyRides(page.getContent())) {
+            return TYPE_PAGE;
+        }
+        if (value instanceof CursorPageDTO<?> page && containsOnlyRides(page.getContent())) {
+            return TYPE_CURSOR_PAGE;
+        }
+        return 0;
+    }
+
+    private static boolean containsOnlyRides(List<?> content) {
+        return content == null || content.stream().allMatch(TaxiRideDTO.class::isInstance);
+    }
+
+    private byte[] frame(byte type, byte[] payload) throws IOException {
+        byte flags = 0;
+        byte[] body = payload;
+        if (payload.length > compressionThreshold) {
+            byte[] compressed = deflate(payload);
+            if (compressed != null) {
+                flags |= COMPRESSED;
+                body = compressed;
+            }
+        }
+        byte[] framed = new byte[HEADER_LENGTH + body.length];
+        framed[0] = MAGIC;
+        framed[1] = VERSION;
+        framed[2] = flags;
+        framed[3] = type;
+        System.arraycopy(body, 0, framed, HEADER_LENGTH, body.length);
+        return framed;
+    }
+
+    /**
+     * Returns {@code [varint inflated length][deflate stream]}, or {@code null} if that is not smaller.
+     */
+    private static byte[] deflate(byte[] payload) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            writeVarLong(out, payload.length);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() >= payload.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] payload(byte[] bytes) throws IOException, DataFormatException {
+        if ((bytes[2] & COMPRESSED) == 0) {
+            byte[] payload = new byte[bytes.length - HEADER_LENGTH];
+            System.arraycopy(bytes, HEADER_LENGTH, payload, 0, payload.length);
+            return payload;
+        }
+
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        int length = (int) readVarLong(in);
+        int offset = bytes.length - in.available();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            byte[] payload = new byte[length];
+            int inflated = 0;
+            while (inflated < length && !inflater.finished()) {
+                int count = inflater.inflate(payload, inflated, length - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != length) {
+                throw new IOException("Compressed cache value is truncated");
+            }
+            return payload;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // --- Pages ---
+
+    private static void writePage(DataOutputStream out, PageDTO<?> page) throws IOException {
+        writeRides(out, page.getContent());
+        writeVarLong(out, page.getPageNumber());
+        writeVarLong(out, page.getPageSize());
+        boolean totals = page.getTotalElements() != null && page.getTotalPages() != null;
+        writeVarLong(out, (totals ? PAGE_TOTALS : 0) | (page.getTotalErrorBound() != null ? PAGE_ERROR_BOUND : 0));
+        out.writeByte(page.getCount().ordinal());
+        if (totals) {
+            writeVarLong(out, page.getTotalElements());
+            writeVarLong(out, page.getTotalPages());
+        }
+        if (page.getTotalErrorBound() != null) {
+            out.writeDouble(page.getTotalErrorBound());
+        }
+        out.writeByte((page.isFirst() ? 1 : 0) | (page.isLast() ? 2 : 0) | (page.isEmpty() ? 4 : 0)
+                | (page.isHasNext() ? 8 : 0));
+    }
+
+    private static PageDTO<TaxiRideDTO> readPage(DataInputStream in) throws IOException {
+        PageDTO<TaxiRideDTO> page = new PageDTO<>();
+        page.setContent(readRides(in));
+        page.setPageNumber((int) readVarLong(in));
+        page.setPageSize((int) readVarLong(in));
+        int mask = (int) readVarLong(in);
+        page.setCount(CountMode.values()[in.readUnsignedByte()]);
+        if ((mask & PAGE_TOTALS) != 0) {
+            page.setTotalElements(readVarLong(in));
+            page.setTotalPages((int) readVarLong(in));
+        }
+        if ((mask & PAGE_ERROR_BOUND) != 0) {
+            page.setTotalErrorBound(in.readDouble());
+        }
+        int flags = in.readUnsignedByte();
+        page.setFirst((flags & 1) != 0);
+        page.setLast((flags & 2) != 0);
+        page.setEmpty((flags & 4) != 0);
+        page.setHasNext((flags & 8) != 0);
+        return page;
+    }
+
+    private static void writeCursorPage(DataOutputStream out, CursorPageDTO<?> page) throws IOException {
+        writeRides(out, page.getContent());
+        writeVarLong(out, page.getSize());
+        out.writeBoolean(page.isHasNext());
+        writeString(out, page.getNextToken());
+    }
+
+    private static CursorPageDTO<TaxiRideDTO> readCursorPage(DataInputStream in) throws IOException {
+        CursorPageDTO<TaxiRideDTO> page = new CursorPageDTO<>();
+        page.setContent(readRides(in));
+        page.setSize((int) readVarLong(in));
+        page.setHasNext(in.readBoolean());
+        page.setNextToken(readString(in));
+        return page;
+    }
+
+    private static void writeRides(DataOutputStream out, List<?> rides) throws IOException {
+        if (rides == null) {
+            writeVarLong(out, -1);
+            return;
+        }
+        writeVarLong(out, rides.size());
+        for (Object ride : rides) {
+            writeRide(out, (TaxiRideDTO) ride);
+        }
+    }
+
+    private static List<TaxiRideDTO> readRides(DataInputStream in) throws IOException {
+        int size = (int) readVarLong(in);
+        if (size < 0) {
+            return null;
+        }
+        List<TaxiRideDTO> rides = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rides.add(readRide(in));
+        }
+        return rides;
+    }
+
+    // --- Rides ---
+
+    private static void writeRide(DataOutputStream out, TaxiRideDTO ride) throws IOException {
+        int mask = (ride.getId() != null ? RIDE_ID : 0)
+                | (ride.getStart() != null ? RIDE_START : 0)
+                | (ride.getEnd() != null ? RIDE_END : 0)
+                | (ride.getStartDate() != null ? RIDE_START_DATE : 0)
+                | (ride.getEndDate() != null ? RIDE_END_DATE : 0)
+                | (ride.getPrice() != null ? RIDE_PRICE : 0)
+                | (ride.getDistanceKm() != null ? RIDE_DISTANCE : 0)
+                | (ride.getImportantPlaces() != null ? RIDE_PLACES : 0)
+                | (ride.isInProgress() ? RIDE_IN_PROGRESS : 0)
+                | (ride.getVersion() != null ? RIDE_VERSION : 0);
+        writeVarLong(out, mask);
+
+        if (ride.getId() != null) {
+            writeVarLong(out, ride.getId());
+        }
+        if (ride.getStart() != null) {
+            writeLocation(out, ride.getStart());
+        }
+        if (ride.getEnd() != null) {
+            writeLocation(out, ride.getEnd());
+        }
+        if (ride.getStartDate() != null) {
+            writeDateTime(out, ride.getStartDate());
+        }
+        if (ride.getEndDate() != null) {
+            writeDateTime(out, ride.getEndDate());
+        }
+        if (ride.getPrice() != null) {
+            out.writeDouble(ride.getPrice());
+        }
+        if (ride.getDistanceKm() != null) {
+            out.writeDouble(ride.getDistanceKm());
+        }
+        if (ride.getImportantPlaces() != null) {
+            writeVarLong(out, ride.getImportantPlaces().size());
+            for (Location place : ride.getImportantPlaces()) {
+                writeLocation(out, place);
+            }
+        }
+        writeVarLong(out, ride.getDurationInMinutes());
+        if (ride.getVersion() != null) {
+            writeVarLong(out, ride.getVersion());
+        }
+    }
+
+    private static TaxiRideDTO readRide(DataInputStream in) throws IOException {
+        int mask = (int) readVarLong(in);
+        TaxiRideDTO ride = new TaxiRideDTO();
+        if ((mask & RIDE_ID) != 0) {
+            ride.setId(readVarLong(in));
+        }
+        if ((mask & RIDE_START) != 0) {
+            ride.setStart(readLocation(in));
+        }
+        if ((mask & RIDE_END) != 0) {
+            ride.setEnd(readLocation(in));
+        }
+        if ((mask & RIDE_START_DATE) != 0) {
+            ride.setStartDate(readDateTime(in));
+        }
+        if ((mask & RIDE_END_DATE) != 0) {
+            ride.setEndDate(readDateTime(in));
+        }
+        if ((mask & RIDE_PRICE) != 0) {
+            ride.setPrice(in.readDouble());
+        }
+        if ((mask & RIDE_DISTANCE) != 0) {
+            ride.setDistanceKm(in.readDouble());
+        }
+        if ((mask & RIDE_PLACES) != 0) {
+            int size = (int) readVarLong(in);
+            List<Location> places = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                places.add(readLocation(in));
+            }
+            ride.setImportantPlaces(places);
+        } else {
+            ride.setImportantPlaces(null);
+        }
+        ride.setInProgress((mask & RIDE_IN_PROGRESS) != 0);
+        ride.setDurationInMinutes(readVarLong(in));
+        if ((mask & RIDE_VERSION) != 0) {
+            ride.setVersion(readVarLong(in));
+        }
+        return ride;
+    }
+
+    private static void writeLocation(DataOutputStream out, Location location) throws IOException {
+        if (location == null) {
+            out.writeByte(0x80);
+            return;
+        }
+        out.writeByte((location.getLatitude() != null ? 1 : 0)
+                | (location.getLongitude() != null ? 2 : 0)
+                | (location.getPlace() != null ? 4 : 0));
+        if (location.getLatitude() != null) {
+            out.writeDouble(location.getLatitude());
+        }
+        if (location.getLongitude() != null) {
+            out.writeDouble(location.getLongitude());
+        }
+        if (location.getPlace() != null) {
+            writeString(out, location.getPlace());
+        }
+    }
+
+    private static Location readLocation(DataInputStream in) throws IOException {
+        int mask = in.readUnsignedByte();
+        if (mask == 0x80) {
+            return null;
+        }
+        Location location = new Location();
+        if ((mask & 1) != 0) {
+            location.setLatitude(in.readDouble());
+        }
+        if ((mask & 2) != 0) {
+            location.setLongitude(in.readDouble());
+        }
+        if ((mask & 4) != 0) {
+            location.setPlace(readString(in));
+        }
+        return location;
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        writeVarLong(out, value.toEpochSecond(ZoneOffset.UTC));
+        writeVarLong(out, value.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        long seconds = readVarLong(in);
+        int nanos = (int) readVarLong(in);
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    // --- Primitives ---
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) readVarLong(in);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Zig-zag varint: small magnitudes of either sign take one byte.
+     */
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.write((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.write((int) zigZag);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Truncated varint");
+            }
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
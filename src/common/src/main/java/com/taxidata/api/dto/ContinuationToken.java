@@ -0,0 +1,40 @@
+package com.taxidata.api.dto;
+
+import lombok.Value;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the (price, id) of the last ride a client has seen.
+ * Encoded as URL-safe base64 of a version byte, the price bits and the id.
+ */
+@Value
+public class ContinuationToken {
+
+    private static final byte VERSION = 1;
+    private static final int LENGTH = 1 + Double.BYTES + Long.BYTES;
+
+    double price;
+    long id;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+                .put(VERSION)
+                .putDouble(price)
+                .putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static ContinuationToken decode(String token) {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        if (bytes.length != LENGTH || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("Invalid continuation token");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, LENGTH - 1);
+        return new ContinuationToken(buffer.getDouble(), buffer.getLong());
+    }
+}
@@ -0,0 +1,31 @@
+package com.taxidata.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/**
+ * How the total of an offset page is obtained.
+ */
+public enum CountMode {
+    /** {@code count(*)} over the whole range, or the price index when it can answer. */
+    EXACT,
+    /** No total; the page only tells whether another one follows. */
+    NONE,
+    /** Row estimate of the PostgreSQL planner, from table statistics; no error bound. */
+    PLANNER,
+    /** Count over a block sample of the table, scaled up, with a 95% error bound. */
+    SAMPLE;
+
+    @JsonValue
+    public String value() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @throws IllegalArgumentException for anything but {@code exact}, {@code none}, {@code planner} or {@code sample}
+     */
+    public static CountMode of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,36 @@
+package com.taxidata.api.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset search. There is no total count; {@code nextToken} is {@code null} on the
+ * last page.
+ */
+@Data
+public class CursorPageDTO<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextToken;
+
+    /**
+     * @param rows     up to {@code size + 1} rows in keyset order; the extra row only signals a next page
+     * @param position encoded continuation token pointing just after a row
+     */
+    public static <T, E> CursorPageDTO<T> fromRows(List<E> rows, int size, Function<E, T> mapper,
+                                                  Function<E, String> position) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+
+        CursorPageDTO<T> dto = new CursorPageDTO<>();
+        dto.setContent(page.stream().map(mapper).collect(Collectors.toList()));
+        dto.setSize(size);
+        dto.setHasNext(hasNext);
+        dto.setNextToken(hasNext ? position.apply(page.get(page.size() - 1)) : null);
+        return dto;
+    }
+}
@@ -0,0 +1,75 @@
+package com.taxidata.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * One offset page. The totals are exact, estimated or absent depending on {@link #count}; {@code hasNext}
+ * is always exact.
+ */
+@Data
+public class PageDTO<T> {
+    private List<T> content;
+    private int pageNumber;
+    private int pageSize;
+    private Long totalElements;
+    private Integer totalPages;
+    private boolean first;
+    private boolean last;
+    private boolean empty;
+    private boolean hasNext;
+    private CountMode count = CountMode.EXACT;
+
+    /**
+     * Relative half-width of the 95% confidence interval of a {@link CountMode#SAMPLE} total.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double totalErrorBound;
+
+    public static <T, E> PageDTO<T> fromPage(Page<E> page, java.util.function.Function<E, T> mapper) {
+        PageDTO<T> dto = new PageDTO<>();
+        dto.setContent(page.getContent().stream().map(mapper).collect(Collectors.toList()));
+        dto.setPageNumber(page.getNumber());
+        dto.setPageSize(page.getSize());
+        dto.setTotalElements(page.getTotalElements());
+        dto.setTotalPages(page.getTotalPages());
+        dto.setFirst(page.isFirst());
+        dto.setLast(page.isLast());
+        dto.setEmpty(page.isEmpty());
+        dto.setHasNext(page.hasNext());
+        return dto;
+    }
+
+    /**
+     * A page without totals ({@link CountMode#NONE}); add an estimate with {@link #estimate}.
+     */
+    public static <T, E> PageDTO<T> fromSlice(Slice<E> slice, java.util.function.Function<E, T> mapper) {
+        PageDTO<T> dto = new PageDTO<>();
+        dto.setContent(slice.getContent().stream().map(mapper).collect(Collectors.toList()));
+        dto.setPageNumber(slice.getNumber());
+        dto.setPageSize(slice.getSize());
+        dto.setFirst(slice.isFirst());
+        dto.setLast(slice.isLast());
+        dto.setEmpty(slice.isEmpty());
+        dto.setHasNext(slice.hasNext());
+        dto.setCount(CountMode.NONE);
+        return dto;
+    }
+
+    /**
+     * Sets an approximate total; it never claims fewer rides than the pages up to this one hold.
+     */
+    public void estimate(CountMode mode, long total, Double errorBound) {
+        long seen = (long) pageNumber * pageSize + (content != null ? content.size() : 0) + (hasNext ? 1 : 0);
+        long estimate = Math.max(total, seen);
+        this.count = mode;
+        this.totalElements = estimate;
+        this.totalPages = pageSize > 0 ? (int) ((estimate + pageSize - 1) / pageSize) : 1;
+        this.totalErrorBound = errorBound;
+    }
+}
@@ -2,13 +2,13 @@ package com.taxidata.api.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.taxidata.api.model.Location;
-import com.taxidata.api.model.TaxiRide;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -40,36 +40,27 @@ public class TaxiRideDTO implements Serializable {
     private long durationInMinutes;
     private boolean inProgress;
 
-    public static TaxiRideDTO fromEntity(TaxiRide entity) {
-        if (entity == null) {
-            return null;
-        }
-
-        return TaxiRideDTO.builder()
-                .id(entity.getId())
-                .start(entity.getStart())
-                .end(entity.getEnd())
-                .importantPlaces(new ArrayList<>(entity.getImportantPlaces()))
-                .startDate(entity.getStartDate())
-                .endDate(entity.getEndDate())
-                .price(entity.getPrice())
-                .distanceKm(entity.getDistanceKm())
-                .durationInMinutes(entity.getDurationInMinutes())
-                .inProgress(entity.isInProgress())
-                .build();
-    }
+    private Long version;
 
-    public TaxiRide toEntity() {
-        TaxiRide entity = new TaxiRide();
-        entity.setId(this.id);
-        entity.setStart(this.start);
-        entity.setEnd(this.end);
-        entity.setImportantPlaces(new ArrayList<>(this.importantPlaces));
-        entity.setStartDate(this.startDate);
-        entity.setEndDate(this.endDate);
-        entity.setPrice(this.price);
-        entity.setDistanceKm(this.distanceKm);
-        return entity;
+    /**
+     * Row constructor for the JPQL {@code SELECT new} projections of {@code src/api}, which skip the
+     * managed entity, and for the row mapper of {@code src/api-reactive}.
+     */
+    public TaxiRideDTO(Long id, Location start, Location end, List<Location> importantPlaces,
+                       LocalDateTime startDate, LocalDateTime endDate, Double price, Double distanceKm, Long version) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.importantPlaces = importantPlaces != null ? importantPlaces : new ArrayList<>();
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.price = price;
+        this.distanceKm = distanceKm;
+        this.durationInMinutes = startDate != null && endDate != null
+                ? Duration.between(startDate, endDate).toMinutes()
+                : 0;
+        this.inProgress = startDate != null && endDate == null;
+        this.version = version;
     }
 
     public void addImportantPlace(Location location) {
@@ -0,0 +1,206 @@
+package com.taxidata.common.analytics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with a relative-error guarantee (the DDSketch scheme).
+ * <p>
+ * Positive values fall into logarithmic buckets {@code (gamma^(i-1), gamma^i]} with
+ * {@code gamma = (1 + a) / (1 - a)}; a bucket is reported as its midpoint {@code 2 gamma^i / (gamma + 1)},
+ * which is within relative accuracy {@code a} of every value in it. Every quantile answer is
+ * therefore within {@code a} of the exact value at the same rank, whatever the data and however many
+ * sketches were merged. Values at or below zero are counted separately and reported as zero. At most
+ * {@link #MAX_BUCKETS} buckets are kept; beyond that the lowest ones are folded together, which only
+ * affects the smallest values.
+ * <p>
+ * The processor writes the {@code ride_hourly_stats} sketches that the API reads back with this same
+ * class; {@link #VERSION} guards the stored format.
+ */
+public final class QuantileSketch {
+
+    static final byte VERSION = 1;
+    static final int MAX_BUCKETS = 2048;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value <= 0) {
+            zeroCount++;
+        } else {
+            increment((int) Math.ceil(Math.log(value) / logGamma), 1);
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values of {@code other}, which must have the same relative accuracy.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of different accuracy");
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                increment(other.offset + i, other.counts[i]);
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Value at rank {@code q * (count - 1)}, or {@code NaN} when the sketch is empty.
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = Math.max(0, Math.min(q, 1)) * (count - 1);
+        long seen = zeroCount;
+        if (seen > rank) {
+            return Math.max(min, Math.min(0, max));
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                double estimate = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                return Math.max(min, Math.min(estimate, max));
+            }
+        }
+        return max;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Exact smallest value added, or {@code NaN} when the sketch is empty.
+     */
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Exact largest value added, or {@code NaN} when the sketch is empty.
+     */
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    public double relativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Version, accuracy, count, zero count, min, max, first bucket index and the bucket counts, with
+     * integers as varints. A sketch of a typical hour of prices takes a few hundred bytes.
+     */
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 3 * Double.BYTES + 4 * 10 + counts.length * 10);
+        buffer.put(VERSION);
+        buffer.putDouble(relativeAccuracy);
+        putVarLong(buffer, count);
+        putVarLong(buffer, zeroCount);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        putVarLong(buffer, ((long) offset << 1) ^ ((long) offset >> 63));
+        putVarLong(buffer, counts.length);
+        for (long bucket : counts) {
+            putVarLong(buffer, bucket);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes were not produced by {@link #toBytes()} of this version
+     */
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            if (buffer.get() != VERSION) {
+                throw new IllegalArgumentException("Unknown sketch version");
+            }
+            QuantileSketch sketch = new QuantileSketch(buffer.getDouble());
+            sketch.count = getVarLong(buffer);
+            sketch.zeroCount = getVarLong(buffer);
+            sketch.min = buffer.getDouble();
+            sketch.max = buffer.getDouble();
+            long zigzag = getVarLong(buffer);
+            sketch.offset = (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+            int length = (int) getVarLong(buffer);
+            if (length > MAX_BUCKETS) {
+                throw new IllegalArgumentException("Too many buckets");
+            }
+            sketch.counts = new long[length];
+            for (int i = 0; i < length; i++) {
+                sketch.counts[i] = getVarLong(buffer);
+            }
+            return sketch;
+        } catch (RuntimeException e) {
+            throw e instanceof IllegalArgumentException iae ? iae : new IllegalArgumentException("Malformed sketch", e);
+        }
+    }
+
+    private void increment(int index, long n) {
+        if (counts.length == 0 || index < offset || index >= offset + counts.length) {
+            int low = counts.length == 0 ? index : Math.min(offset, index);
+            int high = counts.length == 0 ? index : Math.max(offset + counts.length - 1, index);
+            // Fold the lowest buckets rather than grow without bound
+            low = Math.max(low, high - MAX_BUCKETS + 1);
+            long[] grown = new long[high - low + 1];
+            for (int i = 0; i < counts.length; i++) {
+                grown[Math.max(offset + i, low) - low] += counts[i];
+            }
+            counts = grown;
+            offset = low;
+        }
+        counts[Math.max(index, offset) - offset] += n;
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,74 @@
+package com.taxidata.common.events;
+
+import java.util.Arrays;
+
+/**
+ * Body of a message on {@code taxi:rides:committed}: {@code <publisher>:<sequence>;<id>:<price>,...}.
+ * <p>
+ * The publisher is one processor instance and numbers its messages 1, 2, 3..., so a subscriber that
+ * sees a number skipped knows it missed a batch. Messages of processors that predate the header parse
+ * with a {@code null} publisher and cannot be checked.
+ */
+public record CommittedRides(String publisher, long sequence, long[] ids, double[] prices) {
+
+    private static final char HEADER_END = ';';
+
+    public String encode() {
+        StringBuilder message = new StringBuilder(publisher.length() + 24 * ids.length)
+                .append(publisher).append(':').append(sequence).append(HEADER_END);
+        for (int i = 0; i < ids.length; i++) {
+            if (i > 0) {
+                message.append(',');
+            }
+            message.append(ids[i]).append(':').append(prices[i]);
+        }
+        return message.toString();
+    }
+
+    /**
+     * Whether this message directly follows {@code previous} of the same publisher.
+     */
+    public boolean follows(long previous) {
+        return sequence == previous + 1;
+    }
+
+    // Pairs with an unreadable ID or price are skipped; an unreadable header counts as missing
+    public static CommittedRides parse(String message) {
+        String publisher = null;
+        long sequence = 0;
+        int headerEnd = message.indexOf(HEADER_END);
+        if (headerEnd >= 0) {
+            String header = message.substring(0, headerEnd);
+            int separator = header.lastIndexOf(':');
+            try {
+                sequence = Long.parseLong(header.substring(separator + 1).trim());
+                publisher = separator > 0 ? header.substring(0, separator).trim() : null;
+            } catch (NumberFormatException e) {
+                // no usable header
+            }
+            message = message.substring(headerEnd + 1);
+        }
+
+        String[] pairs = message.split(",");
+        long[] ids = new long[pairs.length];
+        double[] prices = new double[pairs.length];
+        int count = 0;
+        for (String pair : pairs) {
+            int separator = pair.indexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                long id = Long.parseLong(pair.substring(0, separator).trim());
+                double price = Double.parseDouble(pair.substring(separator + 1).trim());
+                if (!Double.isNaN(price)) {
+                    ids[count] = id;
+                    prices[count++] = price;
+                }
+            } catch (NumberFormatException e) {
+                // skip the pair
+            }
+        }
+        return new CommittedRides(publisher, sequence, Arrays.copyOf(ids, count), Arrays.copyOf(prices, count));
+    }
+}
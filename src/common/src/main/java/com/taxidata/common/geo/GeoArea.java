@@ -0,0 +1,53 @@
+package com.taxidata.common.geo;
+
+import lombok.Value;
+
+/**
+ * Search area as the parameters of the geo queries: a bounding box, plus a circle inside it for
+ * radius searches. Distances use the equirectangular approximation, which is well within a
+ * metre at city scale: {@code dLat^2 + (dLon * cos(lat))^2 <= (radius in degrees)^2}.
+ */
+@Value
+public class GeoArea {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    double minLatitude;
+    double maxLatitude;
+    double minLongitude;
+    double maxLongitude;
+
+    double centerLatitude;
+    double centerLongitude;
+    /** cos^2 of the center latitude, so the query needs no trigonometry */
+    double longitudeScale;
+    /** Squared radius in degrees of latitude; infinite for a plain box */
+    double maxDistanceSquared;
+
+    /**
+     * @throws IllegalArgumentException if the box is empty or outside valid coordinates
+     */
+    public static GeoArea box(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        if (minLatitude > maxLatitude || minLongitude > maxLongitude
+                || minLatitude < -90 || maxLatitude > 90 || minLongitude < -180 || maxLongitude > 180) {
+            throw new IllegalArgumentException("Invalid bounding box");
+        }
+        return new GeoArea(minLatitude, maxLatitude, minLongitude, maxLongitude, 0, 0, 0, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the center is outside valid coordinates or the radius is not positive
+     */
+    public static GeoArea circle(double latitude, double longitude, double radiusKm) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180 || !(radiusKm > 0)) {
+            throw new IllegalArgumentException("Invalid center or radius");
+        }
+        double cos = Math.cos(Math.toRadians(latitude));
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double longitudeDelta = cos > 1e-9 ? Math.min(latitudeDelta / cos, 180) : 180;
+        return new GeoArea(
+                Math.max(latitude - latitudeDelta, -90), Math.min(latitude + latitudeDelta, 90),
+                Math.max(longitude - longitudeDelta, -180), Math.min(longitude + longitudeDelta, 180),
+                latitude, longitude, cos * cos, latitudeDelta * latitudeDelta);
+    }
+}
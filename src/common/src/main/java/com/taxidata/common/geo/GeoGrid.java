@@ -0,0 +1,61 @@
+package com.taxidata.common.geo;
+
+/**
+ * Fixed latitude/longitude grid used to index ride endpoints. A cell spans
+ * {@code 1 / CELLS_PER_DEGREE} degrees each way (about 1.1 km by 0.85 km in New York) and is
+ * numbered row-major from (-90, -180): cell {@code row * 36000 + column}.
+ * <p>
+ * The processor stores the cells of both ends of every ride at ingest; the API computes which cells
+ * a search area covers. schema.sql backfills old rows with the same arithmetic, which
+ * {@code CopyRideWriterTest} checks against this class.
+ */
+public final class GeoGrid {
+
+    public static final int CELLS_PER_DEGREE = 100;
+
+    private static final long ROWS = 180L * CELLS_PER_DEGREE;
+    private static final long COLUMNS = 360L * CELLS_PER_DEGREE;
+
+    private GeoGrid() {
+    }
+
+    public static long cellOf(double latitude, double longitude) {
+        return row(latitude) * COLUMNS + column(longitude);
+    }
+
+    /**
+     * Number of cells {@link #cellsCovering} would return, without building them.
+     */
+    public static long countCovering(GeoArea area) {
+        return (row(area.getMaxLatitude()) - row(area.getMinLatitude()) + 1)
+                * (column(area.getMaxLongitude()) - column(area.getMinLongitude()) + 1);
+    }
+
+    /**
+     * All cells intersecting the bounding box of the area, ascending. Areas crossing the
+     * antimeridian are not supported.
+     */
+    public static long[] cellsCovering(GeoArea area) {
+        long firstRow = row(area.getMinLatitude());
+        long lastRow = row(area.getMaxLatitude());
+        long firstColumn = column(area.getMinLongitude());
+        long lastColumn = column(area.getMaxLongitude());
+
+        long[] cells = new long[(int) countCovering(area)];
+        int i = 0;
+        for (long row = firstRow; row <= lastRow; row++) {
+            for (long column = firstColumn; column <= lastColumn; column++) {
+                cells[i++] = row * COLUMNS + column;
+            }
+        }
+        return cells;
+    }
+
+    private static long row(double latitude) {
+        return Math.max(Math.min((long) Math.floor((latitude + 90) * CELLS_PER_DEGREE), ROWS - 1), 0);
+    }
+
+    private static long column(double longitude) {
+        return Math.max(Math.min((long) Math.floor((longitude + 180) * CELLS_PER_DEGREE), COLUMNS - 1), 0);
+    }
+}
@@ -0,0 +1,107 @@
+package com.taxidata.common.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Streams the JDK's {@code jdk.VirtualThreadPinned} events in-process while virtual threads are on.
+ * A virtual thread is pinned when it blocks inside {@code synchronized} or a native frame, and then
+ * holds its carrier thread for the whole wait. Each event is recorded as
+ * {@code taxi.threads.virtual.pinned{frame}}, keyed by the innermost {@code com.taxidata} frame.
+ * The first event of each frame is logged with its stack.
+ * <p>
+ * Shared by the API and the processor; each declares it as a bean with its own
+ * {@code *.virtual-threads.pinned-threshold} while {@code spring.threads.virtual.enabled} is on.
+ */
+@RequiredArgsConstructor
+public class VirtualThreadPinningMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED = "jdk.VirtualThreadPinned";
+    private static final String SUBMIT_FAILED = "jdk.VirtualThreadSubmitFailed";
+    private static final String APPLICATION_PACKAGE = "com.taxidata.";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+
+    private final Set<String> reported = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (Runtime.version().feature() < 21) {
+            logger.warn("⚠ Virtual threads need Java 21, running on {}; spring.threads.virtual.enabled has no effect", Runtime.version());
+            return;
+        }
+        Counter submitFailed = Counter.builder("taxi.threads.virtual.submit.failed")
+                .description("Virtual threads that could not be scheduled on a carrier")
+                .register(meterRegistry);
+
+        stream = new RecordingStream();
+        stream.enable(PINNED).withThreshold(threshold).withStackTrace();
+        stream.enable(SUBMIT_FAILED);
+        stream.onEvent(PINNED, this::onPinned);
+        stream.onEvent(SUBMIT_FAILED, event -> submitFailed.increment());
+        stream.startAsync();
+        logger.info("✔ Monitoring virtual thread pinning longer than {} ms", threshold.toMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stack = event.getStackTrace();
+        String frame = applicationFrame(stack);
+        Timer.builder("taxi.threads.virtual.pinned")
+                .description("Time virtual threads spent pinned to their carrier, by innermost application frame")
+                .tag("frame", frame)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        if (reported.add(frame)) {
+            logger.warn("⚠ Virtual thread pinned for {} ms at {}:\n{}", event.getDuration().toMillis(), frame,
+                    stack == null ? "  (no stack trace)" : stack.getFrames().stream()
+                            .map(VirtualThreadPinningMonitor::describe)
+                            .collect(Collectors.joining("\n  at ", "  at ", "")));
+        }
+    }
+
+    private static String applicationFrame(RecordedStackTrace stack) {
+        if (stack == null || stack.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stack.getFrames()) {
+            if (frame.isJavaFrame() && frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return shortName(frame);
+            }
+        }
+        return shortName(stack.getFrames().get(0));
+    }
+
+    private static String shortName(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.substring(type.lastIndexOf('.') + 1) + "." + frame.getMethod().getName();
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
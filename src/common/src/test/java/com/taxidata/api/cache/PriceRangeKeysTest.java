@@ -0,0 +1,59 @@
+package com.taxidata.api.cache;
+
+import com.taxidata.api.dto.CountMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PriceRangeKeysTest {
+
+    @Test
+    void testKeyIncludesPageSizeAndSort() {
+        String first = PriceRangeKeys.key(10.0, 20.0, PageRequest.of(0, 20));
+        String second = PriceRangeKeys.key(10.0, 20.0, PageRequest.of(1, 20));
+        String sorted = PriceRangeKeys.key(10.0, 20.0, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "price")));
+
+        assertEquals("price_range:10.0_20.0:p0:s20:unsorted", first);
+        assertNotEquals(first, second);
+        assertEquals("price_range:10.0_20.0:p0:s20:price.DESC", sorted);
+    }
+
+    @Test
+    void testDateWindowExtendsTheKeyWithoutHidingThePriceBounds() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        String windowed = PriceRangeKeys.key(10.0, 20.0, from, null, PageRequest.of(0, 20));
+
+        assertEquals("price_range:10.0_20.0:p0:s20:unsorted:d2024-01-01T00:00_null", windowed);
+        assertEquals(PriceRangeKeys.key(10.0, 20.0, PageRequest.of(0, 20)),
+                PriceRangeKeys.key(10.0, 20.0, null, null, PageRequest.of(0, 20)));
+        assertTrue(PriceRangeKeys.containsAny(windowed, new double[]{15.0}));
+    }
+
+    @Test
+    void testCountModeExtendsTheKeyExceptForExactTotals() {
+        String sampled = PriceRangeKeys.key(10.0, 20.0, null, null, PageRequest.of(0, 20), CountMode.SAMPLE);
+
+        assertEquals("price_range:10.0_20.0:p0:s20:unsorted:csample", sampled);
+        assertEquals(PriceRangeKeys.key(10.0, 20.0, PageRequest.of(0, 20)),
+                PriceRangeKeys.key(10.0, 20.0, null, null, PageRequest.of(0, 20), CountMode.EXACT));
+        assertTrue(PriceRangeKeys.containsAny(sampled, new double[]{15.0}));
+    }
+
+    @Test
+    void testMatchesOnlyRangesContainingAPrice() {
+        double[] prices = {5.0, 42.5};
+
+        assertTrue(PriceRangeKeys.containsAny(PriceRangeKeys.key(40.0, 50.0, PageRequest.of(3, 10)), prices));
+        assertTrue(PriceRangeKeys.containsAny(PriceRangeKeys.cursorKey(0.0, Double.MAX_VALUE, 20), prices));
+        assertTrue(PriceRangeKeys.containsAny(PriceRangeKeys.key(5.0, 5.0, PageRequest.of(0, 10)), prices));
+        assertFalse(PriceRangeKeys.containsAny(PriceRangeKeys.key(10.0, 40.0, PageRequest.of(0, 10)), prices));
+        assertFalse(PriceRangeKeys.containsAny("ride:42", prices));
+    }
+}
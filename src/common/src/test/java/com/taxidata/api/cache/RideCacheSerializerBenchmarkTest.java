@@ -0,0 +1,65 @@
+package com.taxidata.api.cache;
+
+import com.taxidata.api.config.JacksonConfig;
+import com.taxidata.api.dto.PageDTO;
+import com.taxidata.api.dto.TaxiRideDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares value size and serialize/deserialize throughput of the JSON cache serializer with
+ * {@link RideCacheSerializer}, uncompressed and compressed, for a single ride and a 20-ride page.
+ * Run with {@code ./gradlew :src:common:test --tests '*RideCacheSerializerBenchmarkTest' -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RideCacheSerializerBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    void compareJsonAndBinary() {
+        GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(new JacksonConfig().objectMapper());
+        RideCacheSerializer binary = new RideCacheSerializer(json, Integer.MAX_VALUE);
+        RideCacheSerializer compressed = new RideCacheSerializer(json, 0);
+
+        TaxiRideDTO ride = RideCacheSerializerTest.ride(42L);
+        PageDTO<TaxiRideDTO> page = RideCacheSerializerTest.page(20);
+
+        for (Object value : new Object[]{ride, page}) {
+            String name = value instanceof PageDTO ? "page of 20" : "single ride";
+            measure(name, "json", json, value);
+            measure(name, "binary", binary, value);
+            measure(name, "binary+deflate", compressed, value);
+        }
+    }
+
+    private static void measure(String value, String format, RedisSerializer<Object> serializer, Object cached) {
+        byte[] bytes = serializer.serialize(cached);
+        assertEquals(cached, serializer.deserialize(bytes), format);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            serializer.deserialize(serializer.serialize(cached));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes = serializer.serialize(cached);
+        }
+        long serialize = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.deserialize(bytes);
+        }
+        long deserialize = System.nanoTime() - start;
+
+        System.out.printf("%-12s %-15s %7d bytes  serialize %,10.0f ops/s  deserialize %,10.0f ops/s%n",
+                value, format, bytes.length,
+                ITERATIONS / (serialize / 1_000_000_000.0), ITERATIONS / (deserialize / 1_000_000_000.0));
+    }
+}
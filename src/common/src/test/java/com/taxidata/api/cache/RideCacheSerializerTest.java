@@ -0,0 +1,108 @@
+package com.taxidata.api.cache;
+
+import com.taxidata.api.config.JacksonConfig;
+import com.taxidata.api.dto.CountMode;
+import com.taxidata.api.dto.PageDTO;
+import com.taxidata.api.dto.TaxiRideDTO;
+import com.taxidata.api.model.Location;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RideCacheSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json =
+            new GenericJackson2JsonRedisSerializer(new JacksonConfig().objectMapper());
+    private final RideCacheSerializer serializer = new RideCacheSerializer(json, 1024);
+
+    @Test
+    void testRoundTripsRide() {
+        TaxiRideDTO ride = ride(1L);
+        ride.setEndDate(null);
+        ride.setInProgress(true);
+        ride.getStart().setPlace(null);
+
+        assertEquals(ride, serializer.deserialize(serializer.serialize(ride)));
+    }
+
+    @Test
+    void testRoundTripsCompressedPage() {
+        PageDTO<TaxiRideDTO> page = page(50);
+
+        byte[] bytes = serializer.serialize(page);
+
+        assertEquals(RideCacheSerializer.MAGIC, bytes[0]);
+        assertEquals(1, bytes[2] & 1, "expected the page to be compressed");
+        assertEquals(page, serializer.deserialize(bytes));
+        assertTrue(bytes.length < json.serialize(page).length);
+    }
+
+    @Test
+    void testRoundTripsPagesWithoutOrWithEstimatedTotals() {
+        PageDTO<TaxiRideDTO> slice = page(3);
+        slice.setTotalElements(null);
+        slice.setTotalPages(null);
+        slice.setHasNext(true);
+        slice.setCount(CountMode.NONE);
+        PageDTO<TaxiRideDTO> sampled = page(3);
+        sampled.estimate(CountMode.SAMPLE, 48_200, 0.089);
+
+        assertEquals(slice, serializer.deserialize(serializer.serialize(slice)));
+        assertEquals(sampled, serializer.deserialize(serializer.serialize(sampled)));
+    }
+
+    @Test
+    void testReadsValuesCachedAsJson() {
+        TaxiRideDTO ride = ride(7L);
+
+        assertEquals(ride, serializer.deserialize(json.serialize(ride)));
+    }
+
+    @Test
+    void testRejectsUnknownVersion() {
+        byte[] bytes = serializer.serialize(ride(1L));
+        bytes[1] = RideCacheSerializer.VERSION + 1;
+
+        assertThrows(SerializationException.class, () -> serializer.deserialize(bytes));
+    }
+
+    static PageDTO<TaxiRideDTO> page(int size) {
+        List<TaxiRideDTO> rides = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            rides.add(ride(i + 1L));
+        }
+        PageDTO<TaxiRideDTO> page = new PageDTO<>();
+        page.setContent(rides);
+        page.setPageNumber(3);
+        page.setPageSize(size);
+        page.setTotalElements(1_000_000L);
+        page.setTotalPages(1_000_000 / size);
+        return page;
+    }
+
+    static TaxiRideDTO ride(long id) {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 10, 0).plusMinutes(id);
+        return TaxiRideDTO.builder()
+                .id(id)
+                .start(new Location(40.7128, -74.0060, "New York City"))
+                .end(new Location(40.7580, -73.9855, "Times Square"))
+                .importantPlaces(new ArrayList<>(List.of(
+                        new Location(40.7527, -73.9772, "Grand Central Terminal"),
+                        new Location(40.7851, -73.9683, "Central Park"))))
+                .startDate(start)
+                .endDate(start.plusMinutes(25))
+                .price(10.0 + id % 50)
+                .distanceKm(3.4)
+                .durationInMinutes(25)
+                .version(0L)
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.taxidata.common.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+    @Test
+    void testQuantilesAreWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (int i = 0; i < values.length; i++) {
+            // Long-tailed like taxi prices
+            values[i] = Math.exp(random.nextGaussian() * 0.8 + 3);
+            sketch.add(values[i]);
+        }
+
+        assertAccurate(values, sketch);
+        assertEquals(Arrays.stream(values).min().getAsDouble(), sketch.min());
+        assertEquals(Arrays.stream(values).max().getAsDouble(), sketch.max());
+    }
+
+    @Test
+    void testMergedSketchesAnswerLikeOne() {
+        Random random = new Random(7);
+        double[] values = new double[30_000];
+        QuantileSketch[] parts = {new QuantileSketch(ACCURACY), new QuantileSketch(ACCURACY), new QuantileSketch(ACCURACY)};
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 5 + random.nextDouble() * 75;
+            parts[i % parts.length].add(values[i]);
+        }
+        QuantileSketch merged = new QuantileSketch(ACCURACY);
+        for (QuantileSketch part : parts) {
+            merged.merge(part);
+        }
+
+        assertEquals(values.length, merged.count());
+        assertAccurate(values, merged);
+    }
+
+    @Test
+    void testSurvivesSerialization() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (int i = 1; i <= 1000; i++) {
+            sketch.add(i * 0.37);
+        }
+        sketch.add(0);
+
+        QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.count(), copy.count());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), copy.quantile(q));
+        }
+    }
+
+    @Test
+    void testRejectsMergingDifferentAccuracy() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new QuantileSketch(0.01).merge(new QuantileSketch(0.02)));
+    }
+
+    @Test
+    void testEmptySketchHasNoQuantiles() {
+        assertTrue(Double.isNaN(new QuantileSketch(ACCURACY).quantile(0.5)));
+    }
+
+    private static void assertAccurate(double[] values, QuantileSketch sketch) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= ACCURACY * exact + 1e-9,
+                    "q=" + q + " exact=" + exact + " estimate=" + estimate);
+        }
+    }
+}
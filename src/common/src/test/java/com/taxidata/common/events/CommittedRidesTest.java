@@ -0,0 +1,50 @@
+package com.taxidata.common.events;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommittedRidesTest {
+
+    @Test
+    void testEncodedMessageParsesBack() {
+        CommittedRides sent = new CommittedRides("k3x9", 17, new long[]{42, 43}, new double[]{15.5, 0.0});
+
+        CommittedRides received = CommittedRides.parse(sent.encode());
+
+        assertEquals("k3x9", received.publisher());
+        assertEquals(17, received.sequence());
+        assertArrayEquals(new long[]{42, 43}, received.ids());
+        assertArrayEquals(new double[]{15.5, 0.0}, received.prices());
+    }
+
+    @Test
+    void testBatchWithoutRidesKeepsItsSequenceNumber() {
+        CommittedRides received = CommittedRides.parse(new CommittedRides("k3x9", 18, new long[0], new double[0]).encode());
+
+        assertEquals(18, received.sequence());
+        assertEquals(0, received.ids().length);
+    }
+
+    @Test
+    void testMessagesWithoutHeaderHaveNoPublisher() {
+        CommittedRides received = CommittedRides.parse("42:15.5,x:1.0,43:null,44:12.25");
+
+        assertNull(received.publisher());
+        assertArrayEquals(new long[]{42, 44}, received.ids());
+        assertArrayEquals(new double[]{15.5, 12.25}, received.prices());
+    }
+
+    @Test
+    void testOnlyTheNextNumberFollows() {
+        CommittedRides message = new CommittedRides("k3x9", 5, new long[0], new double[0]);
+
+        assertTrue(message.follows(4));
+        assertFalse(message.follows(3));
+        assertFalse(message.follows(5));
+    }
+}
@@ -0,0 +1,56 @@
+package com.taxidata.common.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GeoGridTest {
+
+    @Test
+    void testCellsAreNumberedRowMajorFromSouthWest() {
+        assertEquals(0, GeoGrid.cellOf(-90, -180));
+        assertEquals(1, GeoGrid.cellOf(-90, -179.99));
+        assertEquals(36000, GeoGrid.cellOf(-89.99, -180));
+        // The poles and the antimeridian fall into the last row and column
+        assertEquals(18000L * 36000 - 1, GeoGrid.cellOf(90, 180));
+    }
+
+    @Test
+    void testBoxCoversEveryCellItTouchesInAscendingOrder() {
+        GeoArea box = GeoArea.box(40.7005, -74.0195, 40.7195, -73.9905);
+
+        long[] cells = GeoGrid.cellsCovering(box);
+
+        assertEquals(2 * 3, cells.length);
+        assertEquals(GeoGrid.countCovering(box), cells.length);
+        long[] sorted = cells.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(sorted, cells);
+        assertEquals(GeoGrid.cellOf(40.7005, -74.0195), cells[0]);
+        assertEquals(GeoGrid.cellOf(40.7195, -73.9905), cells[cells.length - 1]);
+    }
+
+    @Test
+    void testCircleCoversItsRadiusInBothDirections() {
+        GeoArea circle = GeoArea.circle(40.7128, -74.0060, 2);
+
+        // 2 km is about 0.018 degrees of latitude and 0.024 degrees of longitude in New York
+        assertEquals(40.6948, circle.getMinLatitude(), 0.001);
+        assertEquals(40.7308, circle.getMaxLatitude(), 0.001);
+        assertEquals(-74.0297, circle.getMinLongitude(), 0.001);
+        assertEquals(-73.9823, circle.getMaxLongitude(), 0.001);
+        assertTrue(GeoGrid.countCovering(circle) <= 5 * 6);
+    }
+
+    @Test
+    void testRejectsInvalidAreas() {
+        assertThrows(IllegalArgumentException.class, () -> GeoArea.box(41, -74, 40, -73));
+        assertThrows(IllegalArgumentException.class, () -> GeoArea.circle(91, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> GeoArea.circle(40, -74, 0));
+    }
+}
@@ -10,18 +10,21 @@ java {
 }
 
 dependencies {
+    implementation(project(":src:common"))
+
     // Spring Boot
     implementation("org.springframework.boot:spring-boot-starter")
     implementation("org.springframework.boot:spring-boot-starter-web")
     implementation("org.springframework.boot:spring-boot-starter-data-jpa")
     implementation("org.springframework.boot:spring-boot-starter-amqp")
+    implementation("org.springframework.boot:spring-boot-starter-data-redis")
     implementation("org.springframework.boot:spring-boot-starter-actuator")
 
     // Circuit Breaker (Resilience4j)
     implementation("org.springframework.cloud:spring-cloud-starter-circuitbreaker-resilience4j")
 
-    // Database
-    runtimeOnly("org.postgresql:postgresql")
+    // Database (the driver API is used directly by CopyRideWriter)
+    implementation("org.postgresql:postgresql")
 
     // Monitoring
     implementation("io.micrometer:micrometer-registry-prometheus")
@@ -36,6 +39,9 @@ dependencies {
     testRuntimeOnly("org.junit.jupiter:junit-jupiter-engine:5.10.0")
     testImplementation("org.mockito:mockito-core:5.10.0")
     testImplementation("org.mockito:mockito-junit-jupiter:5.10.0")
+    testImplementation("org.springframework.boot:spring-boot-testcontainers")
+    testImplementation("org.testcontainers:junit-jupiter")
+    testImplementation("org.testcontainers:postgresql")
 }
 
 // Spring Cloud version (equivalente a dependencyManagement)
@@ -55,4 +61,6 @@ tasks.test {
         events("passed", "skipped", "failed")
         showStandardStreams = true
     }
+    // ./gradlew :src:processor:test -Dbenchmark=true runs the Testcontainers throughput comparisons
+    systemProperty("benchmark", System.getProperty("benchmark") ?: "false")
 }
@@ -2,8 +2,10 @@ package com.taxidata.processor;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ProcessorApplication {
     public static void main(String[] args) {
         SpringApplication.run(ProcessorApplication.class, args);
@@ -0,0 +1,48 @@
+package com.taxidata.processor.analytics;
+
+import com.taxidata.common.analytics.QuantileSketch;
+import com.taxidata.processor.model.TaxiRide;
+
+/**
+ * Aggregate of the rides of one pickup place and hour: counters plus price and distance sketches.
+ * Not thread-safe; {@link RideStatsAggregator} guards each instance.
+ */
+class HourlyRideStats {
+
+    long rides;
+    long durationMinutesSum;
+    long durationCount;
+    final QuantileSketch prices;
+    final QuantileSketch distances;
+
+    HourlyRideStats(double relativeAccuracy) {
+        this(new QuantileSketch(relativeAccuracy), new QuantileSketch(relativeAccuracy));
+    }
+
+    HourlyRideStats(QuantileSketch prices, QuantileSketch distances) {
+        this.prices = prices;
+        this.distances = distances;
+    }
+
+    void add(TaxiRide ride) {
+        rides++;
+        if (ride.getEndDate() != null) {
+            durationMinutesSum += ride.getDurationInMinutes();
+            durationCount++;
+        }
+        if (ride.getPrice() != null) {
+            prices.add(ride.getPrice());
+        }
+        if (ride.getDistanceKm() != null) {
+            distances.add(ride.getDistanceKm());
+        }
+    }
+
+    void merge(HourlyRideStats other) {
+        rides += other.rides;
+        durationMinutesSum += other.durationMinutesSum;
+        durationCount += other.durationCount;
+        prices.merge(other.prices);
+        distances.merge(other.distances);
+    }
+}
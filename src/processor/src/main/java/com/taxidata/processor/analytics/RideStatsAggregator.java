@@ -0,0 +1,199 @@
+package com.taxidata.processor.analytics;
+
+import com.taxidata.common.analytics.QuantileSketch;
+import com.taxidata.processor.events.RideCommitListener;
+import com.taxidata.processor.model.TaxiRide;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Maintains per (pickup place, hour) ride counts, durations and price/distance sketches as rides
+ * are committed, and periodically merges them into {@code ride_hourly_stats}.
+ * <p>
+ * Commits only touch in-memory aggregates. A flush swaps the pending map for an empty one and, in
+ * one transaction, locks the affected rows in key order, merges the sketches and writes them back, so
+ * replicas can flush into the same rows. If the flush fails, the drained aggregates are merged back
+ * and retried with the next one. What is pending when the process dies is lost; the table is an
+ * approximate summary, not a ledger.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "processor.analytics.enabled", havingValue = "true", matchIfMissing = true)
+public class RideStatsAggregator implements RideCommitListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideStatsAggregator.class);
+
+    static final String UNKNOWN_PLACE = "(unknown)";
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::place).thenComparing(Key::hour);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${processor.analytics.relative-accuracy:0.01}")
+    private double relativeAccuracy;
+
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private ConcurrentHashMap<Key, HourlyRideStats> pending = new ConcurrentHashMap<>();
+
+    private TransactionTemplate transactionTemplate;
+    private Timer recordTimer;
+    private Counter recorded;
+    private Counter flushedRows;
+
+    record Key(String place, LocalDateTime hour) {
+    }
+
+    @PostConstruct
+    public void init() {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recordTimer = Timer.builder("taxi.processor.analytics.record")
+                .description("Time spent adding a committed batch to the hourly aggregates")
+                .register(meterRegistry);
+        this.recorded = Counter.builder("taxi.processor.analytics.rides")
+                .description("Rides added to the hourly aggregates")
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder("taxi.processor.analytics.flushed")
+                .description("Hourly aggregate rows merged into ride_hourly_stats")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onCommit(List<TaxiRide> rides) {
+        long start = System.nanoTime();
+        int added = record(rides);
+        recordTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        recorded.increment(added);
+    }
+
+    int record(List<TaxiRide> rides) {
+        int added = 0;
+        swapLock.readLock().lock();
+        try {
+            for (TaxiRide ride : rides) {
+                if (ride.getStartDate() == null) {
+                    continue;
+                }
+                String place = ride.getStart() != null && ride.getStart().getPlace() != null
+                        ? ride.getStart().getPlace()
+                        : UNKNOWN_PLACE;
+                HourlyRideStats stats = pending.computeIfAbsent(
+                        new Key(place, ride.getStartDate().truncatedTo(ChronoUnit.HOURS)),
+                        key -> new HourlyRideStats(relativeAccuracy));
+                synchronized (stats) {
+                    stats.add(ride);
+                }
+                added++;
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        return added;
+    }
+
+    @Scheduled(fixedDelayString = "${processor.analytics.flush-interval-ms:30000}")
+    public void flush() {
+        Map<Key, HourlyRideStats> drained;
+        swapLock.writeLock().lock();
+        try {
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        Map<Key, HourlyRideStats> ordered = new TreeMap<>(KEY_ORDER);
+        ordered.putAll(drained);
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(ordered));
+            flushedRows.increment(ordered.size());
+            logger.debug("Merged {} hourly aggregates into ride_hourly_stats", ordered.size());
+        } catch (Exception e) {
+            logger.warn("⚠ Could not flush {} hourly aggregates, retrying with the next flush: {}",
+                    ordered.size(), e.getMessage());
+            requeue(ordered);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(Map<Key, HourlyRideStats> ordered) {
+        List<Object[]> keys = new ArrayList<>(ordered.size());
+        ordered.keySet().forEach(key -> keys.add(new Object[]{key.place(), key.hour()}));
+        jdbcTemplate.batchUpdate("INSERT INTO ride_hourly_stats (place, hour, rides, duration_minutes_sum, " +
+                "duration_count, updated_at) VALUES (?, ?, 0, 0, 0, now()) ON CONFLICT (place, hour) DO NOTHING", keys);
+
+        List<Object[]> updates = new ArrayList<>(ordered.size());
+        for (Map.Entry<Key, HourlyRideStats> entry : ordered.entrySet()) {
+            Key key = entry.getKey();
+            HourlyRideStats merged = jdbcTemplate.queryForObject("SELECT rides, duration_minutes_sum, duration_count, " +
+                    "price_sketch, distance_sketch FROM ride_hourly_stats WHERE place = ? AND hour = ? FOR UPDATE",
+                    (rs, rowNum) -> {
+                        byte[] prices = rs.getBytes("price_sketch");
+                        byte[] distances = rs.getBytes("distance_sketch");
+                        HourlyRideStats stored = new HourlyRideStats(
+                                prices != null ? QuantileSketch.fromBytes(prices) : new QuantileSketch(relativeAccuracy),
+                                distances != null ? QuantileSketch.fromBytes(distances) : new QuantileSketch(relativeAccuracy));
+                        stored.rides = rs.getLong("rides");
+                        stored.durationMinutesSum = rs.getLong("duration_minutes_sum");
+                        stored.durationCount = rs.getLong("duration_count");
+                        return stored;
+                    }, key.place(), key.hour());
+            merged.merge(entry.getValue());
+            updates.add(new Object[]{merged.rides, merged.durationMinutesSum, merged.durationCount,
+                    merged.prices.toBytes(), merged.distances.toBytes(), key.place(), key.hour()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE ride_hourly_stats SET rides = ?, duration_minutes_sum = ?, duration_count = ?, " +
+                "price_sketch = ?, distance_sketch = ?, updated_at = now() WHERE place = ? AND hour = ?", updates);
+    }
+
+    private void requeue(Map<Key, HourlyRideStats> failed) {
+        swapLock.readLock().lock();
+        try {
+            failed.forEach((key, stats) -> {
+                HourlyRideStats live = pending.computeIfAbsent(key, k -> new HourlyRideStats(relativeAccuracy));
+                synchronized (live) {
+                    live.merge(stats);
+                }
+            });
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    int pendingSize() {
+        return pending.size();
+    }
+}
@@ -1,5 +1,7 @@
 package com.taxidata.processor.config;
 
+import com.taxidata.processor.metrics.IngestMetrics;
+import com.taxidata.processor.metrics.TimedMessageConverter;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
@@ -10,30 +12,59 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class RabbitConfig {
 
     @Value("${rabbitmq.queue}")
     private String queueName;
 
+    @Value("${processor.batch.size:100}")
+    private int batchSize;
+
+    @Value("${processor.batch.max-wait:500ms}")
+    private Duration batchMaxWait;
+
     @Bean
     public Queue queue() {
         return new Queue(queueName, true);
     }
 
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter jsonMessageConverter(IngestMetrics ingestMetrics) {
+        return new TimedMessageConverter(new Jackson2JsonMessageConverter(), ingestMetrics);
     }
 
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
             ConnectionFactory connectionFactory,
-            SimpleRabbitListenerContainerFactoryConfigurer configurer) {
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            MessageConverter jsonMessageConverter) {
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setMessageConverter(jsonMessageConverter);
+        configurer.configure(factory, connectionFactory);
+        return factory;
+    }
+
+    /**
+     * Delivers up to {@code processor.batch.size} messages per listener call. A partial batch is
+     * released once no further message arrives within {@code processor.batch.max-wait}.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(
+            ConnectionFactory connectionFactory,
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            MessageConverter jsonMessageConverter) {
 
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
-        factory.setMessageConverter(jsonMessageConverter());
+        factory.setMessageConverter(jsonMessageConverter);
         configurer.configure(factory, connectionFactory);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(batchMaxWait.toMillis());
         return factory;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package com.taxidata.processor.dedup;
+
+import com.taxidata.processor.model.TaxiRide;
+import com.taxidata.processor.repository.TaxiRideRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops redelivered rides before they are written. Each ride is checked against a
+ * {@link RotatingBloomFilter}; only a filter hit costs a confirming lookup in {@code taxi_rides}.
+ */
+@Service
+@RequiredArgsConstructor
+public class RideDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideDeduplicator.class);
+
+    private final TaxiRideRepository repository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${processor.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${processor.dedup.window:1h}")
+    private Duration window;
+
+    @Value("${processor.dedup.generations:2}")
+    private int generations;
+
+    @Value("${processor.dedup.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${processor.dedup.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    @Value("${processor.dedup.memory-budget:16MB}")
+    private DataSize memoryBudget;
+
+    private RotatingBloomFilter filter;
+    private Counter misses;
+    private Counter hits;
+    private Counter falsePositives;
+    private Counter batchDuplicates;
+    private Counter storedDuplicates;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        this.filter = new RotatingBloomFilter(expectedInsertions, falsePositiveRate, memoryBudget.toBytes(),
+                window, generations, System::nanoTime);
+
+        this.misses = checks("miss");
+        this.hits = checks("hit");
+        this.falsePositives = Counter.builder("taxi.processor.dedup.false.positives")
+                .description("Filter hits the database lookup did not confirm")
+                .register(meterRegistry);
+        this.batchDuplicates = duplicates("batch");
+        this.storedDuplicates = duplicates("database");
+        Gauge.builder("taxi.processor.dedup.memory", filter, RotatingBloomFilter::memoryBytes)
+                .description("Off-heap memory held by the deduplication filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("taxi.processor.dedup.expected.fpp", filter, RotatingBloomFilter::expectedFalsePositiveRate)
+                .description("False-positive rate of the deduplication filter at the expected load")
+                .register(meterRegistry);
+
+        logger.info("Deduplication filter: {} bytes off-heap, {} hash functions, expected fpp {}",
+                filter.memoryBytes(), filter.hashFunctions(), filter.expectedFalsePositiveRate());
+    }
+
+    /**
+     * Returns the rides that are neither repeated within the list nor already stored.
+     */
+    public List<TaxiRide> filter(List<TaxiRide> rides) {
+        if (!enabled) {
+            return rides;
+        }
+
+        List<TaxiRide> fresh = new ArrayList<>(rides.size());
+        Set<RideFingerprint> seenInBatch = new HashSet<>();
+        for (TaxiRide ride : rides) {
+            RideFingerprint fingerprint = RideFingerprint.of(ride);
+            if (!seenInBatch.add(fingerprint)) {
+                batchDuplicates.increment();
+                continue;
+            }
+            if (!filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2())) {
+                misses.increment();
+                fresh.add(ride);
+                continue;
+            }
+
+            hits.increment();
+            if (isStored(fingerprint)) {
+                storedDuplicates.increment();
+                logger.debug("Duplicate ride dropped: {}", fingerprint);
+            } else {
+                falsePositives.increment();
+                fresh.add(ride);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Like {@link #filter(List)}, but looks every ride up in {@code taxi_rides}. Spilled rides were never
+     * checked, a redelivery may have stored them while the breaker was open, and a replay cut short
+     * between its write and its acknowledgement leaves no trace in the filter of a restarted processor.
+     */
+    public List<TaxiRide> filterReplayed(List<TaxiRide> rides) {
+        if (!enabled) {
+            return rides;
+        }
+
+        List<TaxiRide> fresh = new ArrayList<>(rides.size());
+        Set<RideFingerprint> seenInBatch = new HashSet<>();
+        for (TaxiRide ride : rides) {
+            RideFingerprint fingerprint = RideFingerprint.of(ride);
+            if (!seenInBatch.add(fingerprint)) {
+                batchDuplicates.increment();
+                continue;
+            }
+            // Recorded either way, so a later redelivery of the ride is caught by the filter
+            filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2());
+            if (isStored(fingerprint)) {
+                storedDuplicates.increment();
+                logger.debug("Duplicate replayed ride dropped: {}", fingerprint);
+            } else {
+                fresh.add(ride);
+            }
+        }
+        return fresh;
+    }
+
+    private boolean isStored(RideFingerprint fingerprint) {
+        return repository.existsDuplicate(
+                fingerprint.startLatitude(), fingerprint.startLongitude(), fingerprint.startPlace(),
+                fingerprint.endLatitude(), fingerprint.endLongitude(), fingerprint.endPlace(),
+                fingerprint.startDate(), fingerprint.endDate(), fingerprint.price());
+    }
+
+    private Counter checks(String result) {
+        return Counter.builder("taxi.processor.dedup.checks")
+                .description("Rides checked against the deduplication filter")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter duplicates(String source) {
+        return Counter.builder("taxi.processor.dedup.duplicates")
+                .description("Duplicate rides dropped before the write")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,83 @@
+package com.taxidata.processor.dedup;
+
+import com.taxidata.processor.model.Location;
+import com.taxidata.processor.model.TaxiRide;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Identity of a ride for redelivery detection: start/end location, dates and price.
+ * Record equality is exact; {@link #hash1()} and {@link #hash2()} feed the Bloom filter.
+ */
+public record RideFingerprint(Double startLatitude, Double startLongitude, String startPlace,
+                              Double endLatitude, Double endLongitude, String endPlace,
+                              LocalDateTime startDate, LocalDateTime endDate, Double price) {
+
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+    public static RideFingerprint of(TaxiRide ride) {
+        Location start = ride.getStart() != null ? ride.getStart() : new Location();
+        Location end = ride.getEnd() != null ? ride.getEnd() : new Location();
+        return new RideFingerprint(
+                start.getLatitude(), start.getLongitude(), start.getPlace(),
+                end.getLatitude(), end.getLongitude(), end.getPlace(),
+                ride.getStartDate(), ride.getEndDate(), ride.getPrice());
+    }
+
+    public long hash1() {
+        return hash(SEED_1);
+    }
+
+    public long hash2() {
+        // Odd, so that the derived probe sequence never collapses onto one bit
+        return hash(SEED_2) | 1L;
+    }
+
+    private long hash(long seed) {
+        long h = seed;
+        h = mix(h, bits(startLatitude));
+        h = mix(h, bits(startLongitude));
+        h = mix(h, bits(startPlace));
+        h = mix(h, bits(endLatitude));
+        h = mix(h, bits(endLongitude));
+        h = mix(h, bits(endPlace));
+        h = mix(h, bits(startDate));
+        h = mix(h, bits(endDate));
+        h = mix(h, bits(price));
+        return finish(h);
+    }
+
+    private static long mix(long h, long value) {
+        return Long.rotateLeft(h ^ finish(value), 27) * 0x9E3779B97F4A7C15L + 0x94D049BB133111EBL;
+    }
+
+    // SplitMix64 finaliser
+    private static long finish(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long bits(Double value) {
+        return value == null ? 0x7FF8DEADL : Double.doubleToLongBits(value);
+    }
+
+    private static long bits(LocalDateTime value) {
+        return value == null ? 0x7FF8BEEFL : value.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + value.getNano();
+    }
+
+    private static long bits(String value) {
+        if (value == null) {
+            return 0x7FF8F00DL;
+        }
+        // FNV-1a over the UTF-16 code units
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+}
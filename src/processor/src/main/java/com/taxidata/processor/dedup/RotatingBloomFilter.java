@@ -0,0 +1,142 @@
+package com.taxidata.processor.dedup;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-windowed Bloom filter kept in direct (off-heap) memory.
+ * <p>
+ * The filter is a ring of {@code generations} equally sized bit sets. Inserts go to the newest one
+ * and lookups consult all of them. Every {@code window / (generations - 1)} the oldest generation is
+ * cleared and becomes the newest, so an entry is remembered for at least {@code window}. Bits are set
+ * with atomic {@code getAndBitwiseOr}, so concurrent inserts need no lock; only the rotation takes
+ * the write lock.
+ */
+public class RotatingBloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final double LN2 = Math.log(2);
+
+    private final ByteBuffer[] generations;
+    private final long bitsPerGeneration;
+    private final int hashFunctions;
+    private final long expectedPerGeneration;
+    private final long rotationNanos;
+    private final LongSupplier clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int current;
+    private volatile long lastRotation;
+
+    /**
+     * @param expectedInsertions entries expected per {@code window}
+     * @param falsePositiveRate  target false-positive rate of a single generation
+     * @param memoryBudgetBytes  upper bound for the off-heap memory of all generations together
+     */
+    public RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, long memoryBudgetBytes,
+                               Duration window, int generations, LongSupplier clock) {
+        if (generations < 2) {
+            throw new IllegalArgumentException("A rotating filter needs at least two generations");
+        }
+        this.expectedPerGeneration = Math.max(1, (expectedInsertions + generations - 2) / (generations - 1));
+
+        long optimalBits = (long) Math.ceil(-expectedPerGeneration * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long budgetBits = memoryBudgetBytes / generations * Byte.SIZE;
+        long bits = Math.min(optimalBits, budgetBits);
+        // Whole words only, and addressable by int byte offsets
+        bits = Math.max(Long.SIZE, Math.min(bits, (long) Integer.MAX_VALUE - Long.BYTES) / Long.SIZE * Long.SIZE);
+
+        this.bitsPerGeneration = bits;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bits / expectedPerGeneration * LN2));
+        this.generations = new ByteBuffer[generations];
+        for (int i = 0; i < generations; i++) {
+            int bytes = (int) (bits / Byte.SIZE);
+            this.generations[i] = ByteBuffer.allocateDirect(bytes + Long.BYTES - 1).alignedSlice(Long.BYTES);
+        }
+        this.rotationNanos = window.toNanos() / (generations - 1);
+        this.clock = clock;
+        this.lastRotation = clock.getAsLong();
+    }
+
+    /**
+     * Records the fingerprint and reports whether it may have been recorded before within the window.
+     */
+    public boolean mightContainAndPut(long hash1, long hash2) {
+        rotateIfDue();
+        lock.readLock().lock();
+        try {
+            boolean seen = false;
+            for (int i = 0; i < generations.length && !seen; i++) {
+                seen = contains(generations[i], hash1, hash2);
+            }
+            ByteBuffer newest = generations[current];
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = index(hash1, hash2, i);
+                WORDS.getAndBitwiseOr(newest, (int) (bit >>> 6) * Long.BYTES, 1L << bit);
+            }
+            return seen;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long memoryBytes() {
+        return bitsPerGeneration / Byte.SIZE * generations.length;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * False-positive rate of a lookup against full generations, i.e. at the expected load.
+     */
+    public double expectedFalsePositiveRate() {
+        double single = Math.pow(1 - Math.exp(-(double) hashFunctions * expectedPerGeneration / bitsPerGeneration), hashFunctions);
+        return 1 - Math.pow(1 - single, generations.length);
+    }
+
+    private boolean contains(ByteBuffer generation, long hash1, long hash2) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = index(hash1, hash2, i);
+            long word = (long) WORDS.getVolatile(generation, (int) (bit >>> 6) * Long.BYTES);
+            if ((word & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long hash1, long hash2, int i) {
+        return Long.remainderUnsigned(hash1 + i * hash2, bitsPerGeneration);
+    }
+
+    private void rotateIfDue() {
+        if (clock.getAsLong() - lastRotation < rotationNanos) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            long due = (clock.getAsLong() - lastRotation) / rotationNanos;
+            for (long i = 0; i < Math.min(due, generations.length); i++) {
+                current = (current + 1) % generations.length;
+                clear(generations[current]);
+            }
+            lastRotation += due * rotationNanos;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void clear(ByteBuffer generation) {
+        for (int offset = 0; offset + Long.BYTES <= generation.capacity(); offset += Long.BYTES) {
+            generation.putLong(offset, 0L);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.taxidata.processor.events;
+
+import com.taxidata.processor.model.TaxiRide;
+
+import java.util.List;
+
+/**
+ * Callback for rides that have been committed to {@code taxi_rides}. Rides carry their generated ids.
+ */
+public interface RideCommitListener {
+
+    void onCommit(List<TaxiRide> rides);
+}
@@ -0,0 +1,36 @@
+package com.taxidata.processor.events;
+
+import com.taxidata.processor.model.TaxiRide;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Hands committed rides to every {@link RideCommitListener}. The rides are already stored, so a
+ * failing listener is logged and never fails the delivery.
+ */
+@Component
+@RequiredArgsConstructor
+public class RideCommitNotifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideCommitNotifier.class);
+
+    private final List<RideCommitListener> listeners;
+
+    public void committed(List<TaxiRide> rides) {
+        if (rides.isEmpty()) {
+            return;
+        }
+        for (RideCommitListener listener : listeners) {
+            try {
+                listener.onCommit(rides);
+            } catch (RuntimeException e) {
+                logger.warn("⚠ {} failed for {} committed rides: {}",
+                        listener.getClass().getSimpleName(), rides.size(), e.getMessage());
+            }
+        }
+    }
+}
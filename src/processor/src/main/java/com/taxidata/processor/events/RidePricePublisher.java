@@ -0,0 +1,74 @@
+package com.taxidata.processor.events;
+
+import com.taxidata.common.events.CommittedRides;
+import com.taxidata.processor.model.TaxiRide;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes {@code id:price} of every committed ride on a Redis channel, comma separated, one
+ * message per batch. The API evicts the cached price ranges that contain one of the prices.
+ * <p>
+ * Each message is headed by an ID of this process and a sequence number (see {@link CommittedRides}).
+ * A number is used up even when its message cannot be sent, so subscribers see the gap and stop
+ * trusting state kept current from these messages.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "processor.cache-invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class RidePricePublisher implements RideCommitListener {
+
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${processor.cache-invalidation.channel:taxi:rides:committed}")
+    private String channel;
+
+    private final String publisher = Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36);
+    // Sent in sequence order; a ReentrantLock, since virtual-thread listeners would pin on a monitor
+    private final Lock sends = new ReentrantLock();
+    private long sequence;
+
+    private Counter published;
+
+    @PostConstruct
+    public void init() {
+        this.published = Counter.builder("taxi.processor.commits.published")
+                .description("Committed batches announced to the API for cache invalidation")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onCommit(List<TaxiRide> rides) {
+        long[] ids = new long[rides.size()];
+        double[] prices = new double[rides.size()];
+        int count = 0;
+        for (TaxiRide ride : rides) {
+            if (ride.getId() != null && ride.getPrice() != null) {
+                ids[count] = ride.getId();
+                prices[count++] = ride.getPrice();
+            }
+        }
+        sends.lock();
+        try {
+            String message = new CommittedRides(publisher, ++sequence,
+                    Arrays.copyOf(ids, count), Arrays.copyOf(prices, count)).encode();
+            redisTemplate.convertAndSend(channel, message);
+        } finally {
+            sends.unlock();
+        }
+        published.increment();
+    }
+}
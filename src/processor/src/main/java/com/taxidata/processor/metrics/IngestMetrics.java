@@ -0,0 +1,168 @@
+package com.taxidata.processor.metrics;
+
+import com.taxidata.processor.model.TaxiRide;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-stage timers of the ingest path, the number of messages inside the listeners and the state of
+ * {@code saveRideCB}. Saved and skipped rides are summed and logged once per
+ * {@code processor.metrics.log-interval-ms} instead of once per ride.
+ */
+@Component
+@RequiredArgsConstructor
+public class IngestMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestMetrics.class);
+
+    public enum Stage {
+        /** JSON message to {@link TaxiRide}, before the listener is called */
+        CONVERT("convert"),
+        /** {@link TaxiRide#validateAndInitialize()} */
+        VALIDATE("validate"),
+        /** From submitting the write to the breaker until it permits the call */
+        BREAKER_WAIT("breaker-wait"),
+        /** Duplicate lookup in {@link com.taxidata.processor.dedup.RideDeduplicator} */
+        DEDUP("dedup"),
+        /** Inserts up to the last flushed statement, inside the transaction */
+        PERSIST("persist"),
+        /** Transaction commit */
+        COMMIT("commit"),
+        /** Commit listeners (cache invalidation, analytics) */
+        NOTIFY("notify");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder saved = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final AtomicReference<TaxiRide> lastSaved = new AtomicReference<>();
+    private long lastSummaryNanos = System.nanoTime();
+
+    @PostConstruct
+    public void init() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, Timer.builder("taxi.processor.stage")
+                    .description("Time spent in one stage of the ingest path, per message or batch")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        Gauge.builder("taxi.processor.inflight", inFlight, AtomicInteger::get)
+                .description("Messages handed to a listener and not yet committed, spilled or rejected")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes the breaker state as {@code taxi.processor.breaker.state} (0 closed, 1 half-open,
+     * 2 open, 3 other) and counts every transition.
+     */
+    public void bind(CircuitBreaker circuitBreaker) {
+        Gauge.builder("taxi.processor.breaker.state", circuitBreaker, IngestMetrics::stateCode)
+                .description("State of the breaker: 0 closed, 1 half-open, 2 open, 3 disabled or forced")
+                .tag("name", circuitBreaker.getName())
+                .register(meterRegistry);
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            Counter.builder("taxi.processor.breaker.transitions")
+                    .description("Transitions of the breaker between states")
+                    .tag("name", event.getCircuitBreakerName())
+                    .tag("from", event.getStateTransition().getFromState().name())
+                    .tag("to", event.getStateTransition().getToState().name())
+                    .register(meterRegistry)
+                    .increment();
+            logger.warn("⚠ {} changed from {} to {}", event.getCircuitBreakerName(),
+                    event.getStateTransition().getFromState(), event.getStateTransition().getToState());
+        });
+    }
+
+    public void record(Stage stage, long nanos) {
+        stages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void time(Stage stage, Runnable action) {
+        stages.get(stage).record(action);
+    }
+
+    public <T> T time(Stage stage, Supplier<T> action) {
+        return stages.get(stage).record(action);
+    }
+
+    public void received(int messages) {
+        inFlight.addAndGet(messages);
+    }
+
+    public void completed(int messages) {
+        inFlight.addAndGet(-messages);
+    }
+
+    public void saved(List<TaxiRide> rides) {
+        if (!rides.isEmpty()) {
+            saved.add(rides.size());
+            lastSaved.set(rides.get(rides.size() - 1));
+        }
+    }
+
+    public void duplicates(int rides) {
+        duplicates.add(rides);
+    }
+
+    @Scheduled(fixedDelayString = "${processor.metrics.log-interval-ms:30000}")
+    public synchronized void logSummary() {
+        long now = System.nanoTime();
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(now - lastSummaryNanos));
+        lastSummaryNanos = now;
+        long savedRides = saved.sumThenReset();
+        long skipped = duplicates.sumThenReset();
+        TaxiRide sample = lastSaved.getAndSet(null);
+        if (savedRides == 0 && skipped == 0) {
+            return;
+        }
+        if (sample == null) {
+            logger.info("↷ Saved 0 rides in the last {}s, skipped {} duplicates", seconds, skipped);
+            return;
+        }
+        logger.info("✔ Saved {} rides in the last {}s ({}/s), skipped {} duplicates, last: {} → {}",
+                savedRides, seconds, savedRides / seconds, skipped,
+                sample.getStart() != null ? sample.getStart().getPlace() : null,
+                sample.getEnd() != null ? sample.getEnd().getPlace() : null);
+    }
+
+    private static double stateCode(CircuitBreaker circuitBreaker) {
+        CircuitBreaker.State state = circuitBreaker.getState();
+        if (state == null) {
+            return Double.NaN;
+        }
+        return switch (state) {
+            case CLOSED -> 0;
+            case HALF_OPEN -> 1;
+            case OPEN -> 2;
+            default -> 3;
+        };
+    }
+}
@@ -0,0 +1,47 @@
+package com.taxidata.processor.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+
+/**
+ * Records the {@link IngestMetrics.Stage#CONVERT} stage for every inbound message. The listener
+ * containers convert before the listener is invoked, so this is the only place it can be measured.
+ */
+@RequiredArgsConstructor
+public class TimedMessageConverter implements SmartMessageConverter {
+
+    private final MessageConverter delegate;
+    private final IngestMetrics ingestMetrics;
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) throws MessageConversionException {
+        return delegate.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws MessageConversionException {
+        long start = System.nanoTime();
+        try {
+            return delegate.fromMessage(message);
+        } finally {
+            ingestMetrics.record(IngestMetrics.Stage.CONVERT, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) throws MessageConversionException {
+        if (!(delegate instanceof SmartMessageConverter smart)) {
+            return fromMessage(message);
+        }
+        long start = System.nanoTime();
+        try {
+            return smart.fromMessage(message, conversionHint);
+        } finally {
+            ingestMetrics.record(IngestMetrics.Stage.CONVERT, System.nanoTime() - start);
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.taxidata.processor.model;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.taxidata.common.geo.GeoGrid;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -20,12 +24,21 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "taxi_rides")
+// Partitioned by month of start_date, see schema.sql; the indexes are created on the parent
+@Table(name = "taxi_rides", indexes = {
+        @Index(name = "idx_taxi_rides_id", columnList = "id"),
+        @Index(name = "idx_taxi_rides_start_date", columnList = "start_date"),
+        @Index(name = "idx_taxi_rides_price_start_date", columnList = "price, start_date"),
+        @Index(name = "idx_taxi_rides_price_id", columnList = "price, id"),
+        @Index(name = "idx_taxi_rides_start_cell_id", columnList = "start_cell, id"),
+        @Index(name = "idx_taxi_rides_end_cell_id", columnList = "end_cell, id")
+})
 public class TaxiRide implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "taxi_rides_seq")
+    @SequenceGenerator(name = "taxi_rides_seq", sequenceName = "taxi_rides_seq", allocationSize = 50)
     private Long id;
 
     @Embedded
@@ -39,18 +52,28 @@ public class TaxiRide implements Serializable {
     })
     private Location end;
 
-    @ElementCollection
-    @CollectionTable(
-            name = "important_places",
-            joinColumns = @JoinColumn(name = "ride_id")
-    )
+    // GeoGrid cells of start and end, derived on every write; the API's geo search reads them
+    @JsonIgnore
+    @Column(name = "start_cell")
+    private Long startCell;
+
+    @JsonIgnore
+    @Column(name = "end_cell")
+    private Long endCell;
+
+    // Stored inline as a jsonb array, so a ride is written and read as a single row
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "important_places", columnDefinition = "jsonb")
     @Builder.Default
+    @JsonAlias("important_places")
     private List<Location> importantPlaces = new ArrayList<>();
 
+    @JsonAlias("start_date")
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     @Column(name = "start_date")
     private LocalDateTime startDate;
 
+    @JsonAlias("end_date")
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     @Column(name = "end_date")
     private LocalDateTime endDate;
@@ -58,6 +81,7 @@ public class TaxiRide implements Serializable {
     @Column(nullable = false)
     private Double price;
 
+    @JsonAlias("distance_km")
     @Column(name = "distance_km")
     private Double distanceKm;
 
@@ -78,11 +102,13 @@ public class TaxiRide implements Serializable {
 
     @PrePersist
     @PreUpdate
-    protected void validateAndInitialize() {
+    public void validateAndInitialize() {
         // Inicialização
         if (this.importantPlaces == null) {
             this.importantPlaces = new ArrayList<>();
         }
+        this.startCell = cellOf(start);
+        this.endCell = cellOf(end);
 
         // Validações
         if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
@@ -119,4 +145,14 @@ public class TaxiRide implements Serializable {
     public boolean isInProgress() {
         return startDate != null && endDate == null;
     }
-}
\ No newline at end of file
+
+    /**
+     * @return the {@link GeoGrid} cell of the location, or {@code null} when it has no coordinates
+     */
+    public static Long cellOf(Location location) {
+        if (location == null || location.getLatitude() == null || location.getLongitude() == null) {
+            return null;
+        }
+        return GeoGrid.cellOf(location.getLatitude(), location.getLongitude());
+    }
+}
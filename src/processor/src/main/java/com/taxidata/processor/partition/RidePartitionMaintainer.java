@@ -0,0 +1,194 @@
+package com.taxidata.processor.partition;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the monthly partitions of {@code taxi_rides} (see schema.sql) ahead of the clock and drops
+ * the expired ones.
+ * <p>
+ * Upcoming months get their partition before the first ride arrives. Should rides for a month have
+ * landed in {@code taxi_rides_default} first, they are moved into the new partition in the same
+ * transaction. Partitions entirely older than the retention are detached and dropped, which costs
+ * a catalog update instead of a bulk DELETE; expired rides that sit in {@code taxi_rides_default}
+ * are deleted with them. Replicas serialize on an advisory lock; whoever does
+ * not get it skips the run.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "processor.partitions.enabled", havingValue = "true", matchIfMissing = true)
+public class RidePartitionMaintainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RidePartitionMaintainer.class);
+
+    static final String PARENT = "taxi_rides";
+    static final String DEFAULT_PARTITION = "taxi_rides_default";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'taxi_rides_p'yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${processor.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // Months kept, the current one included; 0 keeps every partition
+    @Value("${processor.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter created;
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.created = partitions("created");
+        this.dropped = partitions("dropped");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${processor.partitions.cron:0 15 3 * * *}")
+    public void maintain() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(hashtext('taxi_rides_partitioning'))", Boolean.class);
+                if (!Boolean.TRUE.equals(locked)) {
+                    logger.debug("Partition maintenance running elsewhere, skipping");
+                    return;
+                }
+                if (!"p".equals(jdbcTemplate.queryForObject(
+                        "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", String.class, PARENT))) {
+                    logger.warn("⚠ {} is not partitioned yet, skipping partition maintenance", PARENT);
+                    return;
+                }
+                Set<String> existing = new HashSet<>(jdbcTemplate.queryForList(
+                        "SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass(?)", String.class, PARENT));
+
+                YearMonth current = YearMonth.now();
+                for (int i = 0; i <= monthsAhead; i++) {
+                    YearMonth month = current.plusMonths(i);
+                    if (!existing.contains(name(month))) {
+                        create(month);
+                    }
+                }
+                if (retentionMonths > 0) {
+                    dropExpired(existing, oldestKept(current, retentionMonths));
+                }
+            });
+        } catch (Exception e) {
+            logger.error("✘ Partition maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    private void create(YearMonth month) {
+        String partition = name(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        Boolean strays = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION +
+                " WHERE start_date >= ? AND start_date < ?)", Boolean.class, from, to);
+        if (Boolean.TRUE.equals(strays)) {
+            // A partition cannot be created over rows the default partition holds; move them along
+            jdbcTemplate.execute("CREATE TABLE " + partition + " (LIKE " + PARENT + " INCLUDING DEFAULTS)");
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE start_date >= ? AND start_date < ? RETURNING *) INSERT INTO " + partition +
+                    " SELECT * FROM moved", from, to);
+            jdbcTemplate.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + partition +
+                    " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            logger.info("✔ Created partition {} with {} rides moved from {}", partition, moved, DEFAULT_PARTITION);
+        } else {
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + PARENT +
+                    " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            logger.info("✔ Created partition {}", partition);
+        }
+        created.increment();
+    }
+
+    private void dropExpired(Set<String> existing, YearMonth oldestKept) {
+        for (String partition : expired(existing, oldestKept)) {
+            jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            dropped.increment();
+            logger.info("↷ Dropped partition {} (retention {} months)", partition, retentionMonths);
+        }
+        // Rides of months that had no partition yet; rides without a start date are never expired
+        int strays = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE start_date < ?",
+                oldestKept.atDay(1));
+        if (strays > 0) {
+            logger.info("↷ Deleted {} expired rides from {} (retention {} months)", strays, DEFAULT_PARTITION, retentionMonths);
+        }
+    }
+
+    /**
+     * The first month kept when {@code retentionMonths} months are kept, {@code current} included.
+     */
+    static YearMonth oldestKept(YearMonth current, int retentionMonths) {
+        return current.minusMonths(retentionMonths - 1L);
+    }
+
+    /**
+     * The monthly partitions entirely before {@code oldestKept}, oldest first.
+     */
+    static List<String> expired(Set<String> partitions, YearMonth oldestKept) {
+        return partitions.stream()
+                .filter(partition -> {
+                    YearMonth month = month(partition);
+                    return month != null && month.isBefore(oldestKept);
+                })
+                .sorted()
+                .toList();
+    }
+
+    static String name(YearMonth month) {
+        return NAME_FORMAT.format(month.atDay(1));
+    }
+
+    /**
+     * @return the month of a {@code taxi_rides_pYYYY_MM} partition, or {@code null} for any other table
+     */
+    static YearMonth month(String partition) {
+        if (!partition.startsWith("taxi_rides_p")) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring("taxi_rides_p".length()), DateTimeFormatter.ofPattern("yyyy_MM"));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private Counter partitions(String action) {
+        return Counter.builder("taxi.processor.partitions")
+                .description("Monthly ride partitions created ahead or dropped by retention")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,156 @@
+package com.taxidata.processor.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taxidata.processor.metrics.IngestMetrics;
+import com.taxidata.processor.metrics.IngestMetrics.Stage;
+import com.taxidata.processor.model.Location;
+import com.taxidata.processor.model.TaxiRide;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bulk-ingest engine that streams rides into {@code taxi_rides} with
+ * {@code COPY ... FROM STDIN (FORMAT binary)}, in one transaction, with ids taken from the same
+ * pooled sequence Hibernate uses, so both engines can run side by side.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "processor.persistence.engine", havingValue = "copy")
+public class CopyRideWriter implements RideWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CopyRideWriter.class);
+
+    // Must match the allocationSize of the taxi_rides_seq generator on TaxiRide
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String NEXT_ID_BLOCKS =
+            "SELECT nextval('taxi_rides_seq') FROM generate_series(1, ?)";
+
+    private static final String COPY_RIDES =
+            "COPY taxi_rides (id, latitude, longitude, place, end_latitude, end_longitude, end_place, " +
+            "start_cell, end_cell, important_places, start_date, end_date, price, distance_km, created_at, updated_at, version) " +
+            "FROM STDIN WITH (FORMAT binary)";
+    private static final int RIDE_FIELDS = 17;
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final IngestMetrics ingestMetrics;
+
+    @Override
+    public void write(TaxiRide ride) {
+        writeAll(List.of(ride));
+    }
+
+    @Override
+    public void writeAll(List<TaxiRide> rides) {
+        if (rides.isEmpty()) {
+            return;
+        }
+        // COPY bypasses the JPA lifecycle callbacks
+        rides.forEach(TaxiRide::validateAndInitialize);
+
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long start = System.nanoTime();
+                assignIds(connection, rides);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                LocalDateTime now = LocalDateTime.now();
+                copyRides(pgConnection, rides, now);
+                long copied = System.nanoTime();
+                ingestMetrics.record(Stage.PERSIST, copied - start);
+                connection.commit();
+                ingestMetrics.record(Stage.COMMIT, System.nanoTime() - copied);
+                logger.debug("COPY committed {} rides", rides.size());
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                rides.forEach(ride -> ride.setId(null));
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | IOException e) {
+            throw new DataAccessResourceFailureException("COPY of " + rides.size() + " rides failed", e);
+        }
+    }
+
+    private void assignIds(Connection connection, List<TaxiRide> rides) throws SQLException {
+        // One extra block in case the sequence hands out its initial value, which owns no full block
+        int blocks = (rides.size() + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE + 1;
+        Iterator<TaxiRide> pending = rides.iterator();
+
+        try (PreparedStatement statement = connection.prepareStatement(NEXT_ID_BLOCKS)) {
+            statement.setInt(1, blocks);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (pending.hasNext() && resultSet.next()) {
+                    long hi = resultSet.getLong(1);
+                    if (hi < ID_ALLOCATION_SIZE) {
+                        continue;
+                    }
+                    for (long id = hi - ID_ALLOCATION_SIZE + 1; id <= hi && pending.hasNext(); id++) {
+                        pending.next().setId(id);
+                    }
+                }
+            }
+        }
+
+        if (pending.hasNext()) {
+            throw new IllegalStateException("taxi_rides_seq returned too few id blocks for " + rides.size() + " rides");
+        }
+    }
+
+    private void copyRides(PGConnection pgConnection, List<TaxiRide> rides, LocalDateTime now)
+            throws SQLException, IOException {
+        try (PgBinaryCopyStream copy = new PgBinaryCopyStream(new PGCopyOutputStream(pgConnection, COPY_RIDES))) {
+            for (TaxiRide ride : rides) {
+                ride.setCreatedAt(now);
+                ride.setUpdatedAt(now);
+                ride.setVersion(0L);
+
+                copy.startRow(RIDE_FIELDS);
+                copy.writeLong(ride.getId());
+                writeLocation(copy, ride.getStart());
+                writeLocation(copy, ride.getEnd());
+                copy.writeLong(ride.getStartCell());
+                copy.writeLong(ride.getEndCell());
+                copy.writeJsonb(objectMapper.writeValueAsBytes(ride.getImportantPlaces()));
+                copy.writeTimestamp(ride.getStartDate());
+                copy.writeTimestamp(ride.getEndDate());
+                copy.writeDouble(ride.getPrice());
+                copy.writeDouble(ride.getDistanceKm());
+                copy.writeTimestamp(ride.getCreatedAt());
+                copy.writeTimestamp(ride.getUpdatedAt());
+                copy.writeLong(ride.getVersion());
+            }
+        }
+    }
+
+    private static void writeLocation(PgBinaryCopyStream copy, Location location) throws IOException {
+        if (location == null) {
+            copy.writeNull();
+            copy.writeNull();
+            copy.writeNull();
+            return;
+        }
+        copy.writeDouble(location.getLatitude());
+        copy.writeDouble(location.getLongitude());
+        copy.writeText(location.getPlace());
+    }
+}
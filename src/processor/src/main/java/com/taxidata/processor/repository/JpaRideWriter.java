@@ -0,0 +1,57 @@
+package com.taxidata.processor.repository;
+
+import com.taxidata.processor.metrics.IngestMetrics;
+import com.taxidata.processor.metrics.IngestMetrics.Stage;
+import com.taxidata.processor.model.TaxiRide;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "processor.persistence.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaRideWriter implements RideWriter {
+
+    private final TaxiRideRepository repository;
+    private final PlatformTransactionManager transactionManager;
+    private final IngestMetrics ingestMetrics;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void write(TaxiRide ride) {
+        inTransaction(() -> repository.save(ride));
+    }
+
+    @Override
+    public void writeAll(List<TaxiRide> rides) {
+        inTransaction(() -> repository.saveAll(rides));
+    }
+
+    /**
+     * Flushes explicitly before the commit, so the inserts are timed as {@link Stage#PERSIST} and only
+     * the commit itself as {@link Stage#COMMIT}.
+     */
+    private void inTransaction(Runnable inserts) {
+        Long flushedAt = transactionTemplate.execute(status -> {
+            ingestMetrics.time(Stage.PERSIST, () -> {
+                inserts.run();
+                repository.flush();
+            });
+            return System.nanoTime();
+        });
+        if (flushedAt != null) {
+            ingestMetrics.record(Stage.COMMIT, System.nanoTime() - flushedAt);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.taxidata.processor.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Encoder for the PostgreSQL binary {@code COPY} format. Rows are streamed to the target as they
+ * are written; {@link #close()} appends the trailer and closes the target, which ends the COPY.
+ */
+final class PgBinaryCopyStream implements Closeable {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    private static final LocalDateTime PG_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int JSONB_VERSION = 1;
+
+    private final DataOutputStream out;
+
+    PgBinaryCopyStream(OutputStream target) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(target, BUFFER_SIZE));
+        out.write(SIGNATURE);
+        out.writeInt(0); // flags
+        out.writeInt(0); // header extension length
+    }
+
+    void startRow(int fieldCount) throws IOException {
+        out.writeShort(fieldCount);
+    }
+
+    void writeLong(Long value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(Long.BYTES);
+        out.writeLong(value);
+    }
+
+    void writeDouble(Double value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(Double.BYTES);
+        out.writeDouble(value);
+    }
+
+    void writeText(String value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * {@code jsonb}: a format version byte followed by the UTF-8 JSON text.
+     */
+    void writeJsonb(byte[] json) throws IOException {
+        if (json == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(json.length + 1);
+        out.writeByte(JSONB_VERSION);
+        out.write(json);
+    }
+
+    /**
+     * {@code timestamp without time zone}: microseconds since 2000-01-01 00:00:00.
+     */
+    void writeTimestamp(LocalDateTime value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        out.writeInt(Long.BYTES);
+        out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, value));
+    }
+
+    void writeNull() throws IOException {
+        out.writeInt(-1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.writeShort(-1);
+        out.close();
+    }
+}
@@ -0,0 +1,19 @@
+package com.taxidata.processor.repository;
+
+import com.taxidata.processor.model.TaxiRide;
+
+import java.util.List;
+
+/**
+ * Persistence engine used by the processor. The implementation is selected with
+ * {@code processor.persistence.engine} ({@code jpa} or {@code copy}).
+ */
+public interface RideWriter {
+
+    void write(TaxiRide ride);
+
+    /**
+     * Persists all rides atomically: either every ride of the batch is committed or none is.
+     */
+    void writeAll(List<TaxiRide> rides);
+}
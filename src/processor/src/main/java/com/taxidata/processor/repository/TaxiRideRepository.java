@@ -2,6 +2,31 @@ package com.taxidata.processor.repository;
 
 import com.taxidata.processor.model.TaxiRide;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 
 public interface TaxiRideRepository extends JpaRepository<TaxiRide, Long> {
-}
\ No newline at end of file
+
+    @Query("SELECT CASE WHEN COUNT(t) > 0 THEN true ELSE false END FROM TaxiRide t WHERE " +
+            "t.price = :price AND " +
+            "(t.startDate = :startDate OR (:startDate IS NULL AND t.startDate IS NULL)) AND " +
+            "(t.endDate = :endDate OR (:endDate IS NULL AND t.endDate IS NULL)) AND " +
+            "(t.start.latitude = :startLatitude OR (:startLatitude IS NULL AND t.start.latitude IS NULL)) AND " +
+            "(t.start.longitude = :startLongitude OR (:startLongitude IS NULL AND t.start.longitude IS NULL)) AND " +
+            "(t.start.place = :startPlace OR (:startPlace IS NULL AND t.start.place IS NULL)) AND " +
+            "(t.end.latitude = :endLatitude OR (:endLatitude IS NULL AND t.end.latitude IS NULL)) AND " +
+            "(t.end.longitude = :endLongitude OR (:endLongitude IS NULL AND t.end.longitude IS NULL)) AND " +
+            "(t.end.place = :endPlace OR (:endPlace IS NULL AND t.end.place IS NULL))")
+    boolean existsDuplicate(
+            @Param("startLatitude") Double startLatitude,
+            @Param("startLongitude") Double startLongitude,
+            @Param("startPlace") String startPlace,
+            @Param("endLatitude") Double endLatitude,
+            @Param("endLongitude") Double endLongitude,
+            @Param("endPlace") String endPlace,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("price") Double price);
+}
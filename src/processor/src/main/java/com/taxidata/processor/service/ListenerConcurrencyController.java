@@ -0,0 +1,238 @@
+package com.taxidata.processor.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scales the consumers and prefetch of the running listener container between the configured
+ * limits. Each tick samples the queue depth, the share of time consumers spent persisting rides and
+ * the mean commit latency; a saturated Hikari pool or slow commits always win over the backlog.
+ * <p>
+ * A consumer keeps the prefetch it was started with, so prefetch only moves together with the
+ * consumer count: a consumer added on scale-up starts with the doubled prefetch, and consumers added
+ * after a backoff start with the halved one.
+ */
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "processor.scaling.enabled", havingValue = "true", matchIfMissing = true)
+public class ListenerConcurrencyController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListenerConcurrencyController.class);
+
+    enum Decision { SCALE_UP, SCALE_DOWN, BACKOFF, HOLD }
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final AmqpAdmin amqpAdmin;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${rabbitmq.queue}")
+    private String queueName;
+
+    @Value("${processor.scaling.min-consumers:1}")
+    private int minConsumers;
+
+    @Value("${processor.scaling.max-consumers:8}")
+    private int maxConsumers;
+
+    @Value("${processor.scaling.min-prefetch:50}")
+    private int minPrefetch;
+
+    @Value("${processor.scaling.max-prefetch:1000}")
+    private int maxPrefetch;
+
+    @Value("${processor.scaling.scale-up-depth:1000}")
+    private long scaleUpDepth;
+
+    @Value("${processor.scaling.scale-down-depth:100}")
+    private long scaleDownDepth;
+
+    @Value("${processor.scaling.busy-utilisation:0.5}")
+    private double busyUtilisation;
+
+    @Value("${processor.scaling.max-commit-latency-ms:500}")
+    private double maxCommitLatencyMs;
+
+    @Value("${spring.rabbitmq.listener.simple.concurrency:1}")
+    private int initialConsumers;
+
+    @Value("${spring.rabbitmq.listener.simple.prefetch:250}")
+    private int initialPrefetch;
+
+    @Value("${processor.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${processor.batch.size:100}")
+    private int batchSize;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final AtomicInteger prefetch = new AtomicInteger();
+    private final AtomicLong utilisationPermille = new AtomicLong();
+    private final Map<Decision, Counter> decisions = new EnumMap<>(Decision.class);
+
+    private long lastSampleNanos;
+    private double lastBusyNanos;
+    private long lastCommitCount;
+
+    @PostConstruct
+    public void init() {
+        if (batchEnabled) {
+            // A consumer batch can never be larger than what the broker pushes ahead
+            minPrefetch = Math.max(minPrefetch, batchSize);
+            maxPrefetch = Math.max(maxPrefetch, minPrefetch);
+        }
+        consumers.set(Math.max(minConsumers, initialConsumers));
+        prefetch.set(Math.max(minPrefetch, initialPrefetch));
+
+        Gauge.builder("taxi.processor.queue.depth", queueDepth, AtomicLong::get)
+                .description("Messages ready in the ride queue at the last sample")
+                .register(meterRegistry);
+        Gauge.builder("taxi.processor.listener.consumers", consumers, AtomicInteger::get)
+                .description("Concurrent consumers of the active listener container")
+                .register(meterRegistry);
+        Gauge.builder("taxi.processor.listener.prefetch", prefetch, AtomicInteger::get)
+                .description("Prefetch count consumers of the active listener container start with")
+                .register(meterRegistry);
+        Gauge.builder("taxi.processor.listener.utilisation", utilisationPermille, value -> value.get() / 1000.0)
+                .description("Share of the last interval consumers spent persisting rides")
+                .register(meterRegistry);
+        for (Decision decision : Decision.values()) {
+            decisions.put(decision, Counter.builder("taxi.processor.scaling.decisions")
+                    .description("Scaling decisions taken by the listener concurrency controller")
+                    .tag("decision", decision.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        lastSampleNanos = System.nanoTime();
+    }
+
+    @Scheduled(fixedDelayString = "${processor.scaling.interval-ms:10000}")
+    public void adjust() {
+        SimpleMessageListenerContainer container = activeContainer();
+        if (container == null) {
+            return;
+        }
+
+        QueueInformation queue = amqpAdmin.getQueueInfo(queueName);
+        long depth = queue != null ? queue.getMessageCount() : 0;
+        int currentConsumers = consumers.get();
+        int currentPrefetch = prefetch.get();
+
+        long now = System.nanoTime();
+        Timer commits = meterRegistry.find("taxi.processor.batch.latency").timer();
+        double busyNanos = commits != null ? commits.totalTime(TimeUnit.NANOSECONDS) : 0;
+        long commitCount = commits != null ? commits.count() : 0;
+        double utilisation = (busyNanos - lastBusyNanos) / ((double) (now - lastSampleNanos) * currentConsumers);
+        double commitLatencyMs = commitCount > lastCommitCount
+                ? (busyNanos - lastBusyNanos) / (commitCount - lastCommitCount) / 1_000_000.0
+                : 0;
+        lastSampleNanos = now;
+        lastBusyNanos = busyNanos;
+        lastCommitCount = commitCount;
+
+        boolean poolSaturated = isPoolSaturated();
+        Decision decision;
+        int targetConsumers = currentConsumers;
+        int targetPrefetch = currentPrefetch;
+
+        if (poolSaturated || commitLatencyMs > maxCommitLatencyMs) {
+            decision = Decision.BACKOFF;
+            targetConsumers = currentConsumers - 1;
+            targetPrefetch = currentPrefetch / 2;
+        } else if (depth > scaleUpDepth) {
+            decision = Decision.SCALE_UP;
+            // Idle consumers facing a backlog are starved by prefetch; the added one starts with more
+            targetConsumers = currentConsumers + 1;
+            targetPrefetch = currentPrefetch * 2;
+        } else if (depth < scaleDownDepth && utilisation < busyUtilisation) {
+            decision = Decision.SCALE_DOWN;
+            targetConsumers = currentConsumers - 1;
+            targetPrefetch = currentPrefetch / 2;
+        } else {
+            decision = Decision.HOLD;
+        }
+
+        targetConsumers = Math.max(minConsumers, Math.min(Math.min(maxConsumers, maxPoolSize()), targetConsumers));
+        targetPrefetch = Math.max(minPrefetch, Math.min(maxPrefetch, targetPrefetch));
+        if (targetConsumers == currentConsumers) {
+            // Without a consumer to start or stop, a new prefetch would reach no running consumer
+            decision = Decision.HOLD;
+            targetPrefetch = currentPrefetch;
+        }
+
+        decisions.get(decision).increment();
+        queueDepth.set(depth);
+        utilisationPermille.set(Math.round(utilisation * 1000));
+
+        if (decision != Decision.HOLD) {
+            // Set before the consumer count, so an added consumer starts with it
+            container.setPrefetchCount(targetPrefetch);
+            container.setConcurrentConsumers(targetConsumers);
+            logger.info("⇅ Listener {}: consumers {} → {}, prefetch {} → {} (depth={}, utilisation={}, commit={}ms, poolSaturated={})",
+                    decision, currentConsumers, targetConsumers, currentPrefetch, targetPrefetch,
+                    depth, String.format("%.2f", utilisation), String.format("%.1f", commitLatencyMs), poolSaturated);
+        }
+        consumers.set(targetConsumers);
+        prefetch.set(targetPrefetch);
+    }
+
+    private SimpleMessageListenerContainer activeContainer() {
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (container.isRunning() && container instanceof SimpleMessageListenerContainer simple) {
+                return simple;
+            }
+        }
+        return null;
+    }
+
+    private boolean isPoolSaturated() {
+        HikariPoolMXBean pool = hikariPool();
+        if (pool == null) {
+            return false;
+        }
+        return pool.getThreadsAwaitingConnection() > 0 || pool.getActiveConnections() >= maxPoolSize();
+    }
+
+    private int maxPoolSize() {
+        HikariDataSource hikari = hikariDataSource();
+        return hikari != null ? hikari.getMaximumPoolSize() : Integer.MAX_VALUE;
+    }
+
+    private HikariPoolMXBean hikariPool() {
+        HikariDataSource hikari = hikariDataSource();
+        return hikari != null ? hikari.getHikariPoolMXBean() : null;
+    }
+
+    private HikariDataSource hikariDataSource() {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
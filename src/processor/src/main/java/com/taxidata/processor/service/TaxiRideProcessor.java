@@ -1,9 +1,19 @@
 package com.taxidata.processor.service;
 
+import com.taxidata.processor.dedup.RideDeduplicator;
+import com.taxidata.processor.events.RideCommitNotifier;
+import com.taxidata.processor.metrics.IngestMetrics;
+import com.taxidata.processor.metrics.IngestMetrics.Stage;
 import com.taxidata.processor.model.TaxiRide;
-import com.taxidata.processor.repository.TaxiRideRepository;
+import com.taxidata.processor.repository.RideWriter;
+import com.taxidata.processor.spill.RideSpillLog;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -11,29 +21,130 @@ import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
 @Service
 @RequiredArgsConstructor
 public class TaxiRideProcessor {
 
     private static final Logger logger = LoggerFactory.getLogger(TaxiRideProcessor.class);
 
-    private final TaxiRideRepository repository;
+    private final RideWriter rideWriter;
     private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final RideSpillLog spillLog;
+    private final RideDeduplicator deduplicator;
+    private final RideCommitNotifier commitNotifier;
+    private final IngestMetrics ingestMetrics;
 
     private CircuitBreaker circuitBreaker;
+    private DistributionSummary batchSize;
+    private Timer batchLatency;
+    private Counter rejectedRides;
 
     @PostConstruct
     public void init() {
         this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("saveRideCB");
+        ingestMetrics.bind(circuitBreaker);
+        this.batchSize = DistributionSummary.builder("taxi.processor.batch.size")
+                .description("Number of rides flushed per batch (1 for the single-message listener)")
+                .register(meterRegistry);
+        this.batchLatency = Timer.builder("taxi.processor.batch.latency")
+                .description("Time taken to persist and commit a batch of rides")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedRides = Counter.builder("taxi.processor.rides.rejected")
+                .description("Rides discarded because they failed validation")
+                .register(meterRegistry);
     }
 
-    @RabbitListener(queues = "${rabbitmq.queue}")
+    @RabbitListener(queues = "${rabbitmq.queue}", autoStartup = "#{!${processor.batch.enabled:false}}")
     public void processRide(TaxiRide ride) {
-        circuitBreaker.executeRunnable(() -> {
-            repository.save(ride);
-            logger.info("✔ Ride saved: {} → {}",
-                    ride.getStart().getPlace(),
-                    ride.getEnd().getPlace());
-        });
+        ingestMetrics.received(1);
+        try {
+            List<TaxiRide> valid = validate(List.of(ride));
+            if (!valid.isEmpty()) {
+                write(valid, this::persistEach);
+            }
+        } finally {
+            ingestMetrics.completed(1);
+        }
+    }
+
+    @RabbitListener(queues = "${rabbitmq.queue}",
+            containerFactory = "batchRabbitListenerContainerFactory",
+            autoStartup = "${processor.batch.enabled:false}")
+    public void processRides(List<TaxiRide> rides) {
+        ingestMetrics.received(rides.size());
+        try {
+            List<TaxiRide> valid = validate(rides);
+            if (!valid.isEmpty()) {
+                write(valid, rideWriter::writeAll);
+            }
+        } finally {
+            ingestMetrics.completed(rides.size());
+        }
+    }
+
+    private List<TaxiRide> validate(List<TaxiRide> rides) {
+        List<TaxiRide> valid = new ArrayList<>(rides.size());
+        for (TaxiRide ride : rides) {
+            long start = System.nanoTime();
+            try {
+                ride.validateAndInitialize();
+                valid.add(ride);
+            } catch (IllegalStateException e) {
+                // Redelivering an invalid ride would fail the whole batch again, so it is dropped here
+                rejectedRides.increment();
+                logger.warn("✘ Ride discarded: {}", e.getMessage());
+            } finally {
+                ingestMetrics.record(Stage.VALIDATE, System.nanoTime() - start);
+            }
+        }
+        return valid;
+    }
+
+    private void write(List<TaxiRide> valid, Consumer<List<TaxiRide>> writer) {
+        List<TaxiRide> written;
+        long submitted = System.nanoTime();
+        try {
+            // The duplicate lookup hits the database too, so it runs behind the breaker
+            written = batchLatency.record(() -> circuitBreaker.executeSupplier(() -> {
+                ingestMetrics.record(Stage.BREAKER_WAIT, System.nanoTime() - submitted);
+                List<TaxiRide> fresh = ingestMetrics.time(Stage.DEDUP, () -> deduplicator.filter(valid));
+                if (!fresh.isEmpty()) {
+                    writer.accept(fresh);
+                }
+                return fresh;
+            }));
+        } catch (CallNotPermittedException e) {
+            spill(valid, e);
+            return;
+        }
+        batchSize.record(written.size());
+        ingestMetrics.saved(written);
+        ingestMetrics.duplicates(valid.size() - written.size());
+        logger.debug("✔ Saved {} of {} rides", written.size(), valid.size());
+        if (!written.isEmpty()) {
+            ingestMetrics.time(Stage.NOTIFY, () -> commitNotifier.committed(written));
+        }
+    }
+
+    private void persistEach(List<TaxiRide> rides) {
+        rides.forEach(rideWriter::write);
+    }
+
+    /**
+     * Keeps rides rejected by an open breaker locally so the message can be acknowledged instead of
+     * being redelivered until the database is back.
+     */
+    private void spill(List<TaxiRide> rides, CallNotPermittedException cause) {
+        if (!spillLog.isEnabled()) {
+            throw cause;
+        }
+        spillLog.append(rides);
+        logger.warn("⚠ saveRideCB is open, spilled {} rides ({} pending replay)", rides.size(), spillLog.depth());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,401 @@
+package com.taxidata.processor.spill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taxidata.processor.model.TaxiRide;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only log for rides that could not be written while {@code saveRideCB} was open.
+ * <p>
+ * Rides are stored in fixed-size memory-mapped segments ({@code segment-<n>.log}) as
+ * {@code [int length][int crc32][json payload]} records. The length is written last, so a zero length
+ * marks the end of the data. The replay position is persisted in {@code cursor}; segments behind it
+ * are deleted. On start the last segment is scanned and everything after the last intact record is
+ * discarded.
+ * <p>
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized}: {@link #append} forces the
+ * segment to disk, and a virtual thread waiting on a monitor would pin its carrier meanwhile.
+ */
+@Component
+public class RideSpillLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideSpillLog.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CURSOR_FILE = "cursor";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong depth = new AtomicLong();
+    private Counter appended;
+    private Counter corrupted;
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private int writePosition;
+
+    private long readSegment;
+    private int readPosition;
+    private long readBufferSegment = -1;
+    private MappedByteBuffer readBuffer;
+
+    private long peekSegment;
+    private int peekPosition;
+    private int peekCount;
+
+    public RideSpillLog(ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${processor.spill.enabled:true}") boolean enabled,
+                        @Value("${processor.spill.dir:${java.io.tmpdir}/taxi-processor/spill}") Path directory,
+                        @Value("${processor.spill.segment-size:64MB}") DataSize segmentSize) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentBytes = Math.toIntExact(segmentSize.toBytes());
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        lock.lock();
+        try {
+            Gauge.builder("taxi.processor.spill.depth", depth, AtomicLong::get)
+                    .description("Spilled rides waiting to be replayed")
+                    .register(meterRegistry);
+            this.appended = Counter.builder("taxi.processor.spill.appended")
+                    .description("Rides appended to the spill log")
+                    .register(meterRegistry);
+            this.corrupted = Counter.builder("taxi.processor.spill.corrupted")
+                    .description("Spill log records skipped because they failed the checksum or could not be decoded")
+                    .register(meterRegistry);
+
+            if (!enabled) {
+                return;
+            }
+
+            Files.createDirectories(directory);
+            List<Long> segments = listSegments();
+
+            writeSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+            writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+            writePosition = recover(writeBuffer);
+
+            readCursor(segments.isEmpty() ? 0 : segments.get(0));
+            for (long segment : segments) {
+                if (segment < readSegment) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+            peekSegment = readSegment;
+            peekPosition = readPosition;
+
+            depth.set(countPending());
+            if (depth.get() > 0) {
+                logger.warn("⚠ Spill log recovered with {} rides pending replay in {}", depth.get(), directory);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long depth() {
+        return depth.get();
+    }
+
+    /**
+     * Appends the rides and forces them to disk before returning.
+     */
+    public void append(List<TaxiRide> rides) {
+        lock.lock();
+        try {
+            if (!enabled) {
+                throw new IllegalStateException("Spill log is disabled");
+            }
+            try {
+                for (TaxiRide ride : rides) {
+                    byte[] payload = objectMapper.writeValueAsBytes(ride);
+                    int required = HEADER_BYTES + payload.length;
+                    if (required > segmentBytes) {
+                        throw new IllegalArgumentException("Ride of " + payload.length + " bytes exceeds the spill segment size");
+                    }
+                    if (writePosition + required > segmentBytes) {
+                        rollover();
+                    }
+                    writeRecord(payload);
+                }
+                writeBuffer.force();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to spill log " + directory, e);
+            }
+            depth.addAndGet(rides.size());
+            appended.increment(rides.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads up to {@code maxRecords} rides from the replay position without moving it.
+     * Call {@link #acknowledge()} once they have been written.
+     */
+    public List<TaxiRide> peek(int maxRecords) {
+        lock.lock();
+        try {
+            List<TaxiRide> rides = new ArrayList<>();
+            long segment = readSegment;
+            int position = readPosition;
+            int consumed = 0;
+
+            try {
+                while (consumed < maxRecords) {
+                    MappedByteBuffer buffer = readBuffer(segment);
+                    int length = recordLength(buffer, position);
+                    if (length < 0) {
+                        if (segment >= writeSegment) {
+                            break;
+                        }
+                        if (position + Integer.BYTES <= segmentBytes && buffer.getInt(position) != 0) {
+                            corrupted.increment();
+                            logger.error("✘ Spill segment {} is damaged at offset {}, skipping its remainder", segment, position);
+                        }
+                        segment++;
+                        position = 0;
+                        continue;
+                    }
+
+                    byte[] payload = new byte[length];
+                    buffer.get(position + HEADER_BYTES, payload);
+                    position += HEADER_BYTES + length;
+                    consumed++;
+
+                    try {
+                        TaxiRide ride = objectMapper.readValue(payload, TaxiRide.class);
+                        ride.setId(null);
+                        rides.add(ride);
+                    } catch (IOException e) {
+                        corrupted.increment();
+                        logger.error("✘ Could not decode spilled ride in segment {}: {}", segment, e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read spill log " + directory, e);
+            }
+
+            peekSegment = segment;
+            peekPosition = position;
+            peekCount = consumed;
+            return rides;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the replay position past the records returned by the last {@link #peek(int)}.
+     *
+     * @return the number of records acknowledged
+     */
+    public int acknowledge() {
+        lock.lock();
+        try {
+            if (peekSegment == readSegment && peekPosition == readPosition) {
+                return 0;
+            }
+            long previousSegment = readSegment;
+            int acknowledged = peekCount;
+
+            readSegment = peekSegment;
+            readPosition = peekPosition;
+            peekCount = 0;
+            try {
+                writeCursor();
+                for (long segment = previousSegment; segment < readSegment; segment++) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not persist spill log cursor in " + directory, e);
+            }
+            depth.addAndGet(-acknowledged);
+            return acknowledged;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeRecord(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        writeBuffer.put(writePosition + HEADER_BYTES, payload);
+        writeBuffer.putInt(writePosition + Integer.BYTES, (int) crc.getValue());
+        writeBuffer.putInt(writePosition, payload.length);
+        writePosition += HEADER_BYTES + payload.length;
+    }
+
+    private void rollover() throws IOException {
+        writeBuffer.force();
+        writeSegment++;
+        writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+        writePosition = 0;
+        logger.info("Spill log rolled over to segment {}", writeSegment);
+    }
+
+    /**
+     * Returns the end of the last intact record and clears whatever a torn write left behind it.
+     */
+    private int recover(MappedByteBuffer buffer) {
+        int position = 0;
+        int length;
+        while ((length = recordLength(buffer, position)) >= 0) {
+            position += HEADER_BYTES + length;
+        }
+
+        boolean dirty = false;
+        for (int i = position; i < segmentBytes && !dirty; i++) {
+            dirty = buffer.get(i) != 0;
+        }
+        if (dirty) {
+            logger.warn("⚠ Discarding incomplete spill record at offset {} of segment {}", position, writeSegment);
+            for (int i = position; i < segmentBytes; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+        return position;
+    }
+
+    private long countPending() throws IOException {
+        long pending = 0;
+        for (long segment = readSegment; segment <= writeSegment; segment++) {
+            MappedByteBuffer buffer = readBuffer(segment);
+            int position = segment == readSegment ? readPosition : 0;
+            int length;
+            while ((length = recordLength(buffer, position)) >= 0) {
+                position += HEADER_BYTES + length;
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Payload length of the intact record starting at {@code position}, or -1 if there is none.
+     */
+    private int recordLength(ByteBuffer buffer, int position) {
+        if (position + HEADER_BYTES > segmentBytes) {
+            return -1;
+        }
+        int length = buffer.getInt(position);
+        if (length <= 0 || length > segmentBytes - position - HEADER_BYTES) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + HEADER_BYTES, length));
+        return (int) crc.getValue() == buffer.getInt(position + Integer.BYTES) ? length : -1;
+    }
+
+    private MappedByteBuffer readBuffer(long segment) throws IOException {
+        if (segment != readBufferSegment) {
+            readBuffer = segment == writeSegment ? writeBuffer : map(segment, FileChannel.MapMode.READ_ONLY);
+            readBufferSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(mode, 0, segmentBytes);
+        }
+    }
+
+    private void readCursor(long firstSegment) throws IOException {
+        readSegment = firstSegment;
+        readPosition = 0;
+
+        Path cursor = directory.resolve(CURSOR_FILE);
+        if (!Files.exists(cursor)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cursor));
+        if (buffer.remaining() != Long.BYTES + 2 * Integer.BYTES) {
+            logger.warn("⚠ Ignoring malformed spill cursor, replaying from segment {}", firstSegment);
+            return;
+        }
+        long segment = buffer.getLong();
+        int position = buffer.getInt();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, Long.BYTES + Integer.BYTES);
+        if ((int) crc.getValue() != buffer.getInt()) {
+            logger.warn("⚠ Ignoring damaged spill cursor, replaying from segment {}", firstSegment);
+            return;
+        }
+        if (segment >= firstSegment && segment <= writeSegment) {
+            readSegment = segment;
+            readPosition = position;
+        }
+    }
+
+    private void writeCursor() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + 2 * Integer.BYTES);
+        buffer.putLong(readSegment);
+        buffer.putInt(readPosition);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, Long.BYTES + Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+
+        Path temporary = directory.resolve(CURSOR_FILE + ".tmp");
+        Files.write(temporary, buffer.array(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DSYNC);
+        Files.move(temporary, directory.resolve(CURSOR_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,87 @@
+package com.taxidata.processor.spill;
+
+import com.taxidata.processor.dedup.RideDeduplicator;
+import com.taxidata.processor.events.RideCommitNotifier;
+import com.taxidata.processor.model.TaxiRide;
+import com.taxidata.processor.repository.RideWriter;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drains the {@link RideSpillLog} in order once {@code saveRideCB} is closed again. Every batch is
+ * checked by {@link RideDeduplicator#filterReplayed(List)} first, so a ride that was also redelivered,
+ * or replayed before a crash, is not stored twice.
+ */
+@Component
+@RequiredArgsConstructor
+public class SpillReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillReplayer.class);
+
+    private final RideSpillLog spillLog;
+    private final RideWriter rideWriter;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final RideCommitNotifier commitNotifier;
+    private final RideDeduplicator deduplicator;
+
+    @Value("${processor.spill.replay-batch-size:100}")
+    private int replayBatchSize;
+
+    private CircuitBreaker circuitBreaker;
+    private Counter replayed;
+
+    @PostConstruct
+    public void init() {
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("saveRideCB");
+        this.replayed = Counter.builder("taxi.processor.spill.replayed")
+                .description("Spilled rides written to the database after the circuit breaker closed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${processor.spill.replay-interval-ms:5000}")
+    public void replay() {
+        if (!spillLog.isEnabled() || spillLog.depth() == 0) {
+            return;
+        }
+        if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+            return;
+        }
+
+        logger.info("↻ Replaying {} spilled rides", spillLog.depth());
+        try {
+            while (circuitBreaker.getState() == CircuitBreaker.State.CLOSED) {
+                List<TaxiRide> rides = spillLog.peek(replayBatchSize);
+                if (!rides.isEmpty()) {
+                    List<TaxiRide> fresh = circuitBreaker.executeSupplier(() -> {
+                        List<TaxiRide> unseen = deduplicator.filterReplayed(rides);
+                        if (!unseen.isEmpty()) {
+                            rideWriter.writeAll(unseen);
+                        }
+                        return unseen;
+                    });
+                    replayed.increment(fresh.size());
+                    if (!fresh.isEmpty()) {
+                        commitNotifier.committed(fresh);
+                    }
+                }
+                if (spillLog.acknowledge() == 0 || spillLog.depth() == 0) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("⚠ Spill replay interrupted, {} rides still pending: {}", spillLog.depth(), e.getMessage());
+        }
+    }
+}
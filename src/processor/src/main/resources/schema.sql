@@ -0,0 +1,96 @@
+-- Runs after Hibernate has updated the schema (spring.jpa.defer-datasource-initialization).
+-- Statements must stay idempotent: this script is executed on every start.
+-- Statements end with ^; (spring.sql.init.separator) so that DO blocks can contain semicolons.
+
+-- taxi_rides.id used to be an IDENTITY column. Move the pooled sequence past any id it issued.
+SELECT setval('taxi_rides_seq',
+              GREATEST((SELECT COALESCE(MAX(id), 0) FROM taxi_rides) + 50,
+                       (SELECT last_value FROM taxi_rides_seq)))^;
+
+-- important_places used to be a separate @ElementCollection table. Fold it into the jsonb
+-- column on taxi_rides and drop it; both happen in one transaction.
+DO $$
+BEGIN
+    IF to_regclass('important_places') IS NOT NULL THEN
+        UPDATE taxi_rides t
+        SET important_places = p.places
+        FROM (SELECT ride_id,
+                     jsonb_agg(jsonb_build_object('latitude', latitude, 'longitude', longitude, 'place', place)
+                               ORDER BY ctid) AS places
+              FROM important_places
+              GROUP BY ride_id) p
+        WHERE t.id = p.ride_id;
+
+        UPDATE taxi_rides SET important_places = '[]'::jsonb WHERE important_places IS NULL;
+
+        DROP TABLE important_places;
+    END IF;
+END
+$$^;
+
+-- start_cell/end_cell were added for geo search. Fill them for rides written before, with the
+-- same arithmetic as GeoGrid.cellOf in src/common (100 cells per degree, 36000 columns);
+-- CopyRideWriterTest runs this statement against GeoGrid.
+UPDATE taxi_rides
+SET start_cell = CASE WHEN latitude IS NOT NULL AND longitude IS NOT NULL THEN
+        GREATEST(LEAST(floor((latitude + 90) * 100)::bigint, 17999), 0) * 36000
+        + GREATEST(LEAST(floor((longitude + 180) * 100)::bigint, 35999), 0) END,
+    end_cell = CASE WHEN end_latitude IS NOT NULL AND end_longitude IS NOT NULL THEN
+        GREATEST(LEAST(floor((end_latitude + 90) * 100)::bigint, 17999), 0) * 36000
+        + GREATEST(LEAST(floor((end_longitude + 180) * 100)::bigint, 35999), 0) END
+WHERE (start_cell IS NULL AND latitude IS NOT NULL AND longitude IS NOT NULL)
+   OR (end_cell IS NULL AND end_latitude IS NOT NULL AND end_longitude IS NOT NULL)^;
+
+-- taxi_rides used to be a single table. Hibernate still creates it as one on an empty database,
+-- so convert it here into a table partitioned by month of start_date: taxi_rides_pYYYY_MM for
+-- every month from the oldest ride to three months ahead, plus taxi_rides_default for rides without
+-- a start date or outside the created range. RidePartitionMaintainer takes over from there.
+-- A partitioned table cannot have a primary key without the partition key, and start_date is
+-- nullable, so id is covered by a plain index; ids still come from taxi_rides_seq.
+DO $$
+DECLARE
+    month date;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('taxi_rides_partitioning'));
+    IF (SELECT relkind FROM pg_class WHERE oid = 'taxi_rides'::regclass) = 'r' THEN
+        ALTER TABLE taxi_rides RENAME TO taxi_rides_unpartitioned;
+        CREATE TABLE taxi_rides (LIKE taxi_rides_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (start_date);
+        CREATE TABLE taxi_rides_default PARTITION OF taxi_rides DEFAULT;
+
+        FOR month IN
+            SELECT generate_series(date_trunc('month', COALESCE((SELECT min(start_date) FROM taxi_rides_unpartitioned), now())),
+                                   date_trunc('month', now()) + interval '3 months',
+                                   interval '1 month')::date
+        LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF taxi_rides FOR VALUES FROM (%L) TO (%L)',
+                           'taxi_rides_p' || to_char(month, 'YYYY_MM'), month, (month + interval '1 month')::date);
+        END LOOP;
+
+        INSERT INTO taxi_rides SELECT * FROM taxi_rides_unpartitioned;
+        DROP TABLE taxi_rides_unpartitioned;
+
+        -- Same names as the @Index declarations on TaxiRide, created once on the parent for all partitions
+        CREATE INDEX idx_taxi_rides_id ON taxi_rides (id);
+        CREATE INDEX idx_taxi_rides_start_date ON taxi_rides (start_date);
+        CREATE INDEX idx_taxi_rides_price_start_date ON taxi_rides (price, start_date);
+        CREATE INDEX idx_taxi_rides_price_id ON taxi_rides (price, id);
+        CREATE INDEX idx_taxi_rides_start_cell_id ON taxi_rides (start_cell, id);
+        CREATE INDEX idx_taxi_rides_end_cell_id ON taxi_rides (end_cell, id);
+    END IF;
+END
+$$^;
+
+-- Hourly ride aggregates per pickup place, merged in by RideStatsAggregator and served from memory by the API
+CREATE TABLE IF NOT EXISTS ride_hourly_stats (
+    place varchar(255) NOT NULL,
+    hour timestamp NOT NULL,
+    rides bigint NOT NULL,
+    duration_minutes_sum bigint NOT NULL,
+    duration_count bigint NOT NULL,
+    price_sketch bytea,
+    distance_sketch bytea,
+    updated_at timestamp NOT NULL,
+    PRIMARY KEY (place, hour)
+)^;
+
+CREATE INDEX IF NOT EXISTS idx_ride_hourly_stats_updated_at ON ride_hourly_stats (updated_at)^;
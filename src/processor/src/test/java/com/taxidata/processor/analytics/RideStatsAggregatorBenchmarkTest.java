@@ -0,0 +1,70 @@
+package com.taxidata.processor.analytics;
+
+import com.taxidata.processor.model.Location;
+import com.taxidata.processor.model.TaxiRide;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures what maintaining the hourly aggregates adds to a committed batch: the per-ride cost of
+ * {@link RideStatsAggregator#record} on realistic place and hour spreads. The flush runs off the
+ * ingest path and is not included. Run with {@code ./gradlew :src:processor:test -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RideStatsAggregatorBenchmarkTest {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int BATCHES = 20_000;
+    private static final int WARMUP_BATCHES = 5_000;
+    private static final String[] PLACES = {"New York City", "Times Square", "Central Park", "JFK Airport",
+            "LaGuardia Airport", "Brooklyn Bridge", "Wall Street", "Harlem"};
+
+    @Test
+    void measureRecordOverhead() {
+        RideStatsAggregator aggregator = new RideStatsAggregator(null, null, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(aggregator, "relativeAccuracy", 0.01);
+        List<List<TaxiRide>> batches = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batches.add(batch());
+        }
+
+        for (int i = 0; i < WARMUP_BATCHES; i++) {
+            aggregator.record(batches.get(i % batches.size()));
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < BATCHES; i++) {
+            aggregator.record(batches.get(i % batches.size()));
+        }
+        double perRide = (double) (System.nanoTime() - start) / ((long) BATCHES * BATCH_SIZE);
+
+        assertTrue(aggregator.pendingSize() > 0);
+        System.out.printf("Hourly aggregates: %.0f ns per ride, %d pending (place, hour) keys%n",
+                perRide, aggregator.pendingSize());
+    }
+
+    private static List<TaxiRide> batch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<TaxiRide> rides = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            LocalDateTime startDate = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(7 * 24 * 60));
+            rides.add(TaxiRide.builder()
+                    .start(new Location(40.7128, -74.0060, PLACES[random.nextInt(PLACES.length)]))
+                    .end(new Location(40.7580, -73.9855, "Times Square"))
+                    .startDate(startDate)
+                    .endDate(startDate.plusMinutes(5 + random.nextInt(60)))
+                    .price(Math.round(random.nextDouble(5, 80) * 100) / 100.0)
+                    .distanceKm(random.nextDouble(1, 30))
+                    .build());
+        }
+        return rides;
+    }
+}
@@ -0,0 +1,86 @@
+package com.taxidata.processor.dedup;
+
+import com.taxidata.processor.model.Location;
+import com.taxidata.processor.model.TaxiRide;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RotatingBloomFilterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testReportsRepeatedFingerprint() {
+        RotatingBloomFilter filter = filter(1_000_000);
+        RideFingerprint fingerprint = RideFingerprint.of(ride(25.50));
+
+        assertFalse(filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2()));
+        assertTrue(filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2()));
+    }
+
+    @Test
+    void testForgetsFingerprintsOlderThanTheWindow() {
+        RotatingBloomFilter filter = filter(1_000_000);
+        RideFingerprint fingerprint = RideFingerprint.of(ride(25.50));
+        filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2());
+
+        clock.addAndGet(Duration.ofMinutes(59).toNanos());
+        assertTrue(filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2()));
+
+        // The re-insert above keeps it alive for another window; only a full idle window forgets it
+        clock.addAndGet(Duration.ofHours(3).toNanos());
+        assertFalse(filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2()));
+    }
+
+    @Test
+    void testStaysWithinMemoryBudget() {
+        RotatingBloomFilter filter = filter(64 * 1024);
+
+        assertTrue(filter.memoryBytes() <= 64 * 1024);
+    }
+
+    @Test
+    void testFalsePositiveRateIsCloseToTarget() {
+        RotatingBloomFilter filter = filter(1_000_000);
+        for (int i = 0; i < 10_000; i++) {
+            RideFingerprint fingerprint = RideFingerprint.of(ride(i));
+            filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2());
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            RideFingerprint fingerprint = RideFingerprint.of(ride(i));
+            if (filter.mightContainAndPut(fingerprint.hash1(), fingerprint.hash2())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 100, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void testEqualRidesShareAFingerprint() {
+        assertEquals(RideFingerprint.of(ride(25.50)), RideFingerprint.of(ride(25.50)));
+        assertEquals(RideFingerprint.of(ride(25.50)).hash1(), RideFingerprint.of(ride(25.50)).hash1());
+    }
+
+    private RotatingBloomFilter filter(long memoryBudgetBytes) {
+        return new RotatingBloomFilter(20_000, 0.001, memoryBudgetBytes, Duration.ofHours(1), 2, clock::get);
+    }
+
+    private static TaxiRide ride(double price) {
+        return TaxiRide.builder()
+                .start(new Location(40.7128, -74.0060, "New York City"))
+                .end(new Location(40.7580, -73.9855, "Times Square"))
+                .startDate(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .endDate(LocalDateTime.of(2024, 1, 1, 10, 30))
+                .price(price)
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.taxidata.processor.partition;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RidePartitionMaintainerTest {
+
+    @Test
+    void testNamesMatchTheOnesCreatedBySchemaSql() {
+        // to_char(month, 'YYYY_MM') in schema.sql
+        assertEquals("taxi_rides_p2024_01", RidePartitionMaintainer.name(YearMonth.of(2024, 1)));
+        assertEquals(YearMonth.of(2024, 1), RidePartitionMaintainer.month("taxi_rides_p2024_01"));
+    }
+
+    @Test
+    void testRetentionKeepsExactlyTheConfiguredMonths() {
+        YearMonth current = YearMonth.of(2024, 6);
+        Set<String> partitions = Set.of("taxi_rides_p2024_03", "taxi_rides_p2024_04", "taxi_rides_p2024_05",
+                "taxi_rides_p2024_06", "taxi_rides_p2024_07", RidePartitionMaintainer.DEFAULT_PARTITION);
+
+        // 3 months: April, May and June; March is the first one dropped
+        YearMonth oldestKept = RidePartitionMaintainer.oldestKept(current, 3);
+
+        assertEquals(YearMonth.of(2024, 4), oldestKept);
+        assertEquals(List.of("taxi_rides_p2024_03"), RidePartitionMaintainer.expired(partitions, oldestKept));
+        assertEquals(current, RidePartitionMaintainer.oldestKept(current, 1));
+    }
+
+    @Test
+    void testOtherTablesAreNeverTreatedAsMonthlyPartitions() {
+        assertNull(RidePartitionMaintainer.month(RidePartitionMaintainer.DEFAULT_PARTITION));
+        assertNull(RidePartitionMaintainer.month("taxi_rides_p2024"));
+        assertNull(RidePartitionMaintainer.month("important_places"));
+    }
+}
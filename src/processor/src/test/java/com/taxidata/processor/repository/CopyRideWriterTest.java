@@ -0,0 +1,171 @@
+package com.taxidata.processor.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taxidata.common.geo.GeoGrid;
+import com.taxidata.processor.metrics.IngestMetrics;
+import com.taxidata.processor.model.Location;
+import com.taxidata.processor.model.TaxiRide;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Writes rides with the binary COPY encoder and reads them back through JPA, so the hand-written
+ * jsonb, timestamp and row encodings are checked against what Hibernate maps. Also checks the
+ * cell backfill of schema.sql against {@link GeoGrid}.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CopyRideWriterTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14.11");
+
+    @Autowired
+    private TaxiRideRepository repository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private CopyRideWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(dataSource).execute("TRUNCATE taxi_rides");
+        IngestMetrics ingestMetrics = new IngestMetrics(new SimpleMeterRegistry());
+        ingestMetrics.init();
+        writer = new CopyRideWriter(dataSource, objectMapper, ingestMetrics);
+    }
+
+    @Test
+    void testCopiedRidesReadBackThroughJpa() {
+        // Microseconds, a date before the PostgreSQL epoch (negative offset) and multi-byte text
+        LocalDateTime startDate = LocalDateTime.of(1999, 12, 31, 23, 59, 58, 123_456_000);
+        TaxiRide complete = TaxiRide.builder()
+                .start(new Location(40.7128, -74.0060, "New York City"))
+                .end(new Location(40.7580, -73.9855, "Café Lalo"))
+                .startDate(startDate)
+                .endDate(startDate.plusMinutes(25))
+                .price(23.75)
+                .distanceKm(4.2)
+                .build();
+        complete.addImportantPlace(new Location(40.7527, -73.9772, "Grand Central Terminal"));
+        complete.addImportantPlace(new Location(40.7851, -73.9683, null));
+
+        TaxiRide inProgress = TaxiRide.builder()
+                .start(new Location(40.7061, -73.9969, null))
+                .startDate(LocalDateTime.of(2024, 3, 15, 8, 30, 0, 999_999_000))
+                .price(0.0)
+                .build();
+
+        writer.writeAll(List.of(complete, inProgress));
+
+        TaxiRide first = repository.findById(complete.getId()).orElseThrow();
+        assertEquals(complete.getStart(), first.getStart());
+        assertEquals(complete.getEnd(), first.getEnd());
+        assertEquals(TaxiRide.cellOf(complete.getStart()), first.getStartCell());
+        assertEquals(TaxiRide.cellOf(complete.getEnd()), first.getEndCell());
+        assertEquals(complete.getImportantPlaces(), first.getImportantPlaces());
+        assertEquals(startDate, first.getStartDate());
+        assertEquals(startDate.plusMinutes(25), first.getEndDate());
+        assertEquals(23.75, first.getPrice());
+        assertEquals(4.2, first.getDistanceKm());
+        assertEquals(0L, first.getVersion());
+        assertNotNull(first.getCreatedAt());
+
+        TaxiRide second = repository.findById(inProgress.getId()).orElseThrow();
+        assertEquals(inProgress.getStart(), second.getStart());
+        assertNull(second.getEnd());
+        assertNull(second.getEndCell());
+        assertNull(second.getEndDate());
+        assertNull(second.getDistanceKm());
+        assertEquals(List.of(), second.getImportantPlaces());
+        assertEquals(LocalDateTime.of(2024, 3, 15, 8, 30, 0, 999_999_000), second.getStartDate());
+    }
+
+    @Test
+    void testIdsDoNotCollideWithHibernateInserts() {
+        TaxiRide copied = ride();
+        writer.writeAll(List.of(copied));
+        TaxiRide saved = repository.save(ride());
+
+        assertNotNull(copied.getId());
+        assertEquals(2, repository.count());
+        assertEquals(2, repository.findAllById(List.of(copied.getId(), saved.getId())).size());
+    }
+
+    @Test
+    void testSchemaBackfillComputesTheSameCellsAsGeoGrid() throws IOException {
+        double[][] coordinates = {
+                {40.7128, -74.0060}, {40.7580, -73.9855}, {-33.8688, 151.2093},
+                {-90, -180}, {90, 180}, {0, 0}, {40.70999999, -74.01000001}};
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        for (double[] start : coordinates) {
+            TaxiRide ride = ride();
+            ride.setStart(new Location(start[0], start[1], null));
+            ride.setEnd(new Location(-start[0], -start[1], null));
+            writer.writeAll(List.of(ride));
+        }
+        jdbc.update("UPDATE taxi_rides SET start_cell = NULL, end_cell = NULL");
+
+        jdbc.update(backfillStatement());
+
+        for (TaxiRide ride : repository.findAll()) {
+            long expectedStart = GeoGrid.cellOf(ride.getStart().getLatitude(), ride.getStart().getLongitude());
+            long expectedEnd = GeoGrid.cellOf(ride.getEnd().getLatitude(), ride.getEnd().getLongitude());
+            assertEquals(expectedStart, ride.getStartCell(), "start " + ride.getStart());
+            assertEquals(expectedEnd, ride.getEndCell(), "end " + ride.getEnd());
+        }
+        assertEquals(coordinates.length, repository.count());
+    }
+
+    /**
+     * The cell backfill exactly as schema.sql runs it at startup.
+     */
+    private static String backfillStatement() throws IOException {
+        String schema = new ClassPathResource("schema.sql").getContentAsString(StandardCharsets.UTF_8);
+        return Arrays.stream(schema.split("\\^;"))
+                .filter(statement -> statement.contains("SET start_cell"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static TaxiRide ride() {
+        return TaxiRide.builder()
+                .start(new Location(40.7128, -74.0060, "New York City"))
+                .end(new Location(40.7580, -73.9855, "Times Square"))
+                .startDate(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .endDate(LocalDateTime.of(2024, 1, 1, 10, 20))
+                .price(12.5)
+                .distanceKm(3.0)
+                .build();
+    }
+}
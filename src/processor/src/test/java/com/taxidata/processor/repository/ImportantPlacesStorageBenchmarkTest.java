@@ -0,0 +1,201 @@
+package com.taxidata.processor.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the former {@code important_places} collection table with the inline jsonb column.
+ * Both layouts are created side by side and driven with the statements Hibernate issues for each
+ * mapping: batched ride and place inserts, and a 20-row price-range page followed by one lazy
+ * collection load per ride. Run with {@code ./gradlew :src:processor:test -Dbenchmark=true}.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class ImportantPlacesStorageBenchmarkTest {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int BATCHES = 200;
+    private static final int WARMUP_BATCHES = 20;
+    private static final int PAGE_SIZE = 20;
+    private static final int PAGE_READS = 1000;
+    private static final int PLACES_PER_RIDE = 3;
+
+    private static final String PAGE_COLUMNS =
+            "id, latitude, longitude, place, end_latitude, end_longitude, end_place, price, distance_km";
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14.11");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private long nextId;
+
+    @BeforeEach
+    void createLayouts() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_places_table, bench_rides_table, bench_rides_jsonb");
+        // Same DDL Hibernate generated for the @ElementCollection mapping: a foreign key, no index
+        jdbcTemplate.execute("CREATE TABLE bench_rides_table (id bigint PRIMARY KEY, latitude float8, longitude float8, " +
+                "place varchar(255), end_latitude float8, end_longitude float8, end_place varchar(255), " +
+                "price float8 NOT NULL, distance_km float8)");
+        jdbcTemplate.execute("CREATE TABLE bench_places_table (ride_id bigint NOT NULL REFERENCES bench_rides_table, " +
+                "latitude float8, longitude float8, place varchar(255))");
+        jdbcTemplate.execute("CREATE TABLE bench_rides_jsonb (id bigint PRIMARY KEY, latitude float8, longitude float8, " +
+                "place varchar(255), end_latitude float8, end_longitude float8, end_place varchar(255), " +
+                "important_places jsonb, price float8 NOT NULL, distance_km float8)");
+    }
+
+    @Test
+    void compareCollectionTableAndJsonb() {
+        long[] tableInserts = measureInserts(this::insertIntoTable);
+        long[] jsonbInserts = measureInserts(this::insertIntoJsonb);
+        jdbcTemplate.execute("ANALYZE bench_rides_table, bench_places_table, bench_rides_jsonb");
+        long[] tableReads = measurePageReads(this::readPageFromTable);
+        long[] jsonbReads = measurePageReads(this::readPageFromJsonb);
+
+        int expected = (WARMUP_BATCHES + BATCHES) * BATCH_SIZE;
+        assertEquals(expected * PLACES_PER_RIDE,
+                jdbcTemplate.queryForObject("SELECT count(*) FROM bench_places_table", Integer.class));
+        assertEquals(expected * PLACES_PER_RIDE,
+                jdbcTemplate.queryForObject("SELECT sum(jsonb_array_length(important_places)) FROM bench_rides_jsonb", Integer.class));
+
+        report("Insert batch of " + BATCH_SIZE, tableInserts, jsonbInserts);
+        report("Read page of " + PAGE_SIZE, tableReads, jsonbReads);
+    }
+
+    private long[] measureInserts(Runnable insertBatch) {
+        for (int i = 0; i < WARMUP_BATCHES; i++) {
+            insertBatch.run();
+        }
+        long[] samples = new long[BATCHES];
+        for (int i = 0; i < BATCHES; i++) {
+            long start = System.nanoTime();
+            insertBatch.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        return samples;
+    }
+
+    private long[] measurePageReads(PageRead read) {
+        long[] samples = new long[PAGE_READS];
+        for (int i = 0; i < PAGE_READS; i++) {
+            double minPrice = ThreadLocalRandom.current().nextDouble(5, 70);
+            long start = System.nanoTime();
+            int rows = read.page(minPrice, minPrice + 10);
+            samples[i] = System.nanoTime() - start;
+            assertEquals(PAGE_SIZE, rows);
+        }
+        return samples;
+    }
+
+    private void insertIntoTable() {
+        List<Object[]> rides = rideRows();
+        List<Object[]> places = new ArrayList<>(rides.size() * PLACES_PER_RIDE);
+        for (Object[] ride : rides) {
+            places.add(new Object[]{ride[0], 40.7527, -73.9772, "Grand Central Terminal"});
+            places.add(new Object[]{ride[0], 40.7851, -73.9683, "Central Park"});
+            places.add(new Object[]{ride[0], 40.7061, -73.9969, "Brooklyn Bridge"});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("INSERT INTO bench_rides_table (id, latitude, longitude, place, end_latitude, " +
+                    "end_longitude, end_place, price, distance_km) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rides);
+            jdbcTemplate.batchUpdate("INSERT INTO bench_places_table (ride_id, latitude, longitude, place) " +
+                    "VALUES (?, ?, ?, ?)", places);
+        });
+    }
+
+    private void insertIntoJsonb() {
+        String places = "[{\"latitude\":40.7527,\"longitude\":-73.9772,\"place\":\"Grand Central Terminal\"}," +
+                "{\"latitude\":40.7851,\"longitude\":-73.9683,\"place\":\"Central Park\"}," +
+                "{\"latitude\":40.7061,\"longitude\":-73.9969,\"place\":\"Brooklyn Bridge\"}]";
+        List<Object[]> rides = rideRows().stream()
+                .map(ride -> new Object[]{ride[0], ride[1], ride[2], ride[3], ride[4], ride[5], ride[6], places, ride[7], ride[8]})
+                .toList();
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate("INSERT INTO bench_rides_jsonb (id, latitude, longitude, place, end_latitude, " +
+                        "end_longitude, end_place, important_places, price, distance_km) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?)", rides));
+    }
+
+    private int readPageFromTable(double minPrice, double maxPrice) {
+        jdbcTemplate.queryForObject("SELECT count(*) FROM bench_rides_table WHERE price >= ? AND price <= ?",
+                Long.class, minPrice, maxPrice);
+        List<Long> ids = jdbcTemplate.query("SELECT " + PAGE_COLUMNS + " FROM bench_rides_table " +
+                        "WHERE price >= ? AND price <= ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> rs.getLong("id"), minPrice, maxPrice, PAGE_SIZE);
+        for (Long id : ids) {
+            jdbcTemplate.queryForList("SELECT latitude, longitude, place FROM bench_places_table WHERE ride_id = ?", id);
+        }
+        return ids.size();
+    }
+
+    private int readPageFromJsonb(double minPrice, double maxPrice) {
+        jdbcTemplate.queryForObject("SELECT count(*) FROM bench_rides_jsonb WHERE price >= ? AND price <= ?",
+                Long.class, minPrice, maxPrice);
+        return jdbcTemplate.queryForList("SELECT " + PAGE_COLUMNS + ", important_places FROM bench_rides_jsonb " +
+                "WHERE price >= ? AND price <= ? ORDER BY id LIMIT ?", minPrice, maxPrice, PAGE_SIZE).size();
+    }
+
+    private List<Object[]> rideRows() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            rows.add(new Object[]{++nextId, 40.7128, -74.0060, "New York City", 40.7580, -73.9855, "Times Square",
+                    Math.round(random.nextDouble(5, 80) * 100) / 100.0, random.nextDouble(1, 30)});
+        }
+        // Both layouts receive the same ids
+        if (nextId == (long) (WARMUP_BATCHES + BATCHES) * BATCH_SIZE) {
+            nextId = 0;
+        }
+        return rows;
+    }
+
+    private static void report(String operation, long[] table, long[] jsonb) {
+        System.out.printf("%s: collection table p50 %.2f ms, p99 %.2f ms | jsonb p50 %.2f ms, p99 %.2f ms%n",
+                operation, percentile(table, 0.50), percentile(table, 0.99),
+                percentile(jsonb, 0.50), percentile(jsonb, 0.99));
+    }
+
+    private static double percentile(long[] samples, double quantile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1] / 1_000_000.0;
+    }
+
+    @FunctionalInterface
+    private interface PageRead {
+        int page(double minPrice, double maxPrice);
+    }
+}
@@ -0,0 +1,171 @@
+package com.taxidata.processor.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares a single rides table with the monthly-partitioned layout of schema.sql. Both hold the
+ * same rides over two years, with the same indexes, and are queried with bound parameters like the
+ * API does, so pruning happens at execution time. Measured:
+ * <ul>
+ *     <li>one-day count and average price</li>
+ *     <li>one-week page of 20 rides in a price band, ordered by start date</li>
+ *     <li>three-month count in a price band</li>
+ *     <li>retention: removing the oldest three months with DELETE vs. DETACH and DROP</li>
+ * </ul>
+ * Run with {@code ./gradlew :src:processor:test --tests '*PartitionedStorageBenchmarkTest' -Dbenchmark=true}.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PartitionedStorageBenchmarkTest {
+
+    private static final int RIDES = 6_000_000;
+    private static final LocalDate FIRST_MONTH = LocalDate.of(2023, 1, 1);
+    private static final int MONTHS = 24;
+    private static final int RETIRED_MONTHS = 3;
+    private static final int WARMUP_QUERIES = 50;
+    private static final int QUERIES = 500;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14.11");
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createLayouts() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_single, bench_partitioned");
+        String columns = "(id bigint NOT NULL, start_date timestamp, price float8 NOT NULL, distance_km float8, place varchar(255))";
+        jdbcTemplate.execute("CREATE TABLE bench_single " + columns);
+        jdbcTemplate.execute("CREATE TABLE bench_partitioned " + columns + " PARTITION BY RANGE (start_date)");
+        jdbcTemplate.execute("CREATE TABLE bench_partitioned_default PARTITION OF bench_partitioned DEFAULT");
+        for (int i = 0; i < MONTHS; i++) {
+            LocalDate month = FIRST_MONTH.plusMonths(i);
+            jdbcTemplate.execute("CREATE TABLE " + partition(month) + " PARTITION OF bench_partitioned " +
+                    "FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+        }
+
+        jdbcTemplate.execute("INSERT INTO bench_single SELECT g, timestamp '" + FIRST_MONTH + "' + random() * interval '" +
+                MONTHS + " months', 5 + random() * 75, 1 + random() * 20, 'Manhattan' FROM generate_series(1, " + RIDES + ") g");
+        jdbcTemplate.execute("INSERT INTO bench_partitioned SELECT * FROM bench_single");
+        for (String table : new String[]{"bench_single", "bench_partitioned"}) {
+            jdbcTemplate.execute("CREATE INDEX ON " + table + " (id)");
+            jdbcTemplate.execute("CREATE INDEX ON " + table + " (start_date)");
+            jdbcTemplate.execute("CREATE INDEX ON " + table + " (price, start_date)");
+        }
+        jdbcTemplate.execute("VACUUM ANALYZE bench_single, bench_partitioned");
+    }
+
+    @Test
+    void compareSingleTableAndPartitions() {
+        report("1-day count/avg", measure(this::dayAggregate, "bench_single"), measure(this::dayAggregate, "bench_partitioned"));
+        report("1-week page of 20", measure(this::weekPage, "bench_single"), measure(this::weekPage, "bench_partitioned"));
+        report("3-month count", measure(this::quarterCount, "bench_single"), measure(this::quarterCount, "bench_partitioned"));
+
+        LocalDate cutoff = FIRST_MONTH.plusMonths(RETIRED_MONTHS);
+        long start = System.nanoTime();
+        int deleted = jdbcTemplate.update("DELETE FROM bench_single WHERE start_date < ?", cutoff.atStartOfDay());
+        double deleteMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        long remaining = count("bench_partitioned");
+        start = System.nanoTime();
+        for (int i = 0; i < RETIRED_MONTHS; i++) {
+            String partition = partition(FIRST_MONTH.plusMonths(i));
+            jdbcTemplate.execute("ALTER TABLE bench_partitioned DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+        double dropMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        assertEquals(remaining - deleted, count("bench_partitioned"));
+        System.out.printf("Retire %d months (%,d rides): DELETE %.0f ms | DETACH+DROP %.0f ms%n",
+                RETIRED_MONTHS, deleted, deleteMs, dropMs);
+    }
+
+    private long[] measure(WindowQuery query, String table) {
+        Random random = new Random(42);
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query.run(table, randomDay(random));
+        }
+        long[] samples = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            LocalDateTime from = randomDay(random);
+            long start = System.nanoTime();
+            query.run(table, from);
+            samples[i] = System.nanoTime() - start;
+        }
+        return samples;
+    }
+
+    private void dayAggregate(String table, LocalDateTime from) {
+        jdbcTemplate.queryForMap("SELECT count(*), avg(price) FROM " + table +
+                " WHERE start_date >= ? AND start_date < ?", from, from.plusDays(1));
+    }
+
+    private void weekPage(String table, LocalDateTime from) {
+        jdbcTemplate.queryForList("SELECT id, start_date, price FROM " + table +
+                " WHERE start_date >= ? AND start_date < ? AND price >= 10 AND price <= 20 " +
+                "ORDER BY start_date LIMIT 20", from, from.plusWeeks(1));
+    }
+
+    private void quarterCount(String table, LocalDateTime from) {
+        jdbcTemplate.queryForObject("SELECT count(*) FROM " + table +
+                " WHERE start_date >= ? AND start_date < ? AND price >= 10 AND price <= 20", Long.class,
+                from, from.plusMonths(3));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+
+    private static LocalDateTime randomDay(Random random) {
+        // Windows up to three months long must stay inside the data
+        return FIRST_MONTH.plusDays(random.nextInt(MONTHS * 30 - 100)).atStartOfDay();
+    }
+
+    private static String partition(LocalDate month) {
+        return String.format("bench_partitioned_p%04d_%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static void report(String query, long[] single, long[] partitioned) {
+        System.out.printf("%s: single table p50 %.2f ms, p99 %.2f ms | partitioned p50 %.2f ms, p99 %.2f ms%n",
+                query, percentile(single, 0.50), percentile(single, 0.99),
+                percentile(partitioned, 0.50), percentile(partitioned, 0.99));
+    }
+
+    private static double percentile(long[] samples, double quantile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1] / 1_000_000.0;
+    }
+
+    @FunctionalInterface
+    private interface WindowQuery {
+        void run(String table, LocalDateTime from);
+    }
+}
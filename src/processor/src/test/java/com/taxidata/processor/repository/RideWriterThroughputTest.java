@@ -0,0 +1,118 @@
+package com.taxidata.processor.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taxidata.processor.metrics.IngestMetrics;
+import com.taxidata.processor.model.Location;
+import com.taxidata.processor.model.TaxiRide;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the JPA batch path with the binary COPY path against a real PostgreSQL.
+ * Run with {@code ./gradlew :src:processor:test -Dbenchmark=true}.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class RideWriterThroughputTest {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int BATCHES = 200;
+    private static final int WARMUP_BATCHES = 20;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:14.11");
+
+    @Autowired
+    private TaxiRideRepository repository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compareJpaAndCopyThroughput() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        IngestMetrics ingestMetrics = new IngestMetrics(new SimpleMeterRegistry());
+        ingestMetrics.init();
+        JpaRideWriter jpaWriter = new JpaRideWriter(repository, transactionManager, ingestMetrics);
+        jpaWriter.init();
+        double jpa = measure("jpa", jpaWriter);
+        double copy = measure("copy", new CopyRideWriter(dataSource, objectMapper, ingestMetrics));
+
+        System.out.printf("JPA batch inserts: %,.0f rides/s%n", jpa);
+        System.out.printf("Binary COPY:       %,.0f rides/s (%.1fx)%n", copy, copy / jpa);
+    }
+
+    private double measure(String engine, RideWriter writer) {
+        jdbcTemplate.execute("TRUNCATE taxi_rides");
+        for (int i = 0; i < WARMUP_BATCHES; i++) {
+            writer.writeAll(randomBatch());
+        }
+
+        long elapsed = 0;
+        for (int i = 0; i < BATCHES; i++) {
+            List<TaxiRide> batch = randomBatch();
+            long start = System.nanoTime();
+            writer.writeAll(batch);
+            elapsed += System.nanoTime() - start;
+        }
+
+        int expected = (WARMUP_BATCHES + BATCHES) * BATCH_SIZE;
+        assertEquals(expected, jdbcTemplate.queryForObject("SELECT count(*) FROM taxi_rides", Integer.class), engine);
+        assertEquals(expected * 3, jdbcTemplate.queryForObject(
+                "SELECT sum(jsonb_array_length(important_places)) FROM taxi_rides", Integer.class), engine);
+        return BATCHES * BATCH_SIZE / (elapsed / 1_000_000_000.0);
+    }
+
+    private static List<TaxiRide> randomBatch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<TaxiRide> rides = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            LocalDateTime startDate = LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(random.nextInt(525_600));
+            TaxiRide ride = TaxiRide.builder()
+                    .start(new Location(40.7128, -74.0060, "New York City"))
+                    .end(new Location(40.7580, -73.9855, "Times Square"))
+                    .startDate(startDate)
+                    .endDate(startDate.plusMinutes(15 + random.nextInt(105)))
+                    .price(Math.round(random.nextDouble(5, 80) * 100) / 100.0)
+                    .distanceKm(random.nextDouble(1, 30))
+                    .build();
+            ride.addImportantPlace(new Location(40.7527, -73.9772, "Grand Central Terminal"));
+            ride.addImportantPlace(new Location(40.7851, -73.9683, "Central Park"));
+            ride.addImportantPlace(new Location(40.7061, -73.9969, "Brooklyn Bridge"));
+            rides.add(ride);
+        }
+        return rides;
+    }
+}
@@ -0,0 +1,88 @@
+package com.taxidata.processor.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ListenerConcurrencyControllerTest {
+
+    @Mock
+    private RabbitListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private AmqpAdmin amqpAdmin;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private SimpleMessageListenerContainer container;
+
+    private MeterRegistry meterRegistry;
+
+    private ListenerConcurrencyController controller;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        controller = new ListenerConcurrencyController(listenerRegistry, amqpAdmin, dataSource, meterRegistry);
+        ReflectionTestUtils.setField(controller, "queueName", "rides");
+        ReflectionTestUtils.setField(controller, "minConsumers", 1);
+        ReflectionTestUtils.setField(controller, "maxConsumers", 2);
+        ReflectionTestUtils.setField(controller, "minPrefetch", 50);
+        ReflectionTestUtils.setField(controller, "maxPrefetch", 1000);
+        ReflectionTestUtils.setField(controller, "scaleUpDepth", 1000L);
+        ReflectionTestUtils.setField(controller, "scaleDownDepth", 100L);
+        ReflectionTestUtils.setField(controller, "busyUtilisation", 0.5);
+        ReflectionTestUtils.setField(controller, "maxCommitLatencyMs", 500.0);
+        ReflectionTestUtils.setField(controller, "initialConsumers", 1);
+        ReflectionTestUtils.setField(controller, "initialPrefetch", 250);
+        controller.init();
+
+        when(container.isRunning()).thenReturn(true);
+        when(listenerRegistry.getListenerContainers()).thenReturn(List.of(container));
+        when(amqpAdmin.getQueueInfo("rides")).thenReturn(new QueueInformation("rides", 5_000, 1));
+    }
+
+    @Test
+    void testScaleUpStartsAConsumerWithTheDoubledPrefetch() {
+        controller.adjust();
+
+        verify(container).setPrefetchCount(500);
+        verify(container).setConcurrentConsumers(2);
+        assertEquals(2, meterRegistry.get("taxi.processor.listener.consumers").gauge().value());
+        assertEquals(500, meterRegistry.get("taxi.processor.listener.prefetch").gauge().value());
+        assertEquals(1, meterRegistry.get("taxi.processor.scaling.decisions").tag("decision", "scale_up").counter().count());
+    }
+
+    @Test
+    void testPrefetchOnlyStepIsAHold() {
+        controller.adjust();
+        // At max-consumers the backlog could only raise prefetch, which no running consumer would pick up
+        controller.adjust();
+
+        verify(container, never()).setPrefetchCount(1000);
+        verify(container).setConcurrentConsumers(anyInt());
+        assertEquals(500, meterRegistry.get("taxi.processor.listener.prefetch").gauge().value());
+        assertEquals(1, meterRegistry.get("taxi.processor.scaling.decisions").tag("decision", "hold").counter().count());
+    }
+}
@@ -1,19 +1,31 @@
 package com.taxidata.processor.service;
 
+import com.taxidata.processor.dedup.RideDeduplicator;
+import com.taxidata.processor.events.RideCommitNotifier;
+import com.taxidata.processor.metrics.IngestMetrics;
 import com.taxidata.processor.model.Location;
 import com.taxidata.processor.model.TaxiRide;
+import com.taxidata.processor.repository.JpaRideWriter;
 import com.taxidata.processor.repository.TaxiRideRepository;
+import com.taxidata.processor.spill.RideSpillLog;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,18 +40,40 @@ public class TaxiRideProcessorTest {
     @Mock
     private CircuitBreaker circuitBreaker;
 
-    @InjectMocks
+    @Mock
+    private RideSpillLog spillLog;
+
+    @Mock
+    private RideDeduplicator deduplicator;
+
+    @Mock
+    private RideCommitNotifier commitNotifier;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+
     private TaxiRideProcessor processor;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        IngestMetrics ingestMetrics = new IngestMetrics(meterRegistry);
+        ingestMetrics.init();
+        JpaRideWriter rideWriter = new JpaRideWriter(repository, transactionManager, ingestMetrics);
+        rideWriter.init();
+        processor = new TaxiRideProcessor(rideWriter, circuitBreakerRegistry, meterRegistry, spillLog, deduplicator, commitNotifier, ingestMetrics);
+
         when(circuitBreakerRegistry.circuitBreaker("saveRideCB")).thenReturn(circuitBreaker);
+        when(circuitBreaker.getName()).thenReturn("saveRideCB");
+        when(circuitBreaker.getEventPublisher()).thenReturn(mock(CircuitBreaker.EventPublisher.class));
 
-        doAnswer(invocation -> {
-            Runnable runnable = invocation.getArgument(0);
-            runnable.run();
-            return null;
-        }).when(circuitBreaker).executeRunnable(any());
+        lenient().doAnswer(invocation -> {
+            Supplier<?> supplier = invocation.getArgument(0);
+            return supplier.get();
+        }).when(circuitBreaker).executeSupplier(any());
+        lenient().when(deduplicator.filter(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
 
         processor.init();
     }
@@ -70,4 +104,130 @@ public class TaxiRideProcessorTest {
         verify(repository, times(1)).save(ride);
         System.out.println("Repository.save verified");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testProcessRides_savesBatchInSingleCall() {
+        List<TaxiRide> rides = List.of(buildRide(25.50), buildRide(12.00), buildRide(40.75));
+
+        processor.processRides(rides);
+
+        verify(repository, times(1)).saveAll(rides);
+        verify(repository, never()).save(any());
+        assertEquals(1, meterRegistry.get("taxi.processor.batch.size").summary().count());
+        assertEquals(3.0, meterRegistry.get("taxi.processor.batch.size").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("taxi.processor.batch.latency").timer().count());
+    }
+
+    @Test
+    void testProcessRides_discardsInvalidRidesAndSavesTheRest() {
+        TaxiRide valid = buildRide(18.20);
+        TaxiRide negativePrice = buildRide(-1.0);
+
+        processor.processRides(List.of(valid, negativePrice));
+
+        verify(repository, times(1)).saveAll(List.of(valid));
+        assertEquals(1.0, meterRegistry.get("taxi.processor.rides.rejected").counter().count());
+    }
+
+    @Test
+    void testProcessRides_skipsRepositoryWhenNothingIsValid() {
+        processor.processRides(List.of(buildRide(-5.0)));
+
+        verify(repository, never()).saveAll(anyList());
+        verify(circuitBreaker, never()).executeSupplier(any());
+    }
+
+    private TaxiRide buildRide(double price) {
+        return TaxiRide.builder()
+                .start(new Location(40.7128, -74.0060, "New York City"))
+                .end(new Location(40.7580, -73.9855, "Times Square"))
+                .startDate(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .endDate(LocalDateTime.of(2024, 1, 1, 10, 30))
+                .price(price)
+                .distanceKm(3.4)
+                .build();
+    }
+
+    @Test
+    void testProcessRides_spillsBatchWhenBreakerIsOpen() {
+        List<TaxiRide> rides = List.of(buildRide(25.50), buildRide(12.00));
+        doThrow(openBreakerException()).when(circuitBreaker).executeSupplier(any());
+        when(spillLog.isEnabled()).thenReturn(true);
+
+        processor.processRides(rides);
+
+        verify(spillLog, times(1)).append(rides);
+        verify(repository, never()).saveAll(anyList());
+        assertEquals(0, meterRegistry.get("taxi.processor.batch.size").summary().count());
+    }
+
+    @Test
+    void testProcessRide_rethrowsWhenBreakerIsOpenAndSpillIsDisabled() {
+        doThrow(openBreakerException()).when(circuitBreaker).executeSupplier(any());
+        when(spillLog.isEnabled()).thenReturn(false);
+
+        assertThrows(CallNotPermittedException.class, () -> processor.processRide(buildRide(25.50)));
+        verify(spillLog, never()).append(anyList());
+    }
+
+    @Test
+    void testProcessRides_writesOnlyRidesTheDeduplicatorKeeps() {
+        TaxiRide fresh = buildRide(25.50);
+        TaxiRide duplicate = buildRide(12.00);
+        when(deduplicator.filter(List.of(fresh, duplicate))).thenReturn(List.of(fresh));
+
+        processor.processRides(List.of(fresh, duplicate));
+
+        verify(repository, times(1)).saveAll(List.of(fresh));
+        assertEquals(1.0, meterRegistry.get("taxi.processor.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    void testProcessRide_skipsDuplicateRide() {
+        TaxiRide ride = buildRide(25.50);
+        when(deduplicator.filter(List.of(ride))).thenReturn(List.of());
+
+        processor.processRide(ride);
+
+        verify(repository, never()).save(any());
+        verify(commitNotifier, never()).committed(anyList());
+    }
+
+    @Test
+    void testProcessRides_announcesCommittedRides() {
+        List<TaxiRide> rides = List.of(buildRide(25.50), buildRide(12.00));
+
+        processor.processRides(rides);
+
+        verify(commitNotifier, times(1)).committed(rides);
+    }
+
+    @Test
+    void testProcessRides_timesEachStage() {
+        processor.processRides(List.of(buildRide(25.50), buildRide(-1.0)));
+
+        assertEquals(2, stageCount("validate"));
+        for (String stage : List.of("breaker-wait", "dedup", "persist", "commit", "notify")) {
+            assertEquals(1, stageCount(stage), stage);
+        }
+        assertEquals(0.0, meterRegistry.get("taxi.processor.inflight").gauge().value());
+    }
+
+    @Test
+    void testProcessRide_discardsInvalidRide() {
+        processor.processRide(buildRide(-1.0));
+
+        verify(repository, never()).save(any());
+        assertEquals(1.0, meterRegistry.get("taxi.processor.rides.rejected").counter().count());
+    }
+
+    private long stageCount(String stage) {
+        return meterRegistry.get("taxi.processor.stage").tag("stage", stage).timer().count();
+    }
+
+    private static CallNotPermittedException openBreakerException() {
+        CircuitBreaker open = CircuitBreaker.ofDefaults("saveRideCB");
+        open.transitionToOpenState();
+        return CallNotPermittedException.createCallNotPermittedException(open);
+    }
+}
@@ -0,0 +1,129 @@
+package com.taxidata.processor.spill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taxidata.processor.model.Location;
+import com.taxidata.processor.model.TaxiRide;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RideSpillLogTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplaysRidesInAppendOrder() throws IOException {
+        RideSpillLog log = open(DataSize.ofMegabytes(1));
+        log.append(List.of(ride(10.0), ride(11.0)));
+        log.append(List.of(ride(12.0)));
+
+        assertEquals(3, log.depth());
+        assertEquals(List.of(10.0, 11.0), prices(log.peek(2)));
+        assertEquals(2, log.acknowledge());
+        assertEquals(List.of(12.0), prices(log.peek(10)));
+        assertEquals(1, log.acknowledge());
+        assertEquals(0, log.depth());
+        assertTrue(log.peek(10).isEmpty());
+    }
+
+    @Test
+    void testUnacknowledgedRidesAreReplayedAgainAfterRestart() throws IOException {
+        RideSpillLog log = open(DataSize.ofMegabytes(1));
+        log.append(List.of(ride(10.0), ride(11.0), ride(12.0)));
+        log.peek(1);
+        log.acknowledge();
+        log.peek(1);
+
+        RideSpillLog reopened = open(DataSize.ofMegabytes(1));
+
+        assertEquals(2, reopened.depth());
+        assertEquals(List.of(11.0, 12.0), prices(reopened.peek(10)));
+    }
+
+    @Test
+    void testRollsOverAndDeletesReplayedSegments() throws IOException {
+        RideSpillLog log = open(DataSize.ofKilobytes(1));
+        List<TaxiRide> rides = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rides.add(ride(i));
+        }
+        log.append(rides);
+        assertTrue(segmentCount() > 1);
+
+        assertEquals(20, log.peek(100).size());
+        log.acknowledge();
+
+        assertEquals(1, segmentCount());
+        assertEquals(0, log.depth());
+    }
+
+    @Test
+    void testDiscardsTornRecordOnRecovery() throws IOException {
+        RideSpillLog log = open(DataSize.ofMegabytes(1));
+        log.append(List.of(ride(10.0), ride(11.0)));
+
+        // Corrupt the payload of the second record, as an interrupted write would
+        Path segment = segments().get(0);
+        int firstRecordLength;
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            firstRecordLength = file.readInt();
+            file.seek(8L + firstRecordLength + 8 + 2);
+            file.writeByte(0x7F);
+        }
+
+        RideSpillLog reopened = open(DataSize.ofMegabytes(1));
+        assertEquals(1, reopened.depth());
+        assertEquals(List.of(10.0), prices(reopened.peek(10)));
+
+        reopened.append(List.of(ride(12.0)));
+        reopened.acknowledge();
+        assertEquals(List.of(12.0), prices(reopened.peek(10)));
+    }
+
+    private RideSpillLog open(DataSize segmentSize) throws IOException {
+        RideSpillLog log = new RideSpillLog(objectMapper, new SimpleMeterRegistry(), true, directory, segmentSize);
+        log.open();
+        return log;
+    }
+
+    private long segmentCount() throws IOException {
+        return segments().size();
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static List<Double> prices(List<TaxiRide> rides) {
+        return rides.stream().map(TaxiRide::getPrice).toList();
+    }
+
+    private static TaxiRide ride(double price) {
+        return TaxiRide.builder()
+                .start(new Location(40.7128, -74.0060, "New York City"))
+                .end(new Location(40.7580, -73.9855, "Times Square"))
+                .startDate(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .endDate(LocalDateTime.of(2024, 1, 1, 10, 30))
+                .price(price)
+                .build();
+    }
+}
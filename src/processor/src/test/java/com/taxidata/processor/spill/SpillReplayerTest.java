@@ -0,0 +1,137 @@
+package com.taxidata.processor.spill;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.taxidata.processor.dedup.RideDeduplicator;
+import com.taxidata.processor.events.RideCommitNotifier;
+import com.taxidata.processor.model.Location;
+import com.taxidata.processor.model.TaxiRide;
+import com.taxidata.processor.repository.RideWriter;
+import com.taxidata.processor.repository.TaxiRideRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SpillReplayerTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final TaxiRideRepository repository = mock(TaxiRideRepository.class);
+    private final RideWriter rideWriter = mock(RideWriter.class);
+    private final RideCommitNotifier commitNotifier = mock(RideCommitNotifier.class);
+    // Prices of the rides in taxi_rides
+    private final Set<Double> stored = new HashSet<>();
+
+    @TempDir
+    Path directory;
+
+    private RideSpillLog spillLog;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        spillLog = new RideSpillLog(objectMapper, new SimpleMeterRegistry(), true, directory, DataSize.ofMegabytes(1));
+        spillLog.open();
+
+        when(repository.existsDuplicate(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> stored.contains(invocation.<Double>getArgument(8)));
+        doAnswer(invocation -> {
+            invocation.<List<TaxiRide>>getArgument(0).forEach(ride -> stored.add(ride.getPrice()));
+            return null;
+        }).when(rideWriter).writeAll(anyList());
+    }
+
+    @Test
+    void testRideStoredByARedeliveryIsNotReplayed() {
+        spillLog.append(List.of(ride(10.0), ride(11.0)));
+        // The broker redelivered the first ride and it was written once the breaker closed
+        stored.add(10.0);
+
+        replayer().replay();
+
+        verify(rideWriter).writeAll(argThat(rides -> prices(rides).equals(List.of(11.0))));
+        verify(commitNotifier).committed(argThat(rides -> prices(rides).equals(List.of(11.0))));
+        assertEquals(0, spillLog.depth());
+    }
+
+    @Test
+    void testReplayInterruptedAfterItsWriteIsNotWrittenAgain() {
+        spillLog.append(List.of(ride(10.0)));
+        doThrow(new IllegalStateException("interrupted")).when(commitNotifier).committed(anyList());
+
+        replayer().replay();
+        assertEquals(1, spillLog.depth());
+
+        // A restarted processor starts with an empty filter
+        replayer().replay();
+
+        verify(rideWriter, times(1)).writeAll(anyList());
+        assertEquals(0, spillLog.depth());
+    }
+
+    @Test
+    void testBatchHoldingOnlyStoredRidesIsAcknowledgedWithoutAWrite() {
+        spillLog.append(List.of(ride(10.0)));
+        stored.add(10.0);
+
+        replayer().replay();
+
+        verify(rideWriter, never()).writeAll(anyList());
+        verify(commitNotifier, never()).committed(anyList());
+        assertEquals(0, spillLog.depth());
+    }
+
+    private SpillReplayer replayer() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RideDeduplicator deduplicator = new RideDeduplicator(repository, meterRegistry);
+        ReflectionTestUtils.setField(deduplicator, "enabled", true);
+        ReflectionTestUtils.setField(deduplicator, "window", Duration.ofHours(1));
+        ReflectionTestUtils.setField(deduplicator, "generations", 2);
+        ReflectionTestUtils.setField(deduplicator, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(deduplicator, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(deduplicator, "memoryBudget", DataSize.ofMegabytes(1));
+        deduplicator.init();
+
+        SpillReplayer replayer = new SpillReplayer(spillLog, rideWriter, CircuitBreakerRegistry.ofDefaults(),
+                meterRegistry, commitNotifier, deduplicator);
+        ReflectionTestUtils.setField(replayer, "replayBatchSize", 100);
+        replayer.init();
+        return replayer;
+    }
+
+    private static List<Double> prices(List<TaxiRide> rides) {
+        return rides.stream().map(TaxiRide::getPrice).toList();
+    }
+
+    private static TaxiRide ride(double price) {
+        return TaxiRide.builder()
+                .start(new Location(40.7128, -74.0060, "New York City"))
+                .end(new Location(40.7580, -73.9855, "Times Square"))
+                .startDate(LocalDateTime.of(2024, 1, 1, 10, 0))
+                .endDate(LocalDateTime.of(2024, 1, 1, 10, 30))
+                .price(price)
+                .build();
+    }
+}